@@ -1,55 +1,132 @@
 package no.ntnu.currency;
 
-import currencyexchanger.RatesManager;
-import currencyexchanger.RatesUpdateListener;
-import java.util.HashMap;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import no.ntnu.database.event.ExchangeRatesUpdatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
 
 /**
- * Tracks stores exchange rates, and updates the exchange rates every 30 minutes.
+ * Tracks exchange rates, as delivered by the configured {@link RateSource}.
+ *
+ * <p>Every update is published as a new immutable {@link RateSnapshot} through a single
+ * volatile field, so readers always see one complete set of rates, never a set that
+ * is being refilled.</p>
+ *
+ * <p>Every update is also saved by the {@link RateSnapshotStore}, and the saved rates are
+ * used until the source delivers, so a node restarted while the source is unreachable
+ * starts with the last known good rates instead of none. Rates older than
+ * {@code exchange-rates.max-age-minutes} are reported as {@link RateSnapshot#status() stale},
+ * unless the source never {@link RateSource#refreshes() refreshes} them.
+ * Every update is appended to the {@link RateHistory} as well, to look up past rates.</p>
  */
-public class ExchangeRateTracker implements RatesUpdateListener {
-	private static RatesManager ratesManager;
+@Component
+public class ExchangeRateTracker {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExchangeRateTracker.class);
 
-	private final Map<String, Double> rates = new HashMap<>();
+	private final RateSource source;
+	private final RateSnapshotStore store;
+	private final RateHistory history;
+	private final ApplicationEventPublisher eventPublisher;
+	private final Duration maxAge;
+
+	private volatile RateSnapshot snapshot = RateSnapshot.EMPTY;
 
 	/**
 	 * Constructor.
+	 *
+	 * @param source         Where the rates come from
+	 * @param store          Where the last known good rates are kept
+	 * @param history        Where every set of rates received is kept
+	 * @param eventPublisher Publishes new rates to the indexes ranking prices
+	 * @param maxAgeMinutes  How old the rates may get before they are reported as stale
+	 */
+	@Autowired
+	public ExchangeRateTracker(
+			RateSource source,
+			RateSnapshotStore store,
+			RateHistory history,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${exchange-rates.max-age-minutes:60}") long maxAgeMinutes
+	) {
+		this.source = source;
+		this.store = store;
+		this.history = history;
+		this.eventPublisher = eventPublisher;
+		this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+	}
+
+	/**
+	 * Loads the saved rates, then starts tracking the source.
 	 */
-	public ExchangeRateTracker() {
-		if (!isStarted()) {
-			throw new IllegalStateException("Tracker not yet started");
+	@PostConstruct
+	public void start() {
+		store.load().ifPresent(saved -> {
+			snapshot = withMaxAge(saved);
+			LOGGER.info("Using saved exchange rates from {} until the source delivers",
+					saved.fetchedAt());
+		});
+		source.start(this::onRates);
+	}
+
+	private void onRates(Map<String, Double> rates, Instant fetchedAt) {
+		RateSnapshot updated = withMaxAge(RateSnapshot.of(rates, fetchedAt));
+		snapshot = updated;
+		try {
+			store.save(updated);
+		} catch (IOException e) {
+			LOGGER.warn("Could not save the exchange rates", e);
 		}
-		ratesManager.addListener(this);
+		try {
+			history.append(updated.baseRates(), fetchedAt);
+		} catch (IOException e) {
+			LOGGER.warn("Could not add the exchange rates to the history", e);
+		}
+		eventPublisher.publishEvent(new ExchangeRatesUpdatedEvent(updated));
 	}
 
-	public static boolean isStarted() {
-		return ratesManager != null;
+	private RateSnapshot withMaxAge(RateSnapshot rates) {
+		return source.refreshes() ? rates.withMaxAge(maxAge) : rates;
 	}
 
 	/**
-	 * Starts tracking currencies. Updated every 30min.
+	 * Returns the rates that were in use at an instant.
 	 *
-	 * @param apiKey The api key to use for creating
-	 *               {@link RatesManager.Builder#Builder(String) RatesManager.Builder}
+	 * @param instant The instant
+	 * @return The last rates fetched at or before the instant,
+	 *     or an empty Optional if none were fetched before it
 	 */
-	public static void startTracking(String apiKey) {
-		if (isStarted()) {
-			throw new IllegalStateException("Tracker already started");
-		}
-		ratesManager = new RatesManager
-				.Builder(apiKey)
-				.setBaseCurrency("USD")
-				.build();
-		ratesManager.start(30, TimeUnit.MINUTES);
+	public Optional<PastRates> getRatesAt(Instant instant) {
+		return history.at(instant);
 	}
 
-	@Override
-	public void onUpdate(Map<String, Double> rates) {
-		this.rates.clear();
-		rates.forEach((currency, rate) -> this.rates.put(currency.toLowerCase(), rate));
+	/**
+	 * Returns the current rates. Use a single snapshot for several lookups
+	 * that must agree with each other, and for the {@link RateSnapshot#status() status}
+	 * reported with them.
+	 *
+	 * @return The current rates
+	 */
+	public RateSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Returns how current the rates are.
+	 *
+	 * @return When the current rates were fetched, and whether they are stale
+	 */
+	public RateStatus getStatus() {
+		return snapshot.status();
 	}
 
 	/**
@@ -60,22 +137,15 @@ public class ExchangeRateTracker implements RatesUpdateListener {
 	 * @return The exchange rate between the two currencies
 	 */
 	public double getRate(String fromCurrency, String toCurrency) {
-		for (String currency : new String[]{fromCurrency.toLowerCase(), toCurrency.toLowerCase()}) {
-			if (!rates.containsKey(currency)) {
-				throw new IllegalArgumentException(String
-						.format("No currency with name \"%s\" is being tracked", currency));
-			}
-		}
-		return rates.get(toCurrency.toLowerCase())
-				* Math.pow(rates.get(fromCurrency.toLowerCase()), -1);
+		return snapshot.rate(fromCurrency, toCurrency);
 	}
 
 	/**
 	 * Gets all available currencies.
 	 *
-	 * @return A map of all available currencies
+	 * @return A set of all available currencies
 	 */
 	public Set<String> getCurrencies() {
-		return rates.keySet();
+		return snapshot.currencies();
 	}
 }
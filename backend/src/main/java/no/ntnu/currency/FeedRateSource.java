@@ -0,0 +1,38 @@
+package no.ntnu.currency;
+
+import currencyexchanger.RatesManager;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fetches exchange rates from the online feed every 30 minutes. This is the default source.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange-rates.source", havingValue = "feed", matchIfMissing = true)
+public class FeedRateSource implements RateSource {
+	private final String apiKey;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param apiKey The api key to use for creating
+	 *               {@link RatesManager.Builder#Builder(String) RatesManager.Builder}.
+	 *               This is autowired from the {@code exchange-rates.api-key} environment variable
+	 */
+	public FeedRateSource(@Value("${exchange-rates.api-key}") String apiKey) {
+		this.apiKey = apiKey;
+	}
+
+	@Override
+	public void start(Listener listener) {
+		RatesManager ratesManager = new RatesManager
+				.Builder(apiKey)
+				.setBaseCurrency("USD")
+				.build();
+		ratesManager.addListener(rates -> listener.onRates(rates, Instant.now()));
+		ratesManager.start(30, TimeUnit.MINUTES);
+	}
+}
@@ -0,0 +1,83 @@
+package no.ntnu.currency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads exchange rates from a file in the format written by {@link RateSnapshotStore},
+ * for nodes without access to the online feed. The file is read again whenever it changes,
+ * so rates can be shipped to such nodes by replacing it. The file must not be the file
+ * the {@link RateSnapshotStore} saves to, as every save would make it look changed again.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange-rates.source", havingValue = "file")
+public class FileRateSource implements RateSource {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileRateSource.class);
+
+	private final Path file;
+	private final ObjectMapper objectMapper;
+	private volatile Listener listener;
+	private FileTime lastModified;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file         The file to read the rates from
+	 * @param snapshotFile The file the rates received are saved to
+	 * @param objectMapper The mapper used to read the file
+	 * @throws IllegalArgumentException If the two files are the same
+	 */
+	@Autowired
+	public FileRateSource(
+			@Value("${exchange-rates.file}") String file,
+			@Value("${exchange-rates.snapshot-file:exchange-rates.json}") String snapshotFile,
+			ObjectMapper objectMapper
+	) {
+		this.file = Path.of(file).toAbsolutePath().normalize();
+		if (this.file.equals(Path.of(snapshotFile).toAbsolutePath().normalize())) {
+			throw new IllegalArgumentException(
+					"exchange-rates.file must not be the same file as exchange-rates.snapshot-file"
+			);
+		}
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public void start(Listener listener) {
+		this.listener = listener;
+		poll();
+	}
+
+	/**
+	 * Delivers the rates in the file if it changed since it was last read.
+	 */
+	@Scheduled(
+			initialDelayString = "${exchange-rates.file-poll-interval-ms:60000}",
+			fixedDelayString = "${exchange-rates.file-poll-interval-ms:60000}"
+	)
+	public synchronized void poll() {
+		if (listener == null) {
+			return;
+		}
+		try {
+			FileTime modified = Files.getLastModifiedTime(file);
+			if (!modified.equals(lastModified)) {
+				RateSnapshotStore.SavedRates saved = RateSnapshotStore.read(file, objectMapper);
+				lastModified = modified;
+				listener.onRates(saved.rates(), saved.fetchedAt());
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Could not read exchange rates from {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package no.ntnu.currency;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves exchange rates kept in memory, for development and for running without network access.
+ * The rates are delivered once when started, and again whenever new rates are published.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange-rates.source", havingValue = "fixed")
+public class FixedRateSource implements RateSource {
+	private volatile Map<String, Double> rates;
+	private volatile Listener listener;
+
+	/**
+	 * Creates the source from {@code exchange-rates.fixed-rates}.
+	 *
+	 * @param rates The rates, as comma separated pairs of a currency code and its rate
+	 *              to the base currency, like {@code USD=1,NOK=10.5}
+	 * @throws IllegalArgumentException If a pair is not a code and a number
+	 */
+	@Autowired
+	public FixedRateSource(@Value("${exchange-rates.fixed-rates:USD=1}") String rates) {
+		this(parse(rates));
+	}
+
+	/**
+	 * Creates the source.
+	 *
+	 * @param rates The amount of each currency worth one unit of the base currency, by code
+	 */
+	public FixedRateSource(Map<String, Double> rates) {
+		this.rates = Map.copyOf(rates);
+	}
+
+	@Override
+	public void start(Listener listener) {
+		this.listener = listener;
+		listener.onRates(rates, Instant.now());
+	}
+
+	@Override
+	public boolean refreshes() {
+		return false;
+	}
+
+	/**
+	 * Replaces the rates, and delivers them if the source is started.
+	 *
+	 * @param newRates The amount of each currency worth one unit of the base currency, by code
+	 */
+	public void publish(Map<String, Double> newRates) {
+		rates = Map.copyOf(newRates);
+		Listener current = listener;
+		if (current != null) {
+			current.onRates(rates, Instant.now());
+		}
+	}
+
+	private static Map<String, Double> parse(String rates) {
+		Map<String, Double> parsed = new LinkedHashMap<>();
+		for (String pair : rates.split(",")) {
+			String[] parts = pair.split("=");
+			if (parts.length != 2 || parts[0].isBlank()) {
+				throw new IllegalArgumentException("Not a currency and a rate: \"" + pair + "\"");
+			}
+			parsed.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+		}
+		return parsed;
+	}
+}
@@ -0,0 +1,37 @@
+package no.ntnu.currency;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A set of exchange rates from the {@link RateHistory}. Unlike a {@link RateSnapshot},
+ * it keeps only the rate of each currency to the base currency, and works out the rate
+ * between two currencies when asked, as past rates are looked up for one pair at a time.
+ *
+ * @param fetchedAt When the rates were fetched
+ * @param baseRates The amount of each currency worth one unit of the base currency,
+ *                  by lowercase code
+ */
+public record PastRates(Instant fetchedAt, Map<String, Double> baseRates) {
+	/**
+	 * Returns the exchange rate between two currencies.
+	 *
+	 * @param fromCurrency The currency to exchange from, in any case
+	 * @param toCurrency   The currency to exchange to, in any case
+	 * @return The amount of the second currency worth one unit of the first
+	 * @throws IllegalArgumentException If either currency was not tracked at the time
+	 */
+	public double rate(String fromCurrency, String toCurrency) {
+		return baseRate(toCurrency) / baseRate(fromCurrency);
+	}
+
+	private double baseRate(String currency) {
+		Double rate = baseRates.get(currency.toLowerCase(Locale.ROOT));
+		if (rate == null) {
+			throw new IllegalArgumentException(String
+					.format("No currency with name \"%s\" was being tracked", currency));
+		}
+		return rate;
+	}
+}
@@ -0,0 +1,512 @@
+package no.ntnu.currency;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every set of exchange rates received, in an append-only file under
+ * {@code exchange-rates.history-file}, to convert amounts at the rates of a past instant.
+ *
+ * <p>Each set is stored as a record holding only what changed since the record before:
+ * the milliseconds since its fetch time, the codes of currencies not seen before, and
+ * the currencies whose rate changed. Rates are quoted with a few decimals, so a changed
+ * rate is written as its number of decimals and the difference from its previous rate in
+ * units of the last decimal, both as zig-zag variable length integers. An unchanged rate
+ * takes no space, and a rate that moved by a few units of its last decimal takes about three
+ * bytes. A rate without such an exact decimal form is written as the eight bytes of its
+ * double instead. Each record is prefixed by its length, and a record left incomplete by
+ * a crash is cut off at startup.</p>
+ *
+ * <p>The fetch time and file offset of every record are kept in memory, with the full rates
+ * after every {@value #CHECKPOINT_INTERVAL}th record. A lookup binary searches the fetch times,
+ * then reads and applies at most {@value #CHECKPOINT_INTERVAL} records after the nearest
+ * checkpoint, so it takes the same time however long the history grows.</p>
+ *
+ * <p>Thread safe. Lookups run concurrently; appends are exclusive.</p>
+ */
+@Component
+public class RateHistory {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RateHistory.class);
+	private static final int CHECKPOINT_INTERVAL = 64;
+	private static final long ABSENT = Double.doubleToRawLongBits(Double.NaN);
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final byte[] HEADER = {'R', 'H', 'D', '1'};
+	//Powers of ten above this overflow a long.
+	private static final int MAX_POWER_OF_TEN = 18;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final List<String> currencies = new ArrayList<>();
+	private final Map<String, Integer> indexes = new HashMap<>();
+	private final List<long[]> checkpoints = new ArrayList<>();
+	private long[] fetchTimes = new long[INITIAL_CAPACITY];
+	//The offset of every record, and where the next record goes after the last one.
+	private long[] offsets = new long[INITIAL_CAPACITY + 1];
+	private long[] latest = new long[0];
+	private int size;
+
+	/**
+	 * Opens the history, creating its file if it does not exist.
+	 *
+	 * @param file The file to keep the history in
+	 * @throws IOException If the file cannot be opened or read
+	 */
+	@Autowired
+	public RateHistory(
+			@Value("${exchange-rates.history-file:exchange-rate-history.bin}") String file
+	) throws IOException {
+		this.file = Path.of(file).toAbsolutePath().normalize();
+		Files.createDirectories(this.file.getParent());
+		FileChannel opened = open(this.file);
+		if (!hasHeader(opened)) {
+			//Written in another format, so it cannot be read. Keep it aside rather than lose it.
+			opened.close();
+			Path aside = this.file.resolveSibling(this.file.getFileName() + ".unreadable");
+			Files.move(this.file, aside, StandardCopyOption.REPLACE_EXISTING);
+			LOGGER.warn("Moved the unreadable exchange rate history {} to {}", this.file, aside);
+			opened = open(this.file);
+		}
+		this.channel = opened;
+		if (channel.size() == 0) {
+			write(HEADER, 0);
+		}
+		offsets[0] = HEADER.length;
+		load();
+	}
+
+	private static FileChannel open(Path file) throws IOException {
+		return FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private static boolean hasHeader(FileChannel channel) throws IOException {
+		if (channel.size() == 0) {
+			return true;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER.length);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+			//Read until the header is full.
+		}
+		return Arrays.equals(header.array(), HEADER);
+	}
+
+	private void load() throws IOException {
+		long position = HEADER.length;
+		InputStream in = new BufferedInputStream(
+				Channels.newInputStream(channel.position(position))
+		);
+		while (position < channel.size()) {
+			byte[] payload;
+			try {
+				int length = (int) readVarLong(in);
+				payload = in.readNBytes(length);
+				if (payload.length < length) {
+					throw new EOFException();
+				}
+				position += varLongLength(length) + length;
+			} catch (EOFException e) {
+				LOGGER.warn("Cutting off an incomplete exchange rate record at {} in {}",
+						position, file);
+				channel.truncate(position);
+				break;
+			}
+			ByteBuffer record = ByteBuffer.wrap(payload);
+			long fetchTime = (size == 0 ? 0 : fetchTimes[size - 1]) + readVarLong(record);
+			List<String> added = new ArrayList<>();
+			long[] bits = apply(record, latest, added);
+			for (String currency : added) {
+				indexes.put(currency, currencies.size());
+				currencies.add(currency);
+			}
+			add(fetchTime, bits, position);
+		}
+	}
+
+	/**
+	 * Closes the file of the history.
+	 *
+	 * @throws IOException If the file cannot be closed
+	 */
+	@PreDestroy
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Appends a set of rates. Sets fetched no later than the last appended set are ignored,
+	 * so the same set delivered twice is stored once.
+	 *
+	 * @param rates     The amount of each currency worth one unit of the base currency,
+	 *                  by lowercase code
+	 * @param fetchedAt When the rates were fetched
+	 * @throws IOException If the record cannot be written
+	 */
+	public void append(Map<String, Double> rates, Instant fetchedAt) throws IOException {
+		long fetchTime = fetchedAt.toEpochMilli();
+		lock.writeLock().lock();
+		try {
+			if (size > 0 && fetchTime <= fetchTimes[size - 1]) {
+				return;
+			}
+			List<String> added = new ArrayList<>();
+			for (String currency : rates.keySet()) {
+				if (!indexes.containsKey(currency)) {
+					added.add(currency);
+				}
+			}
+			long[] bits = Arrays.copyOf(latest, currencies.size() + added.size());
+			Arrays.fill(bits, latest.length, bits.length, ABSENT);
+			for (int i = 0; i < added.size(); i++) {
+				bits[currencies.size() + i] = Double.doubleToLongBits(rates.get(added.get(i)));
+			}
+			for (Map.Entry<String, Double> rate : rates.entrySet()) {
+				Integer index = indexes.get(rate.getKey());
+				if (index != null) {
+					bits[index] = Double.doubleToLongBits(rate.getValue());
+				}
+			}
+			for (int i = 0; i < currencies.size(); i++) {
+				if (!rates.containsKey(currencies.get(i))) {
+					bits[i] = ABSENT;
+				}
+			}
+
+			long timeDelta = fetchTime - (size == 0 ? 0 : fetchTimes[size - 1]);
+			byte[] record = encode(timeDelta, added, latest, bits);
+			write(record, offsets[size]);
+			for (String currency : added) {
+				indexes.put(currency, currencies.size());
+				currencies.add(currency);
+			}
+			add(fetchTime, bits, offsets[size] + record.length);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the rates in use at an instant, the last set fetched at or before it.
+	 *
+	 * @param instant The instant
+	 * @return The rates, or an empty Optional if no rates were fetched before the instant
+	 * @throws UncheckedIOException If the history cannot be read
+	 */
+	public Optional<PastRates> at(Instant instant) {
+		long time = instant.toEpochMilli();
+		Map<String, Double> rates = new HashMap<>();
+		long fetchTime;
+		lock.readLock().lock();
+		try {
+			int index = Arrays.binarySearch(fetchTimes, 0, size, time);
+			if (index < 0) {
+				//Not an exact match, so take the record before the insertion point.
+				index = -index - 2;
+			}
+			if (index < 0) {
+				return Optional.empty();
+			}
+			fetchTime = fetchTimes[index];
+			int checkpoint = index / CHECKPOINT_INTERVAL;
+			long[] bits = checkpoints.get(checkpoint);
+			int first = checkpoint * CHECKPOINT_INTERVAL + 1;
+			if (first <= index) {
+				ByteBuffer records = read(offsets[first], offsets[index + 1]);
+				while (records.hasRemaining()) {
+					int length = (int) readVarLong(records);
+					ByteBuffer record = records.slice(records.position(), length);
+					records.position(records.position() + length);
+					readVarLong(record);
+					bits = apply(record, bits, null);
+				}
+			}
+			for (int i = 0; i < bits.length; i++) {
+				if (bits[i] != ABSENT) {
+					rates.put(currencies.get(i), Double.longBitsToDouble(bits[i]));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the exchange rate history", e);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return Optional.of(new PastRates(Instant.ofEpochMilli(fetchTime), rates));
+	}
+
+	/**
+	 * Returns the number of sets of rates in the history.
+	 *
+	 * @return The number of sets
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void add(long fetchTime, long[] bits, long end) {
+		if (size == fetchTimes.length) {
+			fetchTimes = Arrays.copyOf(fetchTimes, size * 2);
+			offsets = Arrays.copyOf(offsets, size * 2 + 1);
+		}
+		fetchTimes[size] = fetchTime;
+		offsets[size + 1] = end;
+		if (size % CHECKPOINT_INTERVAL == 0) {
+			checkpoints.add(bits);
+		}
+		latest = bits;
+		size++;
+	}
+
+	private static byte[] encode(long timeDelta, List<String> added, long[] before, long[] bits) {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		writeVarLong(payload, timeDelta);
+		writeVarLong(payload, added.size());
+		for (String currency : added) {
+			byte[] code = currency.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(payload, code.length);
+			payload.writeBytes(code);
+		}
+		ByteArrayOutputStream changes = new ByteArrayOutputStream();
+		int changed = 0;
+		for (int i = 0; i < bits.length; i++) {
+			long previous = i < before.length ? before[i] : ABSENT;
+			if (bits[i] != previous) {
+				writeChange(changes, i, previous, bits[i]);
+				changed++;
+			}
+		}
+		writeVarLong(payload, changed);
+		payload.writeBytes(changes.toByteArray());
+
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		writeVarLong(record, payload.size());
+		record.writeBytes(payload.toByteArray());
+		return record.toByteArray();
+	}
+
+	/**
+	 * Applies the currencies and changes of a record, after its time delta, to the rates
+	 * before it.
+	 *
+	 * @param record The record, positioned after its time delta
+	 * @param before The bits of the rates before the record, not modified
+	 * @param added  Receives the codes of the currencies the record adds, or null
+	 * @return The bits of the rates after the record
+	 */
+	private static long[] apply(ByteBuffer record, long[] before, List<String> added) {
+		int addedCount = (int) readVarLong(record);
+		long[] bits = Arrays.copyOf(before, before.length + addedCount);
+		Arrays.fill(bits, before.length, bits.length, ABSENT);
+		for (int i = 0; i < addedCount; i++) {
+			byte[] code = new byte[(int) readVarLong(record)];
+			record.get(code);
+			if (added != null) {
+				added.add(new String(code, StandardCharsets.UTF_8));
+			}
+		}
+		int changed = (int) readVarLong(record);
+		for (int i = 0; i < changed; i++) {
+			long key = readVarLong(record);
+			int index = (int) (key >>> 1);
+			if ((key & 1) == 0) {
+				int scale = (int) fromZigZag(readVarLong(record));
+				long delta = fromZigZag(readVarLong(record));
+				bits[index] = toBits(decimal(bits[index]), scale, delta);
+			} else {
+				bits[index] = record.getLong();
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * A rate as an exact decimal: the unscaled value times ten to the power of minus the scale.
+	 */
+	private record Decimal(long unscaled, int scale) {
+	}
+
+	/**
+	 * Writes a changed rate: its index, shifted left with the lowest bit telling how the rate
+	 * follows. A clear bit is followed by the scale of the rate, and by its difference from
+	 * the previous rate at the larger scale of the two. A set bit is followed by the bits of
+	 * the rate, for rates without an exact decimal, and absent rates.
+	 */
+	private static void writeChange(
+			ByteArrayOutputStream out,
+			int index,
+			long previous,
+			long next
+	) {
+		Decimal before = decimal(previous);
+		Decimal after = next == ABSENT ? null : decimal(next);
+		if (before != null && after != null) {
+			try {
+				int scale = Math.max(before.scale(), after.scale());
+				long delta = Math.subtractExact(rescale(after, scale), rescale(before, scale));
+				if (toBits(before, after.scale(), delta) == next) {
+					writeVarLong(out, (long) index << 1);
+					writeVarLong(out, toZigZag(after.scale()));
+					writeVarLong(out, toZigZag(delta));
+					return;
+				}
+			} catch (ArithmeticException e) {
+				//Too many digits to write as a difference, so written as bits below.
+			}
+		}
+		writeVarLong(out, (long) index << 1 | 1);
+		for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+			out.write((int) (next >>> shift));
+		}
+	}
+
+	/**
+	 * Returns the shortest exact decimal of a rate, with an absent rate taken as zero.
+	 *
+	 * @return The decimal, or null if the rate has no decimal with an unscaled value in a long
+	 */
+	private static Decimal decimal(long bits) {
+		if (bits == ABSENT) {
+			return new Decimal(0, 0);
+		}
+		double rate = Double.longBitsToDouble(bits);
+		if (!Double.isFinite(rate)) {
+			return null;
+		}
+		BigDecimal decimal = BigDecimal.valueOf(rate).stripTrailingZeros();
+		try {
+			return new Decimal(decimal.unscaledValue().longValueExact(), decimal.scale());
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private static long toBits(Decimal before, int scale, long delta) {
+		int common = Math.max(before.scale(), scale);
+		long unscaled = Math.addExact(rescale(before, common), delta) / powerOfTen(common - scale);
+		return Double.doubleToLongBits(
+				new BigDecimal(BigInteger.valueOf(unscaled), scale).doubleValue()
+		);
+	}
+
+	private static long rescale(Decimal decimal, int scale) {
+		return Math.multiplyExact(decimal.unscaled(), powerOfTen(scale - decimal.scale()));
+	}
+
+	private static long powerOfTen(int exponent) {
+		if (exponent > MAX_POWER_OF_TEN) {
+			throw new ArithmeticException("10^" + exponent + " does not fit in a long");
+		}
+		long power = 1;
+		for (int i = 0; i < exponent; i++) {
+			power *= 10;
+		}
+		return power;
+	}
+
+	private static long toZigZag(long value) {
+		return value << 1 ^ value >> (Long.SIZE - 1);
+	}
+
+	private static long fromZigZag(long value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	private void write(byte[] record, long position) throws IOException {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(record);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, position + buffer.position());
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			//Drop what was written of the record, so the next one is appended in its place.
+			channel.truncate(position);
+			throw e;
+		}
+	}
+
+	private ByteBuffer read(long start, long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				throw new EOFException("The exchange rate history ends before " + end);
+			}
+		}
+		return buffer.flip();
+	}
+
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	private static long readVarLong(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if (b < 0x80) {
+				return value;
+			}
+		}
+	}
+
+	private static int varLongLength(long value) {
+		int length = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+}
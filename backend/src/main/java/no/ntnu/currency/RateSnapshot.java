@@ -0,0 +1,224 @@
+package no.ntnu.currency;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable set of exchange rates, with the rate between every pair of currencies
+ * computed up front.
+ *
+ * <p>Currencies are numbered in the order they were given, and the cross rates are kept
+ * in a matrix indexed by those numbers, so converting an amount is two lookups and
+ * a multiplication, without allocating. Currency codes are matched regardless of case.</p>
+ *
+ * <p>A snapshot remembers when its rates were fetched, and when they become stale, so
+ * rates kept across restarts can be told apart from fresh ones, and a response can take
+ * both its rates and their {@link #status() status} from the one snapshot it read.</p>
+ */
+public final class RateSnapshot {
+	/**
+	 * A snapshot without any currencies, used until the first rates arrive.
+	 */
+	public static final RateSnapshot EMPTY = of(Map.of(), null);
+
+	private final Map<String, Double> baseRates;
+	private final Instant fetchedAt;
+	private final Instant staleAfter;
+	private final Set<String> currencies;
+	private final Map<String, Integer> ordinals;
+	private final Map<String, Integer> caseInsensitiveOrdinals;
+	private final double[][] crossRates;
+
+	private RateSnapshot(
+			Map<String, Double> baseRates,
+			Instant fetchedAt,
+			Instant staleAfter,
+			Set<String> currencies,
+			Map<String, Integer> ordinals,
+			Map<String, Integer> caseInsensitiveOrdinals,
+			double[][] crossRates
+	) {
+		this.baseRates = baseRates;
+		this.fetchedAt = fetchedAt;
+		this.staleAfter = staleAfter;
+		this.currencies = currencies;
+		this.ordinals = ordinals;
+		this.caseInsensitiveOrdinals = caseInsensitiveOrdinals;
+		this.crossRates = crossRates;
+	}
+
+	/**
+	 * Creates a snapshot from the rates of every currency against one base currency.
+	 * The rates never become stale, unless {@link #withMaxAge given a maximum age}.
+	 *
+	 * @param rates     The amount of each currency worth one unit of the base currency, by code
+	 * @param fetchedAt When the rates were fetched, or null if they never were
+	 * @return The snapshot
+	 */
+	public static RateSnapshot of(Map<String, Double> rates, Instant fetchedAt) {
+		Map<String, Double> lowercaseRates = new LinkedHashMap<>();
+		Set<String> currencies = new LinkedHashSet<>();
+		Map<String, Integer> ordinals = new HashMap<>();
+		Map<String, Integer> caseInsensitiveOrdinals = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		double[] baseRates = new double[rates.size()];
+		for (Map.Entry<String, Double> rate : rates.entrySet()) {
+			String currency = rate.getKey().toLowerCase(Locale.ROOT);
+			if (currencies.add(currency)) {
+				int ordinal = currencies.size() - 1;
+				baseRates[ordinal] = rate.getValue();
+				lowercaseRates.put(currency, rate.getValue());
+				//Codes are usually given in lower or upper case, which are found without folding.
+				ordinals.put(currency, ordinal);
+				ordinals.put(currency.toUpperCase(Locale.ROOT), ordinal);
+				caseInsensitiveOrdinals.put(currency, ordinal);
+			}
+		}
+
+		int count = currencies.size();
+		double[][] crossRates = new double[count][count];
+		for (int from = 0; from < count; from++) {
+			double inverse = 1 / baseRates[from];
+			for (int to = 0; to < count; to++) {
+				crossRates[from][to] = baseRates[to] * inverse;
+			}
+		}
+		return new RateSnapshot(
+				Collections.unmodifiableMap(lowercaseRates),
+				fetchedAt,
+				null,
+				Collections.unmodifiableSet(currencies),
+				ordinals,
+				caseInsensitiveOrdinals,
+				crossRates
+		);
+	}
+
+	/**
+	 * Returns a snapshot of the same rates, reported as stale once they are older than
+	 * a maximum age.
+	 *
+	 * @param maxAge How old the rates may get before they are stale
+	 * @return The snapshot, sharing the rates of this one
+	 */
+	public RateSnapshot withMaxAge(Duration maxAge) {
+		return new RateSnapshot(
+				baseRates,
+				fetchedAt,
+				fetchedAt == null ? null : fetchedAt.plus(maxAge),
+				currencies,
+				ordinals,
+				caseInsensitiveOrdinals,
+				crossRates
+		);
+	}
+
+	/**
+	 * Returns how current the rates of this snapshot are.
+	 *
+	 * @return When the rates were fetched, and whether they are stale now
+	 */
+	public RateStatus status() {
+		boolean stale = fetchedAt == null
+				|| staleAfter != null && staleAfter.isBefore(Instant.now());
+		return new RateStatus(fetchedAt, stale);
+	}
+
+	/**
+	 * Returns the number of a currency in this snapshot.
+	 *
+	 * @param currency The currency code, in any case
+	 * @return The number of the currency
+	 * @throws IllegalArgumentException If the currency is not in this snapshot
+	 */
+	public int ordinal(String currency) {
+		Integer ordinal = ordinals.get(currency);
+		if (ordinal == null) {
+			ordinal = caseInsensitiveOrdinals.get(currency);
+		}
+		if (ordinal == null) {
+			throw new IllegalArgumentException(String
+					.format("No currency with name \"%s\" is being tracked", currency));
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Checks whether a currency is in this snapshot.
+	 *
+	 * @param currency The currency code, in any case
+	 * @return True if the currency is in this snapshot
+	 */
+	public boolean tracks(String currency) {
+		return currency != null
+				&& (ordinals.containsKey(currency)
+						|| caseInsensitiveOrdinals.containsKey(currency));
+	}
+
+	/**
+	 * Returns the exchange rate between two currencies, by their numbers.
+	 *
+	 * @param fromOrdinal The number of the currency to exchange from
+	 * @param toOrdinal   The number of the currency to exchange to
+	 * @return The amount of the second currency worth one unit of the first
+	 */
+	public double rate(int fromOrdinal, int toOrdinal) {
+		return crossRates[fromOrdinal][toOrdinal];
+	}
+
+	/**
+	 * Returns the exchange rate between two currencies.
+	 *
+	 * @param fromCurrency The currency to exchange from
+	 * @param toCurrency   The currency to exchange to
+	 * @return The amount of the second currency worth one unit of the first
+	 * @throws IllegalArgumentException If either currency is not in this snapshot
+	 */
+	public double rate(String fromCurrency, String toCurrency) {
+		return crossRates[ordinal(fromCurrency)][ordinal(toCurrency)];
+	}
+
+	/**
+	 * Returns the codes of the currencies in this snapshot.
+	 *
+	 * @return The lowercase currency codes, in an unmodifiable set
+	 */
+	public Set<String> currencies() {
+		return currencies;
+	}
+
+	/**
+	 * Returns the rates the snapshot was made from.
+	 *
+	 * @return The amount of each currency worth one unit of the base currency,
+	 *     by lowercase code, in an unmodifiable map
+	 */
+	public Map<String, Double> baseRates() {
+		return baseRates;
+	}
+
+	/**
+	 * Returns when the rates were fetched.
+	 *
+	 * @return The instant, or null for the {@link #EMPTY empty} snapshot
+	 */
+	public Instant fetchedAt() {
+		return fetchedAt;
+	}
+
+	/**
+	 * Checks whether the snapshot has any rates.
+	 *
+	 * @return True if no currency is in the snapshot
+	 */
+	public boolean isEmpty() {
+		return currencies.isEmpty();
+	}
+}
@@ -0,0 +1,111 @@
+package no.ntnu.currency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the last known good exchange rates on the local disk, under
+ * {@code exchange-rates.snapshot-file}, so a node restarted while the rate source is
+ * unreachable still converts prices at the last rates it saw.
+ *
+ * <p>The file is written to a temporary file first and moved into place once complete,
+ * so it is never partially written.</p>
+ */
+@Component
+public class RateSnapshotStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RateSnapshotStore.class);
+
+	private final Path file;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * The saved form of a snapshot, also read by {@link FileRateSource}.
+	 *
+	 * @param fetchedAt When the rates were fetched
+	 * @param rates     The amount of each currency worth one unit of the base currency, by code
+	 */
+	record SavedRates(Instant fetchedAt, Map<String, Double> rates) {
+	}
+
+	/**
+	 * Creates the store.
+	 *
+	 * @param file         The file to keep the rates in
+	 * @param objectMapper The mapper used to read and write the file
+	 */
+	@Autowired
+	public RateSnapshotStore(
+			@Value("${exchange-rates.snapshot-file:exchange-rates.json}") String file,
+			ObjectMapper objectMapper
+	) {
+		this.file = Path.of(file).toAbsolutePath().normalize();
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Loads the last saved snapshot.
+	 *
+	 * @return The snapshot, or an empty Optional if none was saved or it cannot be read
+	 */
+	public Optional<RateSnapshot> load() {
+		try {
+			SavedRates saved = read(file, objectMapper);
+			return Optional.of(RateSnapshot.of(saved.rates(), saved.fetchedAt()));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Could not read the saved exchange rates from {}", file, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Saves a snapshot, replacing the one saved before.
+	 *
+	 * @param snapshot The snapshot to save
+	 * @throws IOException If the file cannot be written
+	 */
+	public void save(RateSnapshot snapshot) throws IOException {
+		Path directory = file.getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, "exchange-rates", ".tmp");
+		try {
+			objectMapper.writeValue(
+					temporary.toFile(),
+					new SavedRates(snapshot.fetchedAt(), snapshot.baseRates())
+			);
+			Files.move(temporary, file,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Reads saved rates from a file.
+	 *
+	 * @param file         The file to read
+	 * @param objectMapper The mapper used to read the file
+	 * @return The rates
+	 * @throws IOException If the file cannot be read, or has no rates or fetch time
+	 */
+	static SavedRates read(Path file, ObjectMapper objectMapper) throws IOException {
+		SavedRates saved = objectMapper.readValue(file.toFile(), SavedRates.class);
+		if (saved == null || saved.fetchedAt() == null || saved.rates() == null) {
+			throw new IOException("Missing rates or fetch time in " + file);
+		}
+		return saved;
+	}
+}
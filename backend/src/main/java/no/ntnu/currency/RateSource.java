@@ -0,0 +1,41 @@
+package no.ntnu.currency;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Where exchange rates come from. The source in use is chosen by
+ * {@code exchange-rates.source}.
+ */
+public interface RateSource {
+	/**
+	 * Receives the rates of a source.
+	 */
+	@FunctionalInterface
+	interface Listener {
+		/**
+		 * Called every time the source has new rates.
+		 *
+		 * @param rates     The amount of each currency worth one unit of the base currency, by code
+		 * @param fetchedAt When the rates were fetched
+		 */
+		void onRates(Map<String, Double> rates, Instant fetchedAt);
+	}
+
+	/**
+	 * Starts delivering rates to the listener. May be called once.
+	 *
+	 * @param listener The listener to deliver rates to
+	 */
+	void start(Listener listener);
+
+	/**
+	 * Tells whether the source fetches new rates over time. The rates of a source that
+	 * does not are never reported as stale, however long ago they were delivered.
+	 *
+	 * @return True if the source fetches new rates over time
+	 */
+	default boolean refreshes() {
+		return true;
+	}
+}
@@ -0,0 +1,13 @@
+package no.ntnu.currency;
+
+import java.time.Instant;
+
+/**
+ * How current the exchange rates in use are.
+ *
+ * @param asOf  When the rates were fetched, or null if no rates are known yet
+ * @param stale True if there are no rates, or they are older than allowed because
+ *              the rate source could not be reached
+ */
+public record RateStatus(Instant asOf, boolean stale) {
+}
@@ -2,11 +2,13 @@ package no.ntnu.database;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main entrypoint class for the draft course application.
  */
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "no.ntnu")
+@EnableScheduling
 public class CourseApplication {
 
 	/**
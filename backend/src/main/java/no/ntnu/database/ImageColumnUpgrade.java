@@ -0,0 +1,74 @@
+package no.ntnu.database;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * A class which keeps the image content column of databases created while every image
+ * had its content in it usable now that new images keep theirs in the blob store.
+ *
+ * <p>The column is no longer mapped by {@link no.ntnu.database.model.Image Image}, so a
+ * new schema lacks it, and Hibernate's schema update does not relax existing constraints.
+ * This runs once the schema is updated and before the application takes requests.
+ * Relaxing the constraint is only done on MySQL, the database the column was made on.</p>
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ImageColumnUpgrade {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageColumnUpgrade.class);
+	private static final String MYSQL = "MySQL";
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Creates the upgrade.
+	 *
+	 * @param dataSource   The database to upgrade
+	 * @param jdbcTemplate Runs the upgrade
+	 */
+	@Autowired
+	public ImageColumnUpgrade(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Adds the image content column if it is missing, and makes it nullable if it is not.
+	 *
+	 * @throws SQLException If the column cannot be looked up
+	 */
+	@PostConstruct
+	public void upgrade() throws SQLException {
+		boolean exists;
+		boolean required;
+		boolean mysql;
+		try (Connection connection = dataSource.getConnection();
+				ResultSet columns = connection.getMetaData()
+						.getColumns(connection.getCatalog(), null, "image", "image_bytes")) {
+			exists = columns.next();
+			required = exists && columns.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls;
+			mysql = MYSQL.equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+		}
+		if (!exists) {
+			jdbcTemplate.execute("ALTER TABLE image ADD image_bytes "
+					+ (mysql ? "LONGBLOB" : "BLOB") + " NULL");
+			LOGGER.info("Added image.image_bytes, read for images stored before the blob store");
+		} else if (required && mysql) {
+			jdbcTemplate.execute("ALTER TABLE image MODIFY image_bytes LONGBLOB NULL");
+			LOGGER.info("Made image.image_bytes nullable, as new images keep their content on disk");
+		} else if (required) {
+			LOGGER.warn("image.image_bytes is required, so images cannot be stored without it");
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package no.ntnu.database.cache;
+
+/**
+ * A snapshot of the statistics of a {@link TinyLfuCache}.
+ *
+ * @param hitCount           The number of lookups answered from the cache
+ * @param missCount          The number of lookups that had to load the value
+ * @param hitRate            The share of lookups answered from the cache, between 0 and 1
+ * @param loadCount          The number of values loaded
+ * @param totalLoadTimeNanos The total time spent loading values, in nanoseconds
+ * @param averageLoadMillis  The average time spent loading a value, in milliseconds
+ * @param evictionCount      The number of entries evicted to make room for others
+ * @param rejectionCount     The number of loaded values not admitted, because they were
+ *                           less popular than the entries they would have evicted
+ * @param size               The number of entries in the cache
+ * @param weightedSize       The total weight of the entries in the cache
+ * @param maximumSize        The maximum number of entries in the cache
+ * @param maximumWeight      The maximum total weight of the entries in the cache
+ */
+public record CacheStats(
+		long hitCount,
+		long missCount,
+		double hitRate,
+		long loadCount,
+		long totalLoadTimeNanos,
+		double averageLoadMillis,
+		long evictionCount,
+		long rejectionCount,
+		int size,
+		long weightedSize,
+		int maximumSize,
+		long maximumWeight
+) {
+}
@@ -0,0 +1,153 @@
+package no.ntnu.database.cache;
+
+import java.util.List;
+import java.util.Optional;
+import no.ntnu.database.event.CategoryDeletedEvent;
+import no.ntnu.database.event.CategorySavedEvent;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseListingChangedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.ImageDeletedEvent;
+import no.ntnu.database.event.ImageSavedEvent;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.dto.CourseView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * A {@link TinyLfuCache} of courses by ID, in front of the {@link CourseRepository}.
+ *
+ * <p>Courses are cached as {@link CourseView}s, with their price listings and categories,
+ * rather than as entities. Views cannot be modified, so one can be shared between requests,
+ * and are never attached to a session; writes load the course entity themselves.</p>
+ *
+ * <p>Entries are invalidated from the events published when a course, one of its
+ * listings, its categories or its image change. The size of the cache is configured with
+ * {@code course.cache.maximum-size}, in courses, and {@code course.cache.maximum-weight-mb},
+ * in approximate megabytes.</p>
+ */
+@Component
+public class CourseCache {
+	private static final long BYTES_PER_MB = 1024 * 1024;
+	private static final long COURSE_OVERHEAD = 512;
+	private static final long LISTING_OVERHEAD = 96;
+	private static final long CATEGORY_OVERHEAD = 96;
+	private static final long IMAGE_OVERHEAD = 256;
+
+	private final CourseRepository repository;
+	private final TinyLfuCache<Integer, CourseView> cache;
+
+	/**
+	 * Creates the cache.
+	 *
+	 * @param courseRepository The repository to load courses from
+	 * @param maximumSize      The maximum number of cached courses
+	 * @param maximumWeightMb  The maximum approximate size of the cached courses, in megabytes
+	 */
+	@Autowired
+	public CourseCache(
+			CourseRepository courseRepository,
+			@Value("${course.cache.maximum-size:1000}") int maximumSize,
+			@Value("${course.cache.maximum-weight-mb:64}") long maximumWeightMb
+	) {
+		this.repository = courseRepository;
+		this.cache = new TinyLfuCache<>(
+				maximumSize, maximumWeightMb * BYTES_PER_MB, CourseCache::weigh
+		);
+	}
+
+	/**
+	 * Returns a course, loading it from the database if it is not cached.
+	 *
+	 * @param id The ID of the course
+	 * @return The course, or an empty Optional if not found
+	 */
+	public Optional<CourseView> findById(int id) {
+		return Optional.ofNullable(cache.get(id, key -> {
+			List<CourseView> views = repository.findViewsById(List.of(key));
+			return views.isEmpty() ? null : views.get(0);
+		}));
+	}
+
+	/**
+	 * Returns the statistics of the cache.
+	 *
+	 * @return The statistics of the cache
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	@EventListener
+	public void onCourseSaved(CourseSavedEvent event) {
+		cache.invalidate(event.course().getCourseId());
+	}
+
+	@EventListener
+	public void onCourseDeleted(CourseDeletedEvent event) {
+		cache.invalidate(event.courseId());
+	}
+
+	@EventListener
+	public void onCourseListingChanged(CourseListingChangedEvent event) {
+		cache.invalidate(event.courseId());
+	}
+
+	@EventListener
+	public void onProviderDeleted(ProviderDeletedEvent event) {
+		cache.invalidateIf(course -> course.courseProviderLinks().stream()
+				.anyMatch(link -> link.id().courseProviderId() == event.providerId()));
+	}
+
+	@EventListener
+	public void onCategorySaved(CategorySavedEvent event) {
+		invalidateCategory(event.category().getCategoryId());
+	}
+
+	@EventListener
+	public void onCategoryDeleted(CategoryDeletedEvent event) {
+		invalidateCategory(event.categoryId());
+	}
+
+	@EventListener
+	public void onImageSaved(ImageSavedEvent event) {
+		invalidateImage(event.image().getImageId());
+	}
+
+	@EventListener
+	public void onImageDeleted(ImageDeletedEvent event) {
+		invalidateImage(event.imageId());
+	}
+
+	private void invalidateCategory(int categoryId) {
+		cache.invalidateIf(course -> course.categories().stream()
+				.anyMatch(category -> category.categoryId() == categoryId));
+	}
+
+	private void invalidateImage(int imageId) {
+		cache.invalidateIf(course -> course.image() != null
+				&& course.image().imageId() == imageId);
+	}
+
+	private static long weigh(CourseView course) {
+		long weight = COURSE_OVERHEAD
+				+ length(course.courseName())
+				+ length(course.difficultyLevel())
+				+ length(course.relatedCertification())
+				+ length(course.courseDescription())
+				+ LISTING_OVERHEAD * course.courseProviderLinks().size()
+				+ CATEGORY_OVERHEAD * course.categories().size();
+		CourseView.ImageView image = course.image();
+		if (image != null) {
+			weight += IMAGE_OVERHEAD + length(image.altText());
+		}
+		return weight;
+	}
+
+	private static long length(String text) {
+		return text == null ? 0 : 2L * text.length();
+	}
+}
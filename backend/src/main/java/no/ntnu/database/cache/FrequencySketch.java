@@ -0,0 +1,85 @@
+package no.ntnu.database.cache;
+
+/**
+ * A count-min sketch estimating how often keys have been seen recently,
+ * using 4-bit counters. Once the sketch has counted ten times as many keys as it was sized
+ * for, every counter is halved, so the estimates favour recent popularity.
+ *
+ * <p>Not thread safe.</p>
+ */
+final class FrequencySketch {
+	private static final int DEPTH = 4;
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = {0x97CB3127, 0x4C5AD8F1, 0x3B9A4D27, 0x6B2E8C53};
+
+	private final byte[][] table;
+	private final int mask;
+	private final int sampleSize;
+	private int additions;
+
+	/**
+	 * Creates a sketch.
+	 *
+	 * @param expectedEntries The number of entries the sketch should tell apart
+	 */
+	FrequencySketch(int expectedEntries) {
+		int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+		this.table = new byte[DEPTH][width];
+		this.mask = width - 1;
+		this.sampleSize = 10 * Math.max(16, expectedEntries);
+	}
+
+	/**
+	 * Counts an occurrence of a key.
+	 *
+	 * @param key The key
+	 */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		boolean added = false;
+		for (int row = 0; row < DEPTH; row++) {
+			int index = indexOf(hash, row);
+			if (table[row][index] < MAX_COUNT) {
+				table[row][index]++;
+				added = true;
+			}
+		}
+		if (added && ++additions >= sampleSize) {
+			age();
+		}
+	}
+
+	/**
+	 * Estimates how often a key has been seen recently.
+	 *
+	 * @param key The key
+	 * @return The estimated count, between 0 and 15
+	 */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < DEPTH; row++) {
+			frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+		}
+		return frequency;
+	}
+
+	private void age() {
+		for (byte[] row : table) {
+			for (int i = 0; i < row.length; i++) {
+				row[i] >>= 1;
+			}
+		}
+		additions /= 2;
+	}
+
+	private int indexOf(int hash, int row) {
+		int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private static int spread(int hash) {
+		int h = hash * 0x85EBCA6B;
+		return h ^ (h >>> 13);
+	}
+}
@@ -0,0 +1,240 @@
+package no.ntnu.database.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import no.ntnu.database.event.ImageDeletedEvent;
+import no.ntnu.database.event.ImageSavedEvent;
+import no.ntnu.database.event.ImageVariantsDeletedEvent;
+import no.ntnu.database.event.ImageVariantsSavedEvent;
+import no.ntnu.database.model.ImagePayload;
+import no.ntnu.database.model.ImageVariant;
+import no.ntnu.database.repository.ImagePayloadRepository;
+import no.ntnu.database.repository.ImageRepository;
+import no.ntnu.database.repository.ImageVariantRepository;
+import no.ntnu.database.storage.BlobStore;
+import no.ntnu.dto.ImageMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link TinyLfuCache Caches} of the most requested images, so serving them neither queries
+ * the database nor reads their files.
+ *
+ * <p>The metadata of images is cached by ID, and the renditions of their content by content
+ * hash. Their content is cached in direct buffers outside the Java heap, by content hash for
+ * content in the {@link BlobStore}, and by ID for content still kept in the image table.
+ * Content in the blob store never changes under its hash, so only the metadata and the
+ * content kept in the table are invalidated, from the events published when an image is
+ * saved or deleted, and the renditions from those published when renditions are saved or
+ * deleted. A buffer evicted while it is being written stays valid until the response is
+ * done, and is freed by the garbage collector.</p>
+ *
+ * <p>The cache of content is bounded with {@code image.cache.maximum-weight-mb}, in megabytes,
+ * and only holds images up to {@code image.cache.maximum-entry-kb} kilobytes.</p>
+ */
+@Component
+public class ImageCache {
+	private static final long BYTES_PER_KB = 1024;
+	private static final long BYTES_PER_MB = 1024 * 1024;
+	private static final long METADATA_WEIGHT = 256;
+	private static final long VARIANTS_PER_CONTENT = 5;
+	private static final String STORED_IN_DATABASE = "image-";
+
+	private final ImageRepository imageRepository;
+	private final ImagePayloadRepository payloadRepository;
+	private final ImageVariantRepository variantRepository;
+	private final BlobStore blobStore;
+	private final long maximumEntryBytes;
+	private final TinyLfuCache<Integer, ImageMetadata> metadata;
+	private final TinyLfuCache<String, List<ImageVariant>> variants;
+	private final TinyLfuCache<String, ByteBuffer> content;
+
+	/**
+	 * Creates the caches.
+	 *
+	 * @param imageRepository   The repository to load the metadata from
+	 * @param payloadRepository The repository to load content kept in the table from
+	 * @param variantRepository The repository to load the renditions from
+	 * @param blobStore         The store to load content from
+	 * @param maximumSize       The maximum number of cached images, in each cache
+	 * @param maximumWeightMb   The maximum total size of the cached content, in megabytes
+	 * @param maximumEntryKb    The largest content to cache, in kilobytes
+	 */
+	@Autowired
+	public ImageCache(
+			ImageRepository imageRepository,
+			ImagePayloadRepository payloadRepository,
+			ImageVariantRepository variantRepository,
+			BlobStore blobStore,
+			@Value("${image.cache.maximum-size:1000}") int maximumSize,
+			@Value("${image.cache.maximum-weight-mb:64}") long maximumWeightMb,
+			@Value("${image.cache.maximum-entry-kb:1024}") long maximumEntryKb
+	) {
+		this.imageRepository = imageRepository;
+		this.payloadRepository = payloadRepository;
+		this.variantRepository = variantRepository;
+		this.blobStore = blobStore;
+		this.maximumEntryBytes = maximumEntryKb * BYTES_PER_KB;
+		this.metadata = new TinyLfuCache<>(
+				maximumSize, maximumSize * METADATA_WEIGHT, image -> METADATA_WEIGHT
+		);
+		this.variants = new TinyLfuCache<>(
+				maximumSize, maximumSize * METADATA_WEIGHT * VARIANTS_PER_CONTENT,
+				found -> METADATA_WEIGHT * Math.max(1, found.size())
+		);
+		this.content = new TinyLfuCache<>(
+				maximumSize, maximumWeightMb * BYTES_PER_MB, ByteBuffer::capacity
+		);
+	}
+
+	/**
+	 * Returns the metadata of an image, loading it from the database if it is not cached.
+	 *
+	 * @param id The ID of the image
+	 * @return The metadata, or an empty Optional if not found
+	 */
+	public Optional<ImageMetadata> findMetadata(int id) {
+		return Optional.ofNullable(
+				metadata.get(id, key -> imageRepository.findMetadataById(key).orElse(null))
+		);
+	}
+
+	/**
+	 * Returns the renditions of content, loading them from the database if they are not cached.
+	 *
+	 * @param sourceHash The hash of the content
+	 * @return The renditions, narrowest first, or an empty list if they are not made yet
+	 */
+	public List<ImageVariant> findVariants(String sourceHash) {
+		return variants.get(sourceHash,
+				key -> List.copyOf(variantRepository.findBySourceHashOrderByWidth(key)));
+	}
+
+	/**
+	 * Returns content in the blob store, reading it into the cache if it is not cached.
+	 *
+	 * @param hash   The hash of the content
+	 * @param length The length of the content, to skip content too large to cache unread
+	 * @return A read-only buffer of the content, positioned at its start,
+	 *     or an empty Optional if the content is too large to cache or is missing
+	 */
+	public Optional<ByteBuffer> findContent(String hash, long length) {
+		if (length > maximumEntryBytes) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(content.get(hash, this::readFile)).map(ByteBuffer::duplicate);
+	}
+
+	/**
+	 * Returns the content of an image still kept in the table, loading it if it is not cached.
+	 * Content too large to cache is returned in a buffer on the heap.
+	 *
+	 * @param id The ID of the image
+	 * @return A read-only buffer of the content, positioned at its start,
+	 *     or an empty Optional if the image has no content in the table
+	 */
+	public Optional<ByteBuffer> findContentStoredInDatabase(int id) {
+		AtomicReference<byte[]> loaded = new AtomicReference<>();
+		ByteBuffer buffer = content.get(STORED_IN_DATABASE + id, key -> {
+			byte[] bytes = payloadRepository.findById(id)
+					.map(ImagePayload::getImageBytes)
+					.orElse(null);
+			loaded.set(bytes);
+			return bytes == null || bytes.length > maximumEntryBytes ? null : toDirect(bytes);
+		});
+		if (buffer != null) {
+			return Optional.of(buffer.duplicate());
+		}
+		return Optional.ofNullable(loaded.get())
+				.map(bytes -> ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+	}
+
+	/**
+	 * Returns the statistics of the metadata cache.
+	 *
+	 * @return The statistics of the cache
+	 */
+	public CacheStats metadataStats() {
+		return metadata.stats();
+	}
+
+	/**
+	 * Returns the statistics of the renditions cache.
+	 *
+	 * @return The statistics of the cache
+	 */
+	public CacheStats variantStats() {
+		return variants.stats();
+	}
+
+	/**
+	 * Returns the statistics of the content cache, whose weighted size is the number
+	 * of bytes held outside the heap.
+	 *
+	 * @return The statistics of the cache
+	 */
+	public CacheStats contentStats() {
+		return content.stats();
+	}
+
+	@EventListener
+	public void onImageSaved(ImageSavedEvent event) {
+		invalidate(event.image().getImageId());
+	}
+
+	@EventListener
+	public void onImageDeleted(ImageDeletedEvent event) {
+		invalidate(event.imageId());
+	}
+
+	@EventListener
+	public void onImageVariantsSaved(ImageVariantsSavedEvent event) {
+		variants.invalidate(event.sourceHash());
+	}
+
+	@EventListener
+	public void onImageVariantsDeleted(ImageVariantsDeletedEvent event) {
+		//Only renditions of content no image points at are deleted, and they are not tracked.
+		variants.invalidateAll();
+	}
+
+	private void invalidate(int imageId) {
+		metadata.invalidate(imageId);
+		content.invalidate(STORED_IN_DATABASE + imageId);
+	}
+
+	private ByteBuffer readFile(String hash) {
+		try (FileChannel channel = FileChannel.open(
+				blobStore.path(hash), StandardOpenOption.READ
+		)) {
+			long size = channel.size();
+			if (size > maximumEntryBytes) {
+				return null;
+			}
+			ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				//Read until the buffer is full.
+			}
+			return buffer.flip().asReadOnlyBuffer();
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static ByteBuffer toDirect(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		return buffer.flip().asReadOnlyBuffer();
+	}
+}
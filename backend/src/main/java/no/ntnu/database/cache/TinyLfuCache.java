@@ -0,0 +1,222 @@
+package no.ntnu.database.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A read-through cache bounded both by number of entries and by total weight.
+ *
+ * <p>Entries are kept in least recently used order. When a loaded value would need
+ * other entries evicted to fit, it is only admitted if it has been requested more often
+ * than each of them, as estimated by a {@link FrequencySketch} of recent lookups.
+ * This keeps a burst of one-off lookups from flushing out the popular entries.</p>
+ *
+ * <p>Values are loaded outside the cache's lock. A value whose load overlapped with an
+ * invalidation is returned to the caller, but not cached, as it may be stale.</p>
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class TinyLfuCache<K, V> {
+	private final int maximumSize;
+	private final long maximumWeight;
+	private final ToLongFunction<? super V> weigher;
+	private final FrequencySketch sketch;
+	private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Lock lock = new ReentrantLock();
+
+	private long weightedSize;
+	private long invalidations;
+	private long hitCount;
+	private long missCount;
+	private long loadCount;
+	private long totalLoadTimeNanos;
+	private long evictionCount;
+	private long rejectionCount;
+
+	private record Entry<V>(V value, long weight) {
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param maximumSize   The maximum number of entries in the cache
+	 * @param maximumWeight The maximum total weight of the entries in the cache
+	 * @param weigher       Returns the weight of a value, such as its approximate size in bytes
+	 */
+	public TinyLfuCache(int maximumSize, long maximumWeight, ToLongFunction<? super V> weigher) {
+		if (maximumSize <= 0 || maximumWeight <= 0) {
+			throw new IllegalArgumentException("The cache bounds must be positive");
+		}
+		this.maximumSize = maximumSize;
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.sketch = new FrequencySketch(maximumSize);
+	}
+
+	/**
+	 * Returns the value of a key, loading it if it is not cached.
+	 * Null values are returned, but not cached.
+	 *
+	 * @param key    The key
+	 * @param loader Loads the value of a key that is not cached
+	 * @return The value of the key, or null if the loader returned null
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		long invalidationsBeforeLoad;
+		lock.lock();
+		try {
+			sketch.increment(key);
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				hitCount++;
+				return entry.value();
+			}
+			missCount++;
+			invalidationsBeforeLoad = invalidations;
+		} finally {
+			lock.unlock();
+		}
+
+		long start = System.nanoTime();
+		V value = loader.apply(key);
+		long loadTime = System.nanoTime() - start;
+
+		lock.lock();
+		try {
+			loadCount++;
+			totalLoadTimeNanos += loadTime;
+			if (value != null && invalidations == invalidationsBeforeLoad) {
+				admit(key, value);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return value;
+	}
+
+	/**
+	 * Removes a key from the cache.
+	 *
+	 * @param key The key
+	 */
+	public void invalidate(K key) {
+		lock.lock();
+		try {
+			invalidations++;
+			Entry<V> entry = entries.remove(key);
+			if (entry != null) {
+				weightedSize -= entry.weight();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes every value matching a condition from the cache.
+	 *
+	 * @param condition The condition
+	 */
+	public void invalidateIf(Predicate<? super V> condition) {
+		lock.lock();
+		try {
+			invalidations++;
+			Iterator<Entry<V>> iterator = entries.values().iterator();
+			while (iterator.hasNext()) {
+				Entry<V> entry = iterator.next();
+				if (condition.test(entry.value())) {
+					weightedSize -= entry.weight();
+					iterator.remove();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes every key from the cache.
+	 */
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			invalidations++;
+			entries.clear();
+			weightedSize = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the statistics of the cache since it was created.
+	 *
+	 * @return The statistics of the cache
+	 */
+	public CacheStats stats() {
+		lock.lock();
+		try {
+			long lookups = hitCount + missCount;
+			return new CacheStats(
+					hitCount,
+					missCount,
+					lookups == 0 ? 0 : (double) hitCount / lookups,
+					loadCount,
+					totalLoadTimeNanos,
+					loadCount == 0 ? 0 : totalLoadTimeNanos / 1e6 / loadCount,
+					evictionCount,
+					rejectionCount,
+					entries.size(),
+					weightedSize,
+					maximumSize,
+					maximumWeight
+			);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void admit(K key, V value) {
+		Entry<V> previous = entries.remove(key);
+		if (previous != null) {
+			weightedSize -= previous.weight();
+		}
+		long weight = Math.max(1, weigher.applyAsLong(value));
+		if (weight > maximumWeight) {
+			rejectionCount++;
+			return;
+		}
+
+		//Pick victims from the least recently used end, giving up on a more popular one.
+		int candidateFrequency = sketch.frequency(key);
+		List<K> victims = new ArrayList<>();
+		long freedWeight = 0;
+		Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+		while (weightedSize - freedWeight + weight > maximumWeight
+				|| entries.size() - victims.size() >= maximumSize) {
+			Map.Entry<K, Entry<V>> victim = iterator.next();
+			if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+				rejectionCount++;
+				return;
+			}
+			victims.add(victim.getKey());
+			freedWeight += victim.getValue().weight();
+		}
+
+		for (K victim : victims) {
+			entries.remove(victim);
+		}
+		evictionCount += victims.size();
+		weightedSize += weight - freedWeight;
+		entries.put(key, new Entry<>(value, weight));
+	}
+}
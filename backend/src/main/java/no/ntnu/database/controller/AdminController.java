@@ -0,0 +1,110 @@
+package no.ntnu.database.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.util.Map;
+import no.ntnu.database.cache.CacheStats;
+import no.ntnu.database.cache.CourseCache;
+import no.ntnu.database.cache.ImageCache;
+import no.ntnu.database.jwt.JwtUtil;
+import no.ntnu.database.service.DashboardStatsService;
+import no.ntnu.database.service.ImageMigrationService;
+import no.ntnu.dto.DashboardStats;
+import no.ntnu.dto.ImageMigrationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API controller for operational information, only available to administrators.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+	private final CourseCache courseCache;
+	private final ImageCache imageCache;
+	private final DashboardStatsService dashboardStatsService;
+	private final ImageMigrationService imageMigrationService;
+	private final JwtUtil jwtUtil;
+
+	/**
+	 * Makes the admin controller.
+	 *
+	 * @param courseCache           The cache of courses to report the statistics of
+	 * @param imageCache            The caches of images to report the statistics of
+	 * @param dashboardStatsService The service keeping the dashboard aggregates
+	 * @param imageMigrationService The service moving image content out of the database
+	 * @param jwtUtil               The token verifier to report the cache statistics of
+	 */
+	@Autowired
+	public AdminController(
+			CourseCache courseCache,
+			ImageCache imageCache,
+			DashboardStatsService dashboardStatsService,
+			ImageMigrationService imageMigrationService,
+			JwtUtil jwtUtil
+	) {
+		this.courseCache = courseCache;
+		this.imageCache = imageCache;
+		this.dashboardStatsService = dashboardStatsService;
+		this.imageMigrationService = imageMigrationService;
+		this.jwtUtil = jwtUtil;
+	}
+
+	/**
+	 * Returns the aggregates shown on the admin dashboard.
+	 * The aggregates are kept in memory, so this does not query the database.
+	 *
+	 * @return The dashboard aggregates
+	 */
+	@Operation(
+			summary = "Get dashboard statistics",
+			description = "Returns the course, provider, listing, user and favorite aggregates"
+	)
+	@ApiResponse(responseCode = "200", description = "Retrieved statistics successfully")
+	@GetMapping(value = "/stats", produces = {"application/json"})
+	public DashboardStats getDashboardStats() {
+		return dashboardStatsService.getStats();
+	}
+
+	/**
+	 * Returns the statistics of the in-process caches, by cache name.
+	 *
+	 * @return The hit, miss, eviction and load time statistics of every cache
+	 */
+	@Operation(
+			summary = "Get cache statistics",
+			description = "Returns the hit, miss, eviction and load time statistics of the caches"
+	)
+	@ApiResponse(responseCode = "200", description = "Retrieved statistics successfully")
+	@GetMapping(value = "/caches", produces = {"application/json"})
+	public Map<String, CacheStats> getCacheStats() {
+		return Map.of(
+				"courses", courseCache.stats(),
+				"images", imageCache.metadataStats(),
+				"imageVariants", imageCache.variantStats(),
+				"imageContent", imageCache.contentStats(),
+				"tokens", jwtUtil.cacheStats()
+		);
+	}
+
+	/**
+	 * Moves the content of images stored in the database to the image store on disk.
+	 * Images are moved one at a time, and the migration can be run again if interrupted.
+	 *
+	 * @return The number of moved images, and of images that could not be moved
+	 */
+	@Operation(
+			summary = "Migrate images to the image store",
+			description = "Moves image content from the image table to files on disk"
+	)
+	@ApiResponse(responseCode = "200", description = "Migration finished, see the result")
+	@PostMapping(value = "/images/migrate", produces = {"application/json"})
+	public ImageMigrationResult migrateImages() {
+		return imageMigrationService.migrate();
+	}
+}
@@ -3,10 +3,13 @@ package no.ntnu.database.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import no.ntnu.database.model.Category;
+import no.ntnu.database.service.CatalogSnapshotService;
+import no.ntnu.database.service.CatalogSnapshotService.Catalog;
 import no.ntnu.database.service.CategoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,29 +34,44 @@ public class CategoryController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(CategoryController.class);
 	private final CategoryService service;
+	private final CatalogSnapshotService snapshotService;
 
 	/**
 	 * Creates the controller.
 	 *
 	 * @param categoryService Autowired object for sending requests to the database
+	 * @param snapshotService Autowired object for serving the list of all categories
 	 */
 	@Autowired
-	public CategoryController(CategoryService categoryService) {
+	public CategoryController(
+			CategoryService categoryService,
+			CatalogSnapshotService snapshotService
+	) {
 		this.service = categoryService;
+		this.snapshotService = snapshotService;
 	}
 
 	/**
 	 * Endpoint to get all categories.
+	 * The list is served from a pre-serialized snapshot, with an entity tag
+	 * so that clients can revalidate it.
 	 *
-	 * @return All categories
+	 * @param ifNoneMatch    The entity tags the client already has, if any
+	 * @param acceptEncoding The encodings the client accepts, if any
+	 * @return All categories, or 304 if the client's copy is current
 	 */
 	@Operation(summary = "Get all categories",
 			description = "Returns a list of all the categories in the database")
 	@ApiResponse(responseCode = "200", description = "successful request")
+	@ApiResponse(responseCode = "304", description = "The client's copy is current")
 	@GetMapping(produces = {"application/json"})
-	public Iterable<Category> getAllCategories() {
+	public ResponseEntity<byte[]> getAllCategories(
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) {
 		LOGGER.info("Getting all categories");
-		return service.getAllCategories();
+		return snapshotService.getSnapshot(Catalog.CATEGORIES)
+				.toResponse(ifNoneMatch, acceptEncoding);
 	}
 
 	/**
@@ -2,15 +2,40 @@ package no.ntnu.database.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import no.ntnu.currency.RateSnapshot;
+import no.ntnu.currency.RateStatus;
+import no.ntnu.database.importing.CourseImportService;
+import no.ntnu.database.importing.ImportFormat;
 import no.ntnu.database.model.Course;
 import no.ntnu.database.model.Image;
+import no.ntnu.database.repository.CourseSortKey;
+import no.ntnu.database.service.CatalogSnapshotService;
+import no.ntnu.database.service.CatalogSnapshotService.Catalog;
+import no.ntnu.database.service.CourseFilterService;
+import no.ntnu.database.service.CoursePriceService;
+import no.ntnu.database.service.CourseProviderLinkService;
 import no.ntnu.database.service.CourseService;
+import no.ntnu.database.service.ExchangeRateService;
+import no.ntnu.dto.CourseFilter;
+import no.ntnu.dto.CourseFilterResult;
+import no.ntnu.dto.CourseImportResult;
+import no.ntnu.dto.CoursePage;
+import no.ntnu.dto.CoursePrice;
+import no.ntnu.dto.CourseSearchResult;
+import no.ntnu.dto.CourseView;
+import no.ntnu.dto.PricedCoursePage;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -20,10 +45,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.MediaType;
 
 
@@ -31,40 +58,221 @@ import org.springframework.http.MediaType;
  * REST API controller for course collection.
  * Code adapted from app-dev repository by Gist.
  */
-@CrossOrigin
+@CrossOrigin(exposedHeaders = {RateHeaders.AS_OF, RateHeaders.STALE})
 @RestController
 @RequestMapping("/courses")
 public class CourseController {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CourseController.class);
 
 	private final CourseService courseService;
+	private final CourseFilterService courseFilterService;
+	private final CatalogSnapshotService snapshotService;
+	private final CourseImportService courseImportService;
+	private final CourseProviderLinkService linkService;
+	private final ExchangeRateService exchangeRateService;
+	private final CoursePriceService coursePriceService;
 
 	/**
 	 * Makes the course controller.
 	 *
-	 * @param courseService The service class for communication
+	 * @param courseService       The service class for communication
+	 * @param courseFilterService The service class for filtering courses
+	 * @param snapshotService     The service class for serving the list of all courses
+	 * @param courseImportService The service class for importing many courses at once
+	 * @param linkService         The service class for the prices of courses at providers
+	 * @param exchangeRateService The service class telling how current the exchange rates are
+	 * @param coursePriceService  The service class for listing courses by price
 	 */
 	@Autowired
 	public CourseController(
-			CourseService courseService
+			CourseService courseService,
+			CourseFilterService courseFilterService,
+			CatalogSnapshotService snapshotService,
+			CourseImportService courseImportService,
+			CourseProviderLinkService linkService,
+			ExchangeRateService exchangeRateService,
+			CoursePriceService coursePriceService
 	) {
 		this.courseService = courseService;
+		this.courseFilterService = courseFilterService;
+		this.snapshotService = snapshotService;
+		this.courseImportService = courseImportService;
+		this.linkService = linkService;
+		this.exchangeRateService = exchangeRateService;
+		this.coursePriceService = coursePriceService;
 	}
 
 	/**
 	 * Returns all the courses in the database.
+	 * The list is served from a pre-serialized snapshot, with an entity tag
+	 * so that clients can revalidate it.
 	 *
-	 * @return all the courses in the database.
+	 * @param ifNoneMatch    The entity tags the client already has, if any
+	 * @param acceptEncoding The encodings the client accepts, if any
+	 * @return all the courses in the database, or 304 if the client's copy is current.
 	 */
 	@Operation(
 			summary = "Get all courses",
 			description = "Returns a list of all existing courses in the database"
 	)
 	@ApiResponse(responseCode = "200", description = "Retrieved list successfully")
+	@ApiResponse(responseCode = "304", description = "The client's copy is current")
 	@GetMapping(produces = {"application/json"})
-	public Iterable<Course> getAllCourses() {
+	public ResponseEntity<byte[]> getAllCourses(
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) {
 		LOGGER.info("Getting all courses, test!");
-		return courseService.getAllCourses();
+		return snapshotService.getSnapshot(Catalog.COURSES)
+				.toResponse(ifNoneMatch, acceptEncoding);
+	}
+
+	/**
+	 * Streams all the courses in the database as newline delimited JSON, one course per line.
+	 * Unlike the full list, the courses are loaded and written a chunk at a time,
+	 * so the size of the table does not affect memory use.
+	 *
+	 * @return all the courses in the database, ordered by ID.
+	 */
+	@Operation(
+			summary = "Stream all courses",
+			description = "Returns every course as newline delimited JSON, ordered by ID"
+	)
+	@ApiResponse(responseCode = "200", description = "Streaming the courses")
+	@GetMapping(value = "/stream", produces = {"application/x-ndjson"})
+	public ResponseEntity<StreamingResponseBody> streamAllCourses() {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(courseService.streamAllCourses());
+	}
+
+	/**
+	 * Returns one page of courses, using keyset pagination.
+	 * The page is selected by the {@code limit} parameter being present,
+	 * unless the courses are sorted by price.
+	 *
+	 * @param sort  The key to sort by: {@code id}, {@code name}, {@code startDate} or
+	 *              {@code credits}. Ties are always broken by course id.
+	 * @param limit The maximum amount of courses on the page
+	 * @param after The continuation token from the previous page, if any
+	 * @return a {@link ResponseEntity} with code 200 and the page,
+	 *     or code 400 if the sort key or continuation token is invalid.
+	 */
+	@Operation(
+			summary = "Get a page of courses",
+			description = "Returns a sorted page of courses and a continuation token for the next"
+	)
+	@ApiResponse(responseCode = "200", description = "Retrieved page successfully")
+	@ApiResponse(responseCode = "400", description = "Invalid sort key or continuation token")
+	@GetMapping(params = {"limit", "sort!=price"}, produces = {"application/json"})
+	public ResponseEntity<CoursePage> getCoursePage(
+			@RequestParam(name = "sort", defaultValue = "id") String sort,
+			@RequestParam(name = "limit") int limit,
+			@RequestParam(name = "after", required = false) String after
+	) {
+		ResponseEntity<CoursePage> response;
+		try {
+			response = ResponseEntity.ok(courseService.getCoursePage(
+					CourseSortKey.fromParam(sort), limit, after
+			));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn(e.getMessage());
+			response = ResponseEntity.badRequest().build();
+		}
+		return response;
+	}
+
+	/**
+	 * Returns one page of the courses with a price, cheapest first by their lowest price
+	 * at any provider with the sale of the course taken off. The listing is selected by
+	 * the {@code sort} parameter being {@code price}. The response headers tell when the
+	 * rates used were fetched, and whether they are stale.
+	 *
+	 * @param currency The currency to give the prices in
+	 * @param maxPrice The highest price to include, in that currency, if any
+	 * @param limit    The maximum amount of courses on the page
+	 * @param after    The continuation token from the previous page, if any
+	 * @return a {@link ResponseEntity} with code 200 and the page,
+	 *     or code 400 if the currency or continuation token is invalid.
+	 */
+	@Operation(
+			summary = "Get courses by price",
+			description = "Returns a page of courses, cheapest first, optionally up to a price"
+	)
+	@ApiResponse(responseCode = "200", description = "Retrieved page successfully")
+	@ApiResponse(responseCode = "400", description = "Invalid currency or continuation token")
+	@GetMapping(params = "sort=price", produces = {"application/json"})
+	public ResponseEntity<PricedCoursePage> getCoursesByPrice(
+			@RequestParam(name = "currency", defaultValue = "USD") String currency,
+			@RequestParam(name = "maxPrice", required = false) Double maxPrice,
+			@RequestParam(name = "limit", defaultValue = "20") int limit,
+			@RequestParam(name = "after", required = false) String after
+	) {
+		ResponseEntity<PricedCoursePage> response;
+		try {
+			RateStatus status = exchangeRateService.getRateStatus();
+			response = ResponseEntity.ok()
+					.headers(RateHeaders.of(status))
+					.body(coursePriceService.getCoursesByPrice(currency, maxPrice, limit, after));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn(e.getMessage());
+			response = ResponseEntity.badRequest().build();
+		}
+		return response;
+	}
+
+	/**
+	 * Returns one page of the courses matching a filter, with the number of matching
+	 * courses per category, difficulty level, start month, credits and hours per week.
+	 * Repeating a parameter matches courses with any of the values.
+	 *
+	 * @param category   The IDs of the categories to include
+	 * @param difficulty The difficulty levels to include
+	 * @param startFrom  The earliest start date to include, as {@code yyyy-MM-dd}
+	 * @param startTo    The latest start date to include, as {@code yyyy-MM-dd}
+	 * @param minCredits The least credits to include
+	 * @param maxCredits The most credits to include
+	 * @param minHours   The least hours per week to include
+	 * @param maxHours   The most hours per week to include
+	 * @param limit      The maximum amount of courses on the page
+	 * @param after      The continuation token from the previous page, if any
+	 * @return a {@link ResponseEntity} with code 200 and the page,
+	 *     or code 400 if the continuation token is invalid.
+	 */
+	@Operation(
+			summary = "Filter courses",
+			description = "Returns a page of the courses matching the filter, "
+					+ "and the number of matching courses per facet value"
+	)
+	@ApiResponse(responseCode = "200", description = "Filtered courses successfully")
+	@ApiResponse(responseCode = "400", description = "Invalid continuation token")
+	@GetMapping(value = "/filter", produces = {"application/json"})
+	public ResponseEntity<CourseFilterResult> filterCourses(
+			@RequestParam(name = "category", required = false) Set<Integer> category,
+			@RequestParam(name = "difficulty", required = false) Set<String> difficulty,
+			@RequestParam(name = "startFrom", required = false)
+			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startFrom,
+			@RequestParam(name = "startTo", required = false)
+			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startTo,
+			@RequestParam(name = "minCredits", required = false) Double minCredits,
+			@RequestParam(name = "maxCredits", required = false) Double maxCredits,
+			@RequestParam(name = "minHours", required = false) Integer minHours,
+			@RequestParam(name = "maxHours", required = false) Integer maxHours,
+			@RequestParam(name = "limit", defaultValue = "20") int limit,
+			@RequestParam(name = "after", required = false) String after
+	) {
+		CourseFilter filter = new CourseFilter(
+				category, difficulty, startFrom, startTo,
+				minCredits, maxCredits, minHours, maxHours
+		);
+		ResponseEntity<CourseFilterResult> response;
+		try {
+			response = ResponseEntity.ok(courseFilterService.filter(filter, limit, after));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn(e.getMessage());
+			response = ResponseEntity.badRequest().build();
+		}
+		return response;
 	}
 
 	/**
@@ -86,12 +294,50 @@ public class CourseController {
 	@ApiResponse(
 			responseCode = "404", description = "A course with a corresponding id was not found")
 	@GetMapping(value = "/{id}", produces = {"application/json"})
-	public ResponseEntity<Course> getCourse(@PathVariable Integer id) {
+	public ResponseEntity<CourseView> getCourse(@PathVariable Integer id) {
 		return courseService.findById(id)
 				.map(ResponseEntity::ok)
 				.orElseGet(() -> ResponseEntity.notFound().build());
 	}
 
+	/**
+	 * Returns the price of a course at every provider listing it, converted to one currency,
+	 * cheapest first after the sale of the course. Prices that cannot be converted are listed
+	 * last, as they are listed by their provider. The response headers tell when the rates
+	 * used were fetched, and whether they are stale.
+	 *
+	 * @param id       The id of the course
+	 * @param currency The currency to convert the prices to
+	 * @return <p>The prices, with status 200.</p>
+	 *     <p>Status 400 if the currency is not recognized.</p>
+	 *     <p>Status 404 if no course has the id.</p>
+	 */
+	@Operation(
+			summary = "Get the prices of a course",
+			description = "Returns the price at every provider, converted and cheapest first"
+	)
+	@ApiResponse(responseCode = "200", description = "The prices were found")
+	@ApiResponse(responseCode = "400", description = "The currency was not recognized")
+	@ApiResponse(responseCode = "404", description = "A course with the id was not found")
+	@GetMapping(value = "/{id}/prices", produces = {"application/json"})
+	public ResponseEntity<List<CoursePrice>> getCoursePrices(
+			@PathVariable int id,
+			@RequestParam(name = "currency", defaultValue = "USD") String currency
+	) {
+		ResponseEntity<List<CoursePrice>> response;
+		try {
+			RateSnapshot rates = exchangeRateService.getSnapshot();
+			response = linkService.findCoursePrices(id, currency, rates)
+					.map(prices -> ResponseEntity.ok()
+							.headers(RateHeaders.of(rates.status()))
+							.body(prices))
+					.orElseGet(() -> ResponseEntity.notFound().build());
+		} catch (IllegalArgumentException e) {
+			response = ResponseEntity.badRequest().build();
+		}
+		return response;
+	}
+
 	/**
 	 * HTTP POST endpoint for adding a new course.
 	 *
@@ -124,6 +370,42 @@ public class CourseController {
 		return response;
 	}
 
+	/**
+	 * HTTP POST endpoint for importing many courses at once.
+	 * The body is streamed, either as one JSON course per line or as CSV with a header row.
+	 *
+	 * @param contentType The format of the body, {@code application/x-ndjson} or {@code text/csv}
+	 * @param skip        The number of rows to skip, to resume an import from its checkpoint
+	 * @param body        The rows to import
+	 * @return <p>Returns a {@link ResponseEntity} with status 200 and the number of imported
+	 *     and rejected rows, and the checkpoint to resume from.</p>
+	 *     <p>Returns a {@link ResponseEntity} with status 400 if the format is not supported.</p>
+	 */
+	@Operation(
+			summary = "Import courses",
+			description = "Imports courses from NDJSON or CSV, committing them in batches"
+	)
+	@ApiResponse(responseCode = "200", description = "The rows were imported, see the result")
+	@ApiResponse(responseCode = "400", description = "Unsupported format or CSV header")
+	@ApiResponse(responseCode = "403", description = "Forbidden, not authorized")
+	@PostMapping(value = "/import", produces = {"application/json"})
+	public ResponseEntity<CourseImportResult> importCourses(
+			@RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+			@RequestParam(name = "skip", defaultValue = "0") int skip,
+			InputStream body
+	) {
+		ResponseEntity<CourseImportResult> response;
+		try {
+			response = ResponseEntity.ok(courseImportService.importCourses(
+					body, ImportFormat.fromContentType(contentType), skip
+			));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn(e.getMessage());
+			response = ResponseEntity.badRequest().build();
+		}
+		return response;
+	}
+
 	/**
 	 * Deletes a course from the collection.
 	 *
@@ -190,17 +472,46 @@ public class CourseController {
 	 * Endpoint to search for courses.
 	 *
 	 * @param query The query to use when searching for courses.
+	 * @param limit The maximum number of courses to return, or null for every match.
 	 *
-	 * @return Courses that match the search query
+	 * @return The courses that best match the search query, most relevant first
 	 */
 	@Operation(summary = "Search for courses",
-			description = "Search for courses via a string query")
+			description = "Search for courses via a string query, ranked by relevance. "
+					+ "Every match is returned unless a limit is given")
 	@ApiResponse(responseCode = "200", description = "Successful request")
 	@GetMapping(value = "/search/{query}", produces = {"application/json"})
-	public Iterable<Course> searchCategory(@PathVariable String query) {
-		return query == null || query.isBlank()
-				? courseService.getAllCourses()
-				: courseService.searchCourse(query);
+	public List<CourseView> searchCategory(
+			@PathVariable String query,
+			@RequestParam(name = "limit", required = false) Integer limit
+	) {
+		CourseSearchResult result = limit == null
+				? courseService.searchAllCourses(query)
+				: courseService.searchCourse(query, limit);
+		return result.courses();
+	}
+
+	/**
+	 * Endpoint to search for courses, also suggesting a corrected query if the query
+	 * seemed misspelled.
+	 *
+	 * @param query The query to use when searching for courses.
+	 * @param limit The maximum number of courses to return.
+	 *
+	 * @return The courses that best match the search query, most relevant first,
+	 *     the number of courses matching in all,
+	 *     and a "did you mean" suggestion if the query seemed misspelled
+	 */
+	@Operation(summary = "Search for courses with a spelling suggestion",
+			description = "Search for courses via a string query, ranked by relevance, "
+					+ "with a corrected query if the query seemed misspelled")
+	@ApiResponse(responseCode = "200", description = "Successful request")
+	@GetMapping(value = "/searchWithSuggestion/{query}", produces = {"application/json"})
+	public CourseSearchResult searchWithSuggestion(
+			@PathVariable String query,
+			@RequestParam(name = "limit", defaultValue = "50") int limit
+	) {
+		return courseService.searchCourse(query, limit);
 	}
 
 	/**
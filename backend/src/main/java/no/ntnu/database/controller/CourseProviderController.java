@@ -3,15 +3,26 @@ package no.ntnu.database.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.persistence.EntityNotFoundException;
+import java.util.List;
 import java.util.Optional;
+import no.ntnu.currency.RateSnapshot;
 import no.ntnu.database.model.CourseProvider;
 import no.ntnu.database.model.CourseProviderLink;
+import no.ntnu.database.service.CatalogSnapshotService;
+import no.ntnu.database.service.CatalogSnapshotService.Catalog;
 import no.ntnu.database.service.CourseProviderLinkService;
 import no.ntnu.database.service.CourseProviderService;
+import no.ntnu.database.service.ExchangeRateService;
+import no.ntnu.database.service.PriceListSyncService;
+import no.ntnu.dto.CourseView;
+import no.ntnu.dto.PriceListEntry;
+import no.ntnu.dto.PriceListSyncResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -24,13 +35,14 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 /**
  * REST API controller for the course provider collection.
  * Code adapted from the app-dev repository by Gist.
  */
-@CrossOrigin
+@CrossOrigin(exposedHeaders = {RateHeaders.AS_OF, RateHeaders.STALE})
 @RestController
 @RequestMapping("/providers")
 public class CourseProviderController {
@@ -39,33 +51,72 @@ public class CourseProviderController {
 
 	private final CourseProviderService service;
 	private final CourseProviderLinkService linkService;
+	private final CatalogSnapshotService snapshotService;
+	private final ExchangeRateService exchangeRateService;
+	private final PriceListSyncService priceListSyncService;
 
 	/**
 	 * Makes the course provider controller via autowired.
 	 *
-	 * @param service the service class for communication.
+	 * @param service         the service class for communication.
+	 * @param snapshotService the service class for serving the list of all providers.
+	 * @param exchangeRateService the service class telling how current the exchange rates are.
+	 * @param priceListSyncService the service class for replacing a provider's price list.
 	 */
 	@Autowired
 	public CourseProviderController(CourseProviderService service,
-									CourseProviderLinkService linkService) {
+									CourseProviderLinkService linkService,
+									CatalogSnapshotService snapshotService,
+									ExchangeRateService exchangeRateService,
+									PriceListSyncService priceListSyncService) {
 		this.service = service;
 		this.linkService = linkService;
+		this.snapshotService = snapshotService;
+		this.exchangeRateService = exchangeRateService;
+		this.priceListSyncService = priceListSyncService;
 	}
 
 	/**
 	 * Returns all the course providers in the database.
+	 * The list is served from a pre-serialized snapshot, with an entity tag
+	 * so that clients can revalidate it.
 	 *
-	 * @return all the course providers in the database.
+	 * @param ifNoneMatch    The entity tags the client already has, if any
+	 * @param acceptEncoding The encodings the client accepts, if any
+	 * @return all the course providers in the database, or 304 if the client's copy is current.
 	 */
 	@Operation(
 			summary = "Get all course providers",
 			description = "Returns a list of all existing course providers in the database"
 	)
 	@ApiResponse(responseCode = "200", description = "Retrieved list successfully")
+	@ApiResponse(responseCode = "304", description = "The client's copy is current")
 	@GetMapping(produces = {"application/json"})
-	public Iterable<CourseProvider> getAllCourseProviders() {
+	public ResponseEntity<byte[]> getAllCourseProviders(
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) {
 		LOGGER.info("Getting all providers, test!");
-		return service.getAllProviders();
+		return snapshotService.getSnapshot(Catalog.PROVIDERS)
+				.toResponse(ifNoneMatch, acceptEncoding);
+	}
+
+	/**
+	 * Streams all the course providers in the database as newline delimited JSON,
+	 * one provider per line. The providers are loaded and written a chunk at a time.
+	 *
+	 * @return all the course providers in the database, ordered by ID.
+	 */
+	@Operation(
+			summary = "Stream all course providers",
+			description = "Returns every course provider as newline delimited JSON, ordered by ID"
+	)
+	@ApiResponse(responseCode = "200", description = "Streaming the course providers")
+	@GetMapping(value = "/stream", produces = {"application/x-ndjson"})
+	public ResponseEntity<StreamingResponseBody> streamAllCourseProviders() {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(service.streamAllProviders());
 	}
 
 
@@ -216,27 +267,41 @@ public class CourseProviderController {
 
 	/**
 	 * Get a specific link via its {@link CourseProvider}- and course ids.
+	 * The response headers tell when the rates used to convert the price were fetched,
+	 * and whether they are stale.
 	 *
 	 * @param providerId 	the linked {@link CourseProvider}'s unique id.
 	 * @param courseId		the course's unique id.
 	 *
 	 * @return 		<p>a {@link ResponseEntity} with code 200 on success.</p>
+	 * 				<p>a {@link ResponseEntity} with code 400 if the currency is not recognized.</p>
 	 * 				<p>a {@link ResponseEntity} with code 404 if course to update is not found.</p>
 	 */
 	@Operation(summary = "Get a course provider link",
 			description = "Returns details of a specific course provider link")
 	@ApiResponse(responseCode = "200", description = "Successfully retrieved")
+	@ApiResponse(responseCode = "400", description = "The currency was not recognized")
 	@ApiResponse(responseCode = "404", description = "Course provider link not found")
 	@GetMapping("{providerId}/coursePriceListings/{courseId}")
-	public ResponseEntity<CourseProviderLink> getCourseProviderLink(
+	public ResponseEntity<CourseView.Link> getCourseProviderLink(
 			@PathVariable int providerId,
 			@PathVariable int courseId,
 			@RequestParam(name = "currency", defaultValue = DEFAULT_CURRENCY) String currency
 	) {
-		Optional<CourseProviderLink> link =
-				linkService.findCourseProviderLink(providerId, courseId, currency);
-		return link.map(ResponseEntity::ok)
-				.orElseGet(() -> ResponseEntity.notFound().build());
+		ResponseEntity<CourseView.Link> response;
+		try {
+			RateSnapshot rates = exchangeRateService.getSnapshot();
+			Optional<CourseView.Link> link =
+					linkService.findCourseProviderLink(providerId, courseId, currency, rates);
+			response = link
+					.map(found -> ResponseEntity.ok()
+							.headers(RateHeaders.of(rates.status()))
+							.body(found))
+					.orElseGet(() -> ResponseEntity.notFound().build());
+		} catch (IllegalArgumentException e) {
+			response = ResponseEntity.badRequest().build();
+		}
+		return response;
 	}
 
 	/**
@@ -274,6 +339,45 @@ public class CourseProviderController {
 		}
 	}
 
+	/**
+	 * Replaces every price listing of a {@link CourseProvider} with its full price list.
+	 * Only the listings that differ from the price list are written, and courses
+	 * missing from it lose their listing at the provider.
+	 *
+	 * @param providerId The {@link CourseProvider}'s id.
+	 * @param priceList  Every course the provider lists, with its price and currency.
+	 *
+	 * @return 		<p>a {@link ResponseEntity} with code 200 and the number of listings
+	 * 				inserted, updated, deleted and left unchanged on success.</p>
+	 * 				<p>a {@link ResponseEntity} with code 400 if a course is listed twice,
+	 * 				is not found, has an invalid price, or has a currency that is not tracked.</p>
+	 * 				<p>a {@link ResponseEntity} with status 403 if incorrect level
+	 * 											of authorization.</p>
+	 * 				<p>a {@link ResponseEntity} with code 404 if the provider is not found.</p>
+	 */
+	@Operation(summary = "Replace the price list of a course provider",
+			description = "Inserts, updates and deletes the provider's price listings "
+					+ "so they match the given list")
+	@ApiResponse(responseCode = "200", description = "Price list successfully synchronized")
+	@ApiResponse(responseCode = "400", description = "Invalid price list")
+	@ApiResponse(responseCode = "403", description = "Forbidden, incorrect authorization")
+	@ApiResponse(responseCode = "404", description = "Provider not found")
+	@PutMapping("/{providerId}/coursePriceListings")
+	public ResponseEntity<PriceListSyncResult> synchronizePriceList(
+			@PathVariable int providerId,
+			@RequestBody List<PriceListEntry> priceList
+	) {
+		ResponseEntity<PriceListSyncResult> response;
+		try {
+			response = ResponseEntity.ok(priceListSyncService.synchronize(providerId, priceList));
+		} catch (IllegalArgumentException e) {
+			response = ResponseEntity.badRequest().build();
+		} catch (EntityNotFoundException e) {
+			response = ResponseEntity.notFound().build();
+		}
+		return response;
+	}
+
 	/**
 	 * Adds a price listing based on which {@link CourseProvider} the course has.
 	 *
@@ -303,6 +407,8 @@ public class CourseProviderController {
 			linkService.addCourseListing(providerId, courseId, dto);
 			return ResponseEntity.status(HttpStatus.CREATED)
 					.body("Course's price listing added successfully");
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Bad request: " + e.getMessage());
 		} catch (EntityNotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND)
 					.body("Course or provider not found.");
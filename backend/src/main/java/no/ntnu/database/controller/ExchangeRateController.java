@@ -1,8 +1,12 @@
 package no.ntnu.database.controller;
 
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
+import no.ntnu.currency.PastRates;
+import no.ntnu.currency.RateSnapshot;
+import no.ntnu.currency.RateStatus;
 import no.ntnu.database.service.ExchangeRateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -10,12 +14,13 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * REST API controller for getting updated currency exchange rates.
  */
-@CrossOrigin
+@CrossOrigin(exposedHeaders = {RateHeaders.AS_OF, RateHeaders.STALE})
 @RestController
 @RequestMapping("/exchange")
 public class ExchangeRateController {
@@ -27,7 +32,8 @@ public class ExchangeRateController {
 	}
 
 	/**
-	 * Gets all available currencies.
+	 * Gets all available currencies. The response headers tell when the rates were fetched,
+	 * and whether they are stale.
 	 *
 	 * @return A set of all currencies
 	 */
@@ -36,16 +42,20 @@ public class ExchangeRateController {
 			description = "Currencies acquired successfully"
 	)
 	@GetMapping(produces = {"application/json"})
-	public Set<String> getExchangeRates() {
-		return exchangeRateService.getCurrencies();
-
+	public ResponseEntity<Set<String>> getExchangeRates() {
+		RateSnapshot rates = exchangeRateService.getSnapshot();
+		return ResponseEntity.ok()
+				.headers(RateHeaders.of(rates.status()))
+				.body(rates.currencies());
 	}
 
 	/**
 	 * Endpoint for getting the specific exchange rate from one currency to another.
+	 * The response headers tell when the rates were fetched, and whether they are stale.
 	 *
 	 * @param fromCurrency The currency to exchange from
 	 * @param toCurrency The currency to exchange to
+	 * @param at The instant to exchange at, in ISO-8601, or null to exchange at the current rates
 	 *
 	 * @return The exchange rate between the two currencies
 	 */
@@ -57,17 +67,38 @@ public class ExchangeRateController {
 			responseCode = "400",
 			description = "Any of the provided currencies was not recognized"
 	)
+	@ApiResponse(
+			responseCode = "404",
+			description = "No rates were known at the provided instant"
+	)
 	@GetMapping(value = "/{fromCurrency}/{toCurrency}/{amount}", produces = {"application/json"})
 	public ResponseEntity<Double> exchange(
 			@PathVariable String fromCurrency,
 			@PathVariable String toCurrency,
-			@PathVariable(required = false) Optional<Double> amount
+			@PathVariable(required = false) Optional<Double> amount,
+			@RequestParam(required = false) Instant at
 	) {
 		ResponseEntity<Double> response;
 		try {
-			response = ResponseEntity.ok(exchangeRateService
-					.exchangeAmount(amount.orElse(1d), fromCurrency, toCurrency)
-			);
+			RateStatus status;
+			Optional<Double> rate;
+			if (at == null) {
+				//The headers and the rate are taken from one snapshot, so they always agree.
+				RateSnapshot rates = exchangeRateService.getSnapshot();
+				status = rates.status();
+				rate = Optional.of(rates.rate(fromCurrency, toCurrency));
+			} else {
+				//Past rates are the rates that were current then, so they are never stale.
+				Optional<PastRates> rates = exchangeRateService.getRatesAt(at);
+				status = new RateStatus(rates.map(PastRates::fetchedAt).orElse(null), false);
+				rate = rates.map(past -> past.rate(fromCurrency, toCurrency));
+			}
+			response = rate
+					.map(found -> ResponseEntity.ok()
+							.headers(RateHeaders.of(status))
+							.body(amount.orElse(1d) * found)
+					)
+					.orElseGet(() -> ResponseEntity.notFound().build());
 		} catch (IllegalArgumentException iae) {
 			response = ResponseEntity.badRequest().build();
 		}
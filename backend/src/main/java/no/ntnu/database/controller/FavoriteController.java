@@ -114,14 +114,10 @@ public class FavoriteController {
 	@ApiResponse(responseCode = "400", description = "Bad request, entry not added")
 	@PostMapping("/{courseId}")
 	public ResponseEntity<Favorite> add(@PathVariable int courseId) {
-		return courseService
-				.findById(courseId)
-				.map(course -> new Favorite(course, getUser()))
-				.map(favorite -> {
-					favoriteService.add(favorite);
-					return new ResponseEntity<>(favorite, HttpStatus.CREATED);
-				})
-				.orElse(ResponseEntity.badRequest().build());
+		if (courseService.findById(courseId).isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		return new ResponseEntity<>(favoriteService.add(courseId, getUser()), HttpStatus.CREATED);
 	}
 
 
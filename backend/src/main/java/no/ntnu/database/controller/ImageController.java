@@ -2,12 +2,32 @@ package no.ntnu.database.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
+import no.ntnu.database.cache.ImageCache;
 import no.ntnu.database.model.Image;
+import no.ntnu.database.model.ImageVariant;
 import no.ntnu.database.service.ImageService;
+import no.ntnu.database.service.ImageVariantService;
+import no.ntnu.database.storage.BlobStore;
+import no.ntnu.database.storage.ContentTooLargeException;
+import no.ntnu.dto.ImageMetadata;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +40,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 
@@ -30,22 +51,37 @@ import org.springframework.web.multipart.MultipartFile;
 @RestController
 @RequestMapping("/images")
 public class ImageController {
-
-
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageController.class);
+	/**
+	 * Request attributes asking Tomcat to send a file straight from the page cache
+	 * to the socket, see its {@code DefaultServlet}.
+	 */
+	private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 	/**
-	 * 1MB is spring's default max file size, if not otherwise specified.
+	 * How long an image requested by its content hash may be cached.
 	 */
-	@Value("${spring.servlet.multipart.max-file-size:1000000}")
-	private int sizeLimit;
+	private static final Duration VERSIONED_MAX_AGE = Duration.ofDays(365);
+	private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
 
 	private final ImageService imageService;
+	private final BlobStore blobStore;
+	private final ImageVariantService variantService;
 
 	/**
 	 * Makes the image controller.
 	 */
 	@Autowired
-	public ImageController(ImageService imageService) {
+	public ImageController(
+			ImageService imageService,
+			BlobStore blobStore,
+			ImageVariantService variantService
+	) {
 		this.imageService = imageService;
+		this.blobStore = blobStore;
+		this.variantService = variantService;
 	}
 
 	private <T> ResponseEntity<T> getImageResponse(
@@ -55,17 +91,14 @@ public class ImageController {
 	) {
 		Image image = null;
 		HttpStatus errorStatus = null;
-		String contentType = imgFile.getContentType();
-		if (contentType == null || !contentType.startsWith("image")) {
+		try (InputStream content = imgFile.getInputStream()) {
+			image = imageService.store(content, altText);
+		} catch (IllegalArgumentException e) {
 			errorStatus = HttpStatus.UNSUPPORTED_MEDIA_TYPE;
-		} else if (imgFile.getSize() > (sizeLimit == -1 ? Integer.MAX_VALUE : sizeLimit)) {
+		} catch (ContentTooLargeException e) {
 			errorStatus = HttpStatus.PAYLOAD_TOO_LARGE;
-		} else {
-			try {
-				image = new Image(imgFile.getBytes(), contentType.split("/")[1], altText);
-			} catch (IOException ioe) {
-				errorStatus = HttpStatus.UNPROCESSABLE_ENTITY;
-			}
+		} catch (IOException ioe) {
+			errorStatus = HttpStatus.UNPROCESSABLE_ENTITY;
 		}
 
 		ResponseEntity<T> response;
@@ -79,13 +112,35 @@ public class ImageController {
 
 	/**
 	 * Endpoint to search for a specific image.
+	 * Content in the image store is written straight from its file, with sendfile
+	 * when the server supports it, instead of being loaded into memory.
 	 *
-	 * @param id The id of the image to return.
-	 * @return {@link ResponseEntity} object containing either:
+	 * <p>The hash of the content is the entity tag of the image, and conditional requests
+	 * are answered from the image metadata alone. When the URL carries the hash as its
+	 * version, the response may be cached forever, as a new version gets a new URL;
+	 * otherwise clients must revalidate it on every use. A single byte range can be
+	 * requested, while requests for several ranges get the whole image.</p>
+	 *
+	 * <p>Clients passing the width they display the image at get the smallest rendition
+	 * at least that wide. While the renditions are being made, they get the original
+	 * image, which must be revalidated even on versioned URLs.</p>
+	 *
+	 * @param id       The id of the image to return.
+	 * @param version  The content hash the client expects, from the image's
+	 *                 {@code contentHash}, or null
+	 * @param width    The width the client displays the image at in pixels, or null
+	 *                 for the original image
+	 * @param request  The request, used to hand the file to the server
+	 * @param response The response the image is written to, either:
 	 *     <ul>
-	 *         <li>A corresponding image that matches id, returns status 200.</li>
-	 *         <li>If no match is found, returns status 404.</li>
+	 *         <li>A corresponding image that matches id, with status 200.</li>
+	 *         <li>The requested range of the image, with status 206.</li>
+	 *         <li>If the client's copy is still current, status 304.</li>
+	 *         <li>If the range is outside the image, status 416.</li>
+	 *         <li>If the width is not positive, status 400.</li>
+	 *         <li>If no match is found, status 404.</li>
 	 *     </ul>
+	 * @throws IOException If the image cannot be read or written
 	 */
 	@Operation (
 		summary = "Get Image with id",
@@ -94,24 +149,204 @@ public class ImageController {
 	@ApiResponse(
 		responseCode = "200", description = "Image was found"
 	)
+	@ApiResponse(
+		responseCode = "206", description = "The requested range of the image"
+	)
+	@ApiResponse(
+		responseCode = "304", description = "The image has not changed"
+	)
+	@ApiResponse(
+		responseCode = "400", description = "The width is not positive"
+	)
 	@ApiResponse(
 		responseCode = "404", description = "Image with with corresponding id was not found"
 	)
+	@ApiResponse(
+		responseCode = "416", description = "The requested range is outside the image"
+	)
 	@GetMapping("/{id}")
-	public ResponseEntity<byte[]> getImage(@PathVariable Integer id) {
-		ResponseEntity<byte[]> response;
-		response = imageService
-				.findById(id)
-				.map(image -> {
-					MediaType mediaType = switch (image.getImageType()) {
-						case "gif" -> MediaType.IMAGE_GIF;
-						case "png" -> MediaType.IMAGE_PNG;
-						default -> MediaType.IMAGE_JPEG;
-					};
-					return ResponseEntity.ok().contentType(mediaType).body(image.getImageBytes());
-				})
-				.orElse(ResponseEntity.notFound().build());
-		return response;
+	public void getImage(
+			@PathVariable Integer id,
+			@RequestParam(value = "v", required = false) String version,
+			@RequestParam(value = "w", required = false) Integer width,
+			HttpServletRequest request,
+			HttpServletResponse response
+	) throws IOException {
+		if (width != null && width <= 0) {
+			response.setStatus(HttpStatus.BAD_REQUEST.value());
+			return;
+		}
+		Optional<ImageMetadata> found = imageService.findMetadataById(id);
+		if (found.isEmpty()) {
+			response.setStatus(HttpStatus.NOT_FOUND.value());
+			return;
+		}
+		ImageMetadata image = found.get();
+		if (image.contentHash() == null) {
+			//Not migrated to the image store yet, so there is no hash to tag it with.
+			writeStoredInDatabase(image, response);
+			return;
+		}
+
+		String hash = image.contentHash();
+		long length = image.contentLength();
+		String imageType = image.imageType();
+		boolean pending = false;
+		if (width != null) {
+			Optional<ImageVariant> variant = variantService.select(hash, width);
+			if (variant.isPresent()) {
+				hash = variant.get().getContentHash();
+				length = variant.get().getContentLength();
+				imageType = variant.get().getImageType();
+			} else {
+				pending = true;
+			}
+		}
+
+		String etag = "\"" + hash + "\"";
+		//The rendition replaces the original once made, so a stand-in must not be kept by date.
+		long lastModified = pending || image.modifiedAt() == null
+				? -1
+				: image.modifiedAt().toEpochMilli();
+		CacheControl cacheControl = !pending && image.contentHash().equals(version)
+				? CacheControl.maxAge(VERSIONED_MAX_AGE).cachePublic().immutable()
+				: CacheControl.noCache().cachePublic();
+		response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+		if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+			return;
+		}
+		if (!blobStore.exists(hash)) {
+			LOGGER.error("The content of image {} is missing from the image store", id);
+			response.setStatus(HttpStatus.NOT_FOUND.value());
+			return;
+		}
+
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		HttpRange range = requestedRange(request, etag, lastModified);
+		long start = 0;
+		long end = length - 1;
+		if (range != null) {
+			try {
+				start = range.getRangeStart(length);
+				end = range.getRangeEnd(length);
+			} catch (IllegalArgumentException e) {
+				response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+				return;
+			}
+			response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+			response.setHeader(HttpHeaders.CONTENT_RANGE,
+					"bytes " + start + "-" + end + "/" + length);
+		}
+		response.setContentType(mediaType(imageType).toString());
+		response.setContentLengthLong(end - start + 1);
+		writeContent(hash, length, start, end + 1, request, response);
+	}
+
+	private void writeStoredInDatabase(ImageMetadata image, HttpServletResponse response)
+			throws IOException {
+		Optional<ByteBuffer> content = imageService.findContentStoredInDatabase(image.imageId());
+		if (content.isEmpty()) {
+			response.setStatus(HttpStatus.NOT_FOUND.value());
+			return;
+		}
+		response.setContentType(mediaType(image.imageType()).toString());
+		response.setContentLength(content.get().remaining());
+		write(content.get(), response);
+	}
+
+	private static MediaType mediaType(String imageType) {
+		return switch (imageType) {
+			case "gif" -> MediaType.IMAGE_GIF;
+			case "png" -> MediaType.IMAGE_PNG;
+			case "webp" -> IMAGE_WEBP;
+			default -> MediaType.IMAGE_JPEG;
+		};
+	}
+
+	/**
+	 * Returns the single byte range to respond with, or null to respond with the whole image.
+	 * Ranges are ignored when the header is malformed, asks for several ranges,
+	 * or its {@code If-Range} validator no longer matches the image.
+	 */
+	private static HttpRange requestedRange(
+			HttpServletRequest request,
+			String etag,
+			long lastModified
+	) {
+		String header = request.getHeader(HttpHeaders.RANGE);
+		if (header == null || !header.startsWith("bytes=")) {
+			return null;
+		}
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange != null) {
+			boolean current;
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+				current = ifRange.equals(etag);
+			} else {
+				try {
+					//HTTP dates have no milliseconds.
+					long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+					current = lastModified >= 0 && date == lastModified / 1000 * 1000;
+				} catch (IllegalArgumentException e) {
+					current = false;
+				}
+			}
+			if (!current) {
+				return null;
+			}
+		}
+		List<HttpRange> ranges;
+		try {
+			ranges = HttpRange.parseRanges(header);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		return ranges.size() == 1 ? ranges.get(0) : null;
+	}
+
+	/**
+	 * Writes the content from {@code start} up to, but not including, {@code end}.
+	 * With sendfile, the server copies the file from the page cache to the socket itself.
+	 * Otherwise, content small enough is written from the off-heap {@link ImageCache},
+	 * and larger content is streamed from its file.
+	 */
+	private void writeContent(
+			String hash,
+			long length,
+			long start,
+			long end,
+			HttpServletRequest request,
+			HttpServletResponse response
+	) throws IOException {
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+			request.setAttribute(SENDFILE_FILENAME, blobStore.path(hash).toString());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, end);
+			return;
+		}
+		Optional<ByteBuffer> cached = imageService.findCachedContent(hash, length);
+		if (cached.isPresent()) {
+			write(cached.get().limit((int) end).position((int) start), response);
+		} else {
+			blobStore.transferTo(
+					hash, start, end - start, Channels.newChannel(response.getOutputStream())
+			);
+		}
+	}
+
+	/**
+	 * Writes a buffer to the response. Tomcat copies direct buffers straight to its socket
+	 * buffers, while other servers get it through a channel.
+	 */
+	private static void write(ByteBuffer content, HttpServletResponse response)
+			throws IOException {
+		ServletOutputStream out = response.getOutputStream();
+		if (out instanceof CoyoteOutputStream coyote) {
+			coyote.write(content);
+		} else {
+			Channels.newChannel(out).write(content);
+		}
 	}
 
 
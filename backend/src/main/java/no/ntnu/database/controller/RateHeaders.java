@@ -0,0 +1,38 @@
+package no.ntnu.database.controller;
+
+import java.time.format.DateTimeFormatter;
+import no.ntnu.currency.RateStatus;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * The headers telling clients how current the exchange rates behind a response are.
+ */
+final class RateHeaders {
+	/**
+	 * When the rates were fetched, as an ISO-8601 instant. Left out if no rates are known.
+	 */
+	static final String AS_OF = "Exchange-Rates-As-Of";
+
+	/**
+	 * "true" if the rates are older than allowed because the rate source could not be reached.
+	 */
+	static final String STALE = "Exchange-Rates-Stale";
+
+	private RateHeaders() {
+	}
+
+	/**
+	 * Makes the headers for a rate status.
+	 *
+	 * @param status The status of the rates used for the response
+	 * @return The headers
+	 */
+	static HttpHeaders of(RateStatus status) {
+		HttpHeaders headers = new HttpHeaders();
+		if (status.asOf() != null) {
+			headers.set(AS_OF, DateTimeFormatter.ISO_INSTANT.format(status.asOf()));
+		}
+		headers.set(STALE, Boolean.toString(status.stale()));
+		return headers;
+	}
+}
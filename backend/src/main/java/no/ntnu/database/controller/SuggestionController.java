@@ -0,0 +1,54 @@
+package no.ntnu.database.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.util.List;
+import no.ntnu.database.service.SuggestionService;
+import no.ntnu.dto.Suggestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API controller for typeahead suggestions in the search bar.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/suggest")
+public class SuggestionController {
+	private final SuggestionService suggestionService;
+
+	/**
+	 * Makes the suggestion controller.
+	 *
+	 * @param suggestionService The service answering the suggestions
+	 */
+	@Autowired
+	public SuggestionController(SuggestionService suggestionService) {
+		this.suggestionService = suggestionService;
+	}
+
+	/**
+	 * Returns the most popular courses, providers, categories and certifications
+	 * with a word starting with the prefix.
+	 *
+	 * @param prefix The text typed so far
+	 * @param limit  The maximum number of suggestions, at most 10
+	 * @return The suggestions, most popular first, empty if the prefix is blank
+	 */
+	@Operation(
+			summary = "Suggest completions",
+			description = "Returns the most popular names starting with the prefix"
+	)
+	@ApiResponse(responseCode = "200", description = "Suggestions returned")
+	@GetMapping(produces = {"application/json"})
+	public List<Suggestion> suggest(
+			@RequestParam(name = "prefix") String prefix,
+			@RequestParam(name = "limit", defaultValue = "10") int limit
+	) {
+		return suggestionService.suggest(prefix, limit);
+	}
+}
@@ -15,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,6 +26,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -100,6 +102,22 @@ public class UserController {
 		return userService.findAllUsers();
 	}
 
+	/**
+	 * Streams all users as newline delimited JSON, one user per line.
+	 * The users are loaded and written a chunk at a time.
+	 *
+	 * @return All users, ordered by ID.
+	 */
+	@Operation(summary = "Stream users",
+			description = "Get all the users currently in the database as newline delimited JSON")
+	@ApiResponse(responseCode = "200", description = "Streaming the users")
+	@GetMapping(value = "/stream", produces = {"application/x-ndjson"})
+	public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(userService.streamAllUsers());
+	}
+
 	/**
 	 * Updates a {@link User} with the specified ID.
 	 *
@@ -0,0 +1,10 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a {@link no.ntnu.database.model.Category Category} has been deleted
+ * from the database.
+ *
+ * @param categoryId The ID of the deleted category
+ */
+public record CategoryDeletedEvent(int categoryId) {
+}
@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+import no.ntnu.database.model.Category;
+
+/**
+ * Published after a {@link Category} has been added or updated in the database.
+ *
+ * @param category The category as it was saved
+ */
+public record CategorySavedEvent(Category category) {
+}
@@ -0,0 +1,10 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a {@link no.ntnu.database.model.Course Course} has been deleted
+ * from the database.
+ *
+ * @param courseId The ID of the deleted course
+ */
+public record CourseDeletedEvent(int courseId) {
+}
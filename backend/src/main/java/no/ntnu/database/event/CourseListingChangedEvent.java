@@ -0,0 +1,17 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a provider's price listing of a course has been added, updated or deleted.
+ *
+ * @param courseId   The ID of the listed course
+ * @param providerId The ID of the provider listing the course
+ * @param currency   The currency of the listing's price, or null if the listing was deleted
+ * @param price      The listing's price, or 0 if the listing was deleted
+ */
+public record CourseListingChangedEvent(
+		int courseId,
+		int providerId,
+		String currency,
+		double price
+) {
+}
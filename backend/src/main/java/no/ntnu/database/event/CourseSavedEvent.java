@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+import no.ntnu.database.model.Course;
+
+/**
+ * Published after a {@link Course} has been added or updated in the database.
+ *
+ * @param course The course as it was saved
+ */
+public record CourseSavedEvent(Course course) {
+}
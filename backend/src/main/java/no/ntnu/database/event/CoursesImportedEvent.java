@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a bulk import has inserted courses directly into the database.
+ * Indexes kept outside the database should be rebuilt, as no {@link CourseSavedEvent}
+ * is published for the imported courses.
+ *
+ * @param count The number of imported courses
+ */
+public record CoursesImportedEvent(int count) {
+}
@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+import no.ntnu.currency.RateSnapshot;
+
+/**
+ * Published after new exchange rates have been received.
+ *
+ * @param rates The new rates
+ */
+public record ExchangeRatesUpdatedEvent(RateSnapshot rates) {
+}
@@ -0,0 +1,10 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a user has removed a course from their favorites.
+ *
+ * @param courseId The ID of the course
+ * @param userId   The ID of the user
+ */
+public record FavoriteDeletedEvent(int courseId, long userId) {
+}
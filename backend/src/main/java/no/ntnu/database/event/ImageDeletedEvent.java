@@ -0,0 +1,10 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after an {@link no.ntnu.database.model.Image Image} has been deleted
+ * from the database.
+ *
+ * @param imageId The ID of the deleted image
+ */
+public record ImageDeletedEvent(int imageId) {
+}
@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+import no.ntnu.database.model.Image;
+
+/**
+ * Published after an {@link Image} has been updated in the database.
+ *
+ * @param image The image as it was saved
+ */
+public record ImageSavedEvent(Image image) {
+}
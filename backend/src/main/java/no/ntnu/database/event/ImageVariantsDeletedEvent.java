@@ -0,0 +1,10 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after the renditions of content no image points at anymore have been deleted
+ * from the database.
+ *
+ * @param deleted The number of deleted renditions
+ */
+public record ImageVariantsDeletedEvent(int deleted) {
+}
@@ -0,0 +1,9 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after the renditions of image content have been saved to the database.
+ *
+ * @param sourceHash The hash of the content the renditions were made from
+ */
+public record ImageVariantsSavedEvent(String sourceHash) {
+}
@@ -0,0 +1,10 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a {@link no.ntnu.database.model.CourseProvider CourseProvider} has been
+ * deleted from the database.
+ *
+ * @param providerId The ID of the deleted provider
+ */
+public record ProviderDeletedEvent(int providerId) {
+}
@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+import no.ntnu.database.model.CourseProvider;
+
+/**
+ * Published after a {@link CourseProvider} has been added or updated in the database.
+ *
+ * @param provider The provider as it was saved
+ */
+public record ProviderSavedEvent(CourseProvider provider) {
+}
@@ -0,0 +1,9 @@
+package no.ntnu.database.event;
+
+/**
+ * Published after a {@link no.ntnu.database.model.User User} has been deleted from the database.
+ *
+ * @param userId The ID of the deleted user
+ */
+public record UserDeletedEvent(long userId) {
+}
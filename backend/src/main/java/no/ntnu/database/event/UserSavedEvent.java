@@ -0,0 +1,11 @@
+package no.ntnu.database.event;
+
+import no.ntnu.database.model.User;
+
+/**
+ * Published after a {@link User} has been added or updated in the database.
+ *
+ * @param user The user as it was saved
+ */
+public record UserSavedEvent(User user) {
+}
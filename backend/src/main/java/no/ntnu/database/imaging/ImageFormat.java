@@ -0,0 +1,84 @@
+package no.ntnu.database.imaging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The image formats accepted for upload, recognized by the magic bytes their files start with
+ * rather than by the content type the client claims.
+ */
+public enum ImageFormat {
+	JPEG("jpeg"),
+	PNG("png"),
+	GIF("gif"),
+	WEBP("webp");
+
+	/**
+	 * The most bytes needed to recognize a format.
+	 */
+	private static final int HEADER_LENGTH = 12;
+	private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+	private static final byte[] PNG_MAGIC = {
+		(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+	};
+	private static final byte[] GIF87_MAGIC = {'G', 'I', 'F', '8', '7', 'a'};
+	private static final byte[] GIF89_MAGIC = {'G', 'I', 'F', '8', '9', 'a'};
+	private static final byte[] RIFF_MAGIC = {'R', 'I', 'F', 'F'};
+	private static final byte[] WEBP_MAGIC = {'W', 'E', 'B', 'P'};
+
+	private final String imageType;
+
+	ImageFormat(String imageType) {
+		this.imageType = imageType;
+	}
+
+	/**
+	 * Returns the file type stored with images of this format.
+	 *
+	 * @return The file type, the subtype of the format's media type
+	 */
+	public String getImageType() {
+		return imageType;
+	}
+
+	/**
+	 * Recognizes the format of content from its first bytes, leaving the stream
+	 * where it was.
+	 *
+	 * @param content The content, which must support {@link InputStream#mark mark}
+	 * @return The format, or an empty Optional if the content is not in an accepted format
+	 * @throws IOException If the content cannot be read
+	 * @throws IllegalArgumentException If the stream does not support mark
+	 */
+	public static Optional<ImageFormat> detect(InputStream content) throws IOException {
+		if (!content.markSupported()) {
+			throw new IllegalArgumentException("The stream must support mark");
+		}
+		content.mark(HEADER_LENGTH);
+		byte[] header;
+		try {
+			header = content.readNBytes(HEADER_LENGTH);
+		} finally {
+			content.reset();
+		}
+
+		ImageFormat format = null;
+		if (startsWith(header, 0, JPEG_MAGIC)) {
+			format = JPEG;
+		} else if (startsWith(header, 0, PNG_MAGIC)) {
+			format = PNG;
+		} else if (startsWith(header, 0, GIF87_MAGIC) || startsWith(header, 0, GIF89_MAGIC)) {
+			format = GIF;
+		} else if (startsWith(header, 0, RIFF_MAGIC) && startsWith(header, 8, WEBP_MAGIC)) {
+			format = WEBP;
+		}
+		return Optional.ofNullable(format);
+	}
+
+	private static boolean startsWith(byte[] header, int offset, byte[] magic) {
+		return header.length >= offset + magic.length
+				&& Arrays.equals(header, offset, offset + magic.length, magic, 0, magic.length);
+	}
+}
@@ -0,0 +1,193 @@
+package no.ntnu.database.imaging;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Renders smaller copies of an image with {@code javax.imageio}.
+ *
+ * <p>Only the pixels needed for the largest copy are decoded: large originals are
+ * subsampled while they are read. Each copy is then scaled down from the next larger one,
+ * halving at most at every step, which keeps bilinear scaling sharp. Opaque copies are
+ * encoded as JPEG, and copies with transparency as PNG.</p>
+ */
+public final class ImageResizer {
+	private static final float JPEG_QUALITY = 0.8f;
+	/**
+	 * The most pixels decoded for one image, about 100MB of memory.
+	 */
+	private static final long MAX_DECODED_PIXELS = 25_000_000;
+
+	/**
+	 * A smaller copy of an image.
+	 *
+	 * @param width     The width of the copy in pixels
+	 * @param imageType The file type of the copy
+	 * @param content   The encoded copy
+	 */
+	public record Variant(int width, String imageType, byte[] content) {
+	}
+
+	/**
+	 * The copies rendered from an image.
+	 *
+	 * @param originalWidth The width of the original image in pixels
+	 * @param variants      The copies, narrowest first
+	 */
+	public record Variants(int originalWidth, List<Variant> variants) {
+	}
+
+	/**
+	 * The size of an image.
+	 *
+	 * @param width  The width in pixels
+	 * @param height The height in pixels
+	 */
+	public record Dimensions(int width, int height) {
+	}
+
+	private ImageResizer() {
+	}
+
+	/**
+	 * Reads the size of an image from its header, without decoding it.
+	 *
+	 * @param file The image file
+	 * @return The size, or an empty Optional if the file is not an image ImageIO can read
+	 * @throws IOException If the file cannot be read
+	 */
+	public static Optional<Dimensions> readDimensions(Path file) throws IOException {
+		try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+			Iterator<ImageReader> readers = input == null
+					? null
+					: ImageIO.getImageReaders(input);
+			if (readers == null || !readers.hasNext()) {
+				return Optional.empty();
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				return Optional.of(new Dimensions(reader.getWidth(0), reader.getHeight(0)));
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Renders copies of an image at each of the widths narrower than the image,
+	 * keeping its aspect ratio.
+	 *
+	 * @param file   The image file
+	 * @param widths The widths to render, ascending
+	 * @return The copies, or an empty Optional if the file is not an image ImageIO can read,
+	 *     or is too large to decode
+	 * @throws IOException If the file cannot be read, or a copy cannot be encoded
+	 */
+	public static Optional<Variants> render(Path file, List<Integer> widths) throws IOException {
+		try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+			Iterator<ImageReader> readers = input == null
+					? null
+					: ImageIO.getImageReaders(input);
+			if (readers == null || !readers.hasNext()) {
+				return Optional.empty();
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				int width = reader.getWidth(0);
+				int height = reader.getHeight(0);
+				List<Integer> narrower = widths.stream().filter(w -> w < width).toList();
+				if (narrower.isEmpty()) {
+					return Optional.of(new Variants(width, List.of()));
+				}
+
+				int widest = narrower.get(narrower.size() - 1);
+				int subsampling = Math.max(1, width / (widest * 2));
+				if ((long) (width / subsampling) * (height / subsampling) > MAX_DECODED_PIXELS) {
+					return Optional.empty();
+				}
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				BufferedImage decoded = reader.read(0, param);
+				return Optional.of(new Variants(width, scaleAll(decoded, narrower)));
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private static List<Variant> scaleAll(BufferedImage decoded, List<Integer> widths)
+			throws IOException {
+		boolean transparent = decoded.getColorModel().hasAlpha();
+		List<Variant> variants = new ArrayList<>();
+		BufferedImage current = decoded;
+		for (int i = widths.size() - 1; i >= 0; i--) {
+			int width = widths.get(i);
+			while (current.getWidth() / 2 > width) {
+				current = scale(current, current.getWidth() / 2, transparent);
+			}
+			current = scale(current, width, transparent);
+			variants.add(0, transparent
+					? new Variant(width, "png", encodePng(current))
+					: new Variant(width, "jpeg", encodeJpeg(current)));
+		}
+		return variants;
+	}
+
+	private static BufferedImage scale(BufferedImage source, int width, boolean transparent) {
+		int height = (int) Math.max(1,
+				Math.round((double) source.getHeight() * width / source.getWidth()));
+		BufferedImage scaled = new BufferedImage(width, height,
+				transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+					RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(source, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return scaled;
+	}
+
+	private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (ImageOutputStream output = ImageIO.createImageOutputStream(content)) {
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(JPEG_QUALITY);
+			param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+			writer.setOutput(output);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return content.toByteArray();
+	}
+
+	private static byte[] encodePng(BufferedImage image) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", content);
+		return content.toByteArray();
+	}
+}
@@ -0,0 +1,431 @@
+package no.ntnu.database.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.model.Category;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.repository.CategoryRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.repository.ImageRepository;
+import no.ntnu.dto.CourseImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class for importing many courses at once from a stream of NDJSON or CSV rows.
+ *
+ * <p>Rows are parsed one at a time, and category and image references are checked against
+ * IDs loaded once before the import. Valid rows are inserted with JDBC batches, committing
+ * every {@code course.import.batch-size} rows, 500 by default. If a batch fails, its rows
+ * are retried one by one, so only the offending rows are rejected.</p>
+ *
+ * <p>The indexes kept outside the database are rebuilt once the import is done,
+ * through a {@link CoursesImportedEvent}.</p>
+ */
+@Service
+public class CourseImportService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CourseImportService.class);
+	private static final int MAX_REPORTED_ERRORS = 1000;
+	private static final String CATEGORY_SEPARATOR = ";";
+	private static final String INSERT_COURSE = """
+			INSERT INTO course (sale, course_name, difficulty_level, start_date, end_date,
+				course_credits, hours_per_week, related_certification, course_description, image_id)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+			""";
+	private static final String INSERT_CATEGORY_LINK = """
+			INSERT INTO category_course (course_id, category_id)
+			VALUES (?, ?)
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final CategoryRepository categoryRepository;
+	private final ImageRepository imageRepository;
+	private final CourseRepository courseRepository;
+	private final ObjectReader courseReader;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+
+	/**
+	 * A parsed row, with either the course or the reason it could not be parsed.
+	 */
+	private record Row(int number, Course.Dto course, String error) {
+	}
+
+	/**
+	 * Reads the rows of an import one at a time.
+	 */
+	private interface RowSource {
+		/**
+		 * Reads the next row.
+		 *
+		 * @return The next row, or null at the end of the input
+		 * @throws IOException If the input cannot be read
+		 */
+		Row next() throws IOException;
+	}
+
+	/**
+	 * The progress of one import.
+	 */
+	private static final class Progress {
+		private final List<Row> pending = new ArrayList<>();
+		private final List<CourseImportResult.RowError> errors = new ArrayList<>();
+		private final Set<Integer> freeImageIds;
+		private int imported;
+		private int failed;
+		private int lastRow;
+		private int checkpoint;
+
+		private Progress(Set<Integer> freeImageIds, int skip) {
+			this.freeImageIds = freeImageIds;
+			this.lastRow = skip;
+			this.checkpoint = skip;
+		}
+
+		private void reject(int row, String message) {
+			failed++;
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(new CourseImportResult.RowError(row, message));
+			}
+		}
+
+		private CourseImportResult toResult() {
+			List<CourseImportResult.RowError> sorted = new ArrayList<>(errors);
+			sorted.sort(Comparator.comparingInt(CourseImportResult.RowError::row));
+			return new CourseImportResult(imported, failed, checkpoint, sorted, failed > errors.size());
+		}
+	}
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param jdbcTemplate       The template used for the batched inserts
+	 * @param transactionManager The transaction manager used to commit each batch
+	 * @param categoryRepository The repository to load the category IDs from
+	 * @param imageRepository    The repository to load the image IDs from
+	 * @param courseRepository   The repository to load the IDs of the images in use from
+	 * @param objectMapper       The mapper used to parse NDJSON rows
+	 * @param eventPublisher     Publishes the import to the indexes kept outside the database
+	 * @param batchSize          The number of rows inserted and committed at once
+	 */
+	@Autowired
+	public CourseImportService(
+			JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			CategoryRepository categoryRepository,
+			ImageRepository imageRepository,
+			CourseRepository courseRepository,
+			ObjectMapper objectMapper,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${course.import.batch-size:500}") int batchSize
+	) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.categoryRepository = categoryRepository;
+		this.imageRepository = imageRepository;
+		this.courseRepository = courseRepository;
+		this.courseReader = objectMapper.readerFor(Course.Dto.class);
+		this.eventPublisher = eventPublisher;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Imports courses from a stream of rows.
+	 * Reading stops at the first unreadable row, keeping the courses imported so far.
+	 *
+	 * @param input  The rows to import
+	 * @param format The format of the rows
+	 * @param skip   The number of rows to skip, to resume an import from its checkpoint
+	 * @return The number of imported and rejected rows, and why rows were rejected
+	 * @throws IllegalArgumentException If the CSV header is missing or names unknown columns
+	 */
+	public CourseImportResult importCourses(InputStream input, ImportFormat format, int skip) {
+		long start = System.currentTimeMillis();
+		Set<Integer> categoryIds = new HashSet<>();
+		for (Category category : categoryRepository.findAll()) {
+			categoryIds.add(category.getCategoryId());
+		}
+		Set<Integer> freeImageIds = new HashSet<>(imageRepository.findAllIds());
+		freeImageIds.removeAll(courseRepository.findAllImageIds());
+		Progress progress = new Progress(freeImageIds, Math.max(0, skip));
+
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(input, StandardCharsets.UTF_8)
+		);
+		try {
+			RowSource rows = format == ImportFormat.CSV ? csvRows(reader) : ndjsonRows(reader);
+			for (Row row = rows.next(); row != null; row = rows.next()) {
+				if (row.number() <= skip) {
+					continue;
+				}
+				progress.lastRow = row.number();
+				String error = row.error() != null
+						? row.error()
+						: validate(row.course(), categoryIds, progress.freeImageIds);
+				if (error != null) {
+					progress.reject(row.number(), error);
+				} else {
+					progress.freeImageIds.remove(row.course().imageId());
+					progress.pending.add(row);
+					if (progress.pending.size() >= batchSize) {
+						flush(progress);
+					}
+				}
+			}
+		} catch (IOException e) {
+			progress.reject(progress.lastRow + 1, "Could not read the row: " + e.getMessage());
+		}
+		flush(progress);
+
+		LOGGER.info("Imported {} courses and rejected {} rows in {} ms",
+				progress.imported, progress.failed, System.currentTimeMillis() - start);
+		if (progress.imported > 0) {
+			eventPublisher.publishEvent(new CoursesImportedEvent(progress.imported));
+		}
+		return progress.toResult();
+	}
+
+	private RowSource ndjsonRows(BufferedReader reader) {
+		int[] number = {0};
+		return () -> {
+			String line = reader.readLine();
+			while (line != null && line.isBlank()) {
+				line = reader.readLine();
+			}
+			if (line == null) {
+				return null;
+			}
+			number[0]++;
+			try {
+				return new Row(number[0], courseReader.readValue(line), null);
+			} catch (JsonProcessingException e) {
+				return new Row(number[0], null, "Invalid JSON: " + e.getOriginalMessage());
+			}
+		};
+	}
+
+	private RowSource csvRows(BufferedReader reader) throws IOException {
+		CsvReader csv = new CsvReader(reader);
+		List<String> header = csv.next();
+		if (header == null) {
+			throw new IllegalArgumentException("The CSV header is missing");
+		}
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < header.size(); i++) {
+			columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		Set<String> known = Set.of(
+				"coursename", "difficultylevel", "startdate", "enddate", "coursecredits",
+				"hoursperweek", "sale", "relatedcertification", "coursedescription",
+				"categoryids", "imageid"
+		);
+		Set<String> unknown = new TreeSet<>(columns.keySet());
+		unknown.removeAll(known);
+		if (!unknown.isEmpty()) {
+			throw new IllegalArgumentException("Unknown CSV columns: " + unknown);
+		}
+
+		int[] number = {0};
+		return () -> {
+			List<String> fields = csv.next();
+			while (fields != null && fields.size() == 1 && fields.get(0).isBlank()) {
+				fields = csv.next();
+			}
+			if (fields == null) {
+				return null;
+			}
+			number[0]++;
+			try {
+				return new Row(number[0], toCourse(fields, columns), null);
+			} catch (IllegalArgumentException | DateTimeParseException e) {
+				return new Row(number[0], null, "Invalid value: " + e.getMessage());
+			}
+		};
+	}
+
+	private static Course.Dto toCourse(List<String> fields, Map<String, Integer> columns) {
+		Set<Integer> categoryIds = new HashSet<>();
+		String categories = field(fields, columns, "categoryids");
+		if (categories != null) {
+			for (String categoryId : categories.split(CATEGORY_SEPARATOR)) {
+				if (!categoryId.isBlank()) {
+					categoryIds.add(Integer.parseInt(categoryId.trim()));
+				}
+			}
+		}
+		return new Course.Dto(
+				field(fields, columns, "coursename"),
+				field(fields, columns, "difficultylevel"),
+				toDate(field(fields, columns, "startdate")),
+				toDate(field(fields, columns, "enddate")),
+				toDouble(field(fields, columns, "coursecredits")),
+				(int) toDouble(field(fields, columns, "hoursperweek")),
+				toDouble(field(fields, columns, "sale")),
+				field(fields, columns, "relatedcertification"),
+				field(fields, columns, "coursedescription"),
+				categoryIds,
+				(int) toDouble(field(fields, columns, "imageid"))
+		);
+	}
+
+	private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+		Integer index = columns.get(name);
+		return index == null || index >= fields.size() || fields.get(index).isEmpty()
+				? null
+				: fields.get(index);
+	}
+
+	private static Date toDate(String value) {
+		return value == null
+				? null
+				: Date.from(LocalDate.parse(value.trim()).atStartOfDay(ZoneOffset.UTC).toInstant());
+	}
+
+	private static double toDouble(String value) {
+		return value == null ? 0 : Double.parseDouble(value.trim());
+	}
+
+	private static String validate(
+			Course.Dto course,
+			Set<Integer> categoryIds,
+			Set<Integer> freeImageIds
+	) {
+		String error = null;
+		if (course.courseName() == null || course.courseName().isBlank()) {
+			error = "The course name is missing";
+		} else if (course.categoryIds() != null && !categoryIds.containsAll(course.categoryIds())) {
+			Set<Integer> unknown = new TreeSet<>(course.categoryIds());
+			unknown.removeAll(categoryIds);
+			error = "Unknown category IDs: " + unknown;
+		} else if (course.imageId() != 0 && !freeImageIds.contains(course.imageId())) {
+			error = String.format(
+					"Image %d does not exist or belongs to another course", course.imageId()
+			);
+		}
+		return error;
+	}
+
+	private void flush(Progress progress) {
+		if (!progress.pending.isEmpty()) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> insert(progress.pending));
+				progress.imported += progress.pending.size();
+			} catch (DataAccessException batchError) {
+				LOGGER.warn("Batch insert failed, retrying its rows one by one: {}",
+						batchError.getMessage());
+				for (Row row : progress.pending) {
+					try {
+						transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+						progress.imported++;
+					} catch (DataAccessException rowError) {
+						progress.freeImageIds.add(row.course().imageId());
+						progress.reject(row.number(), rowError.getMostSpecificCause().getMessage());
+					}
+				}
+			}
+			progress.pending.clear();
+		}
+		progress.checkpoint = progress.lastRow;
+	}
+
+	private void insert(List<Row> rows) {
+		List<Integer> courseIds = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) c -> {
+			try (PreparedStatement statement = c.prepareStatement(
+					INSERT_COURSE, Statement.RETURN_GENERATED_KEYS
+			)) {
+				for (Row row : rows) {
+					bind(statement, row.course());
+					statement.addBatch();
+				}
+				statement.executeBatch();
+				List<Integer> ids = new ArrayList<>(rows.size());
+				try (ResultSet keys = statement.getGeneratedKeys()) {
+					while (keys.next()) {
+						ids.add(keys.getInt(1));
+					}
+				}
+				return ids;
+			}
+		});
+		if (courseIds == null || courseIds.size() != rows.size()) {
+			throw new DataRetrievalFailureException("The database did not return every course ID");
+		}
+
+		List<Object[]> links = new ArrayList<>();
+		for (int i = 0; i < rows.size(); i++) {
+			Set<Integer> categoryIds = rows.get(i).course().categoryIds();
+			if (categoryIds != null) {
+				for (int categoryId : categoryIds) {
+					links.add(new Object[] {courseIds.get(i), categoryId});
+				}
+			}
+		}
+		if (!links.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_CATEGORY_LINK, links);
+		}
+	}
+
+	private static void bind(PreparedStatement statement, Course.Dto course)
+			throws SQLException {
+		statement.setDouble(1, course.sale());
+		statement.setString(2, course.courseName());
+		statement.setString(3, course.difficultyLevel());
+		setTimestamp(statement, 4, course.startDate());
+		setTimestamp(statement, 5, course.endDate());
+		statement.setDouble(6, course.courseCredits());
+		statement.setInt(7, course.hoursPerWeek());
+		statement.setString(8, course.relatedCertification());
+		statement.setString(9, course.courseDescription());
+		if (course.imageId() == 0) {
+			statement.setNull(10, Types.INTEGER);
+		} else {
+			statement.setInt(10, course.imageId());
+		}
+	}
+
+	private static void setTimestamp(PreparedStatement statement, int index, Date date)
+			throws SQLException {
+		if (date == null) {
+			statement.setNull(index, Types.TIMESTAMP);
+		} else {
+			statement.setTimestamp(index, new Timestamp(date.getTime()));
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package no.ntnu.database.importing;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma separated records one at a time, following RFC 4180.
+ * Fields may be quoted, with doubled quotes inside, and quoted fields may span lines.
+ */
+final class CsvReader {
+	private static final int END = -1;
+
+	private final Reader reader;
+	private int pushedBack = -2;
+
+	/**
+	 * Creates a reader.
+	 *
+	 * @param reader The characters to read, preferably buffered
+	 */
+	CsvReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the next record.
+	 *
+	 * @return The fields of the record, or null at the end of the input
+	 * @throws IOException If the input cannot be read
+	 */
+	List<String> next() throws IOException {
+		int c = read();
+		if (c == END) {
+			return null;
+		}
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == END) {
+					throw new IOException("Unterminated quoted field");
+				} else if (c == '"') {
+					int following = read();
+					if (following == '"') {
+						field.append('"');
+					} else {
+						quoted = false;
+						c = following;
+						continue;
+					}
+				} else {
+					field.append((char) c);
+				}
+			} else if (c == '"' && field.isEmpty()) {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' || c == '\n' || c == END) {
+				if (c == '\r') {
+					int following = read();
+					if (following != '\n') {
+						pushedBack = following;
+					}
+				}
+				fields.add(field.toString());
+				return fields;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		if (pushedBack != -2) {
+			int c = pushedBack;
+			pushedBack = -2;
+			return c;
+		}
+		return reader.read();
+	}
+}
@@ -0,0 +1,46 @@
+package no.ntnu.database.importing;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The formats courses can be imported from.
+ */
+public enum ImportFormat {
+	/**
+	 * One JSON {@link no.ntnu.database.model.Course.Dto course} per line.
+	 */
+	NDJSON(MediaType.APPLICATION_NDJSON),
+	/**
+	 * Comma separated values, with a header row naming the
+	 * {@link no.ntnu.database.model.Course.Dto course} fields.
+	 * Category IDs are separated by semicolons.
+	 */
+	CSV(new MediaType("text", "csv"));
+
+	private final MediaType mediaType;
+
+	ImportFormat(MediaType mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	/**
+	 * Finds the format of a content type.
+	 *
+	 * @param contentType The content type of the request
+	 * @return The matching format
+	 * @throws IllegalArgumentException If the content type is not supported
+	 */
+	public static ImportFormat fromContentType(String contentType) {
+		if (contentType != null) {
+			MediaType type = MediaType.parseMediaType(contentType);
+			for (ImportFormat format : values()) {
+				if (format.mediaType.isCompatibleWith(type)) {
+					return format;
+				}
+			}
+		}
+		throw new IllegalArgumentException(
+				String.format("Cannot import courses from \"%s\"", contentType)
+		);
+	}
+}
@@ -1,5 +1,6 @@
 package no.ntnu.database.jwt;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
@@ -13,15 +14,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * A filter that is applied to all HTTP requests and checks for a valid JWT token
- * in the "Authorization: Bearer ..." header.
+ * in the "Authorization: Bearer ..." header. The token is verified once per request,
+ * by {@link JwtUtil#verifyToken}, and the user is taken from its claims rather than
+ * looked up in the database.
  * Taken from 05-jwt-authentication from app-dev repository by Gist.
  */
 @Component
@@ -29,9 +30,6 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 	private static final Logger logger = LoggerFactory.getLogger(
 			JwtRequestFilter.class.getSimpleName());
 
-	@Autowired
-	private UserDetailsService userDetailsService;
-
 	@Autowired
 	private JwtUtil jwtUtil;
 
@@ -40,11 +38,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 									FilterChain filterChain)
 			throws ServletException, IOException {
 		String jwtToken = getJwtToken(request);
-		String username = jwtToken != null ? getUsernameFrom(jwtToken) : null;
+		Claims claims = jwtToken != null ? getClaimsFrom(jwtToken) : null;
+		String username = claims != null ? claims.getSubject() : null;
 
 		if (username != null && notAuthenticatedYet()) {
-			UserDetails userDetails = getUserDetailsFromDatabase(username);
-			if (jwtUtil.validateToken(jwtToken, userDetails)) {
+			UserDetails userDetails = jwtUtil.userDetailsFrom(claims);
+			if (jwtUtil.validateToken(claims, userDetails)) {
 				registerUserAsAuthenticated(request, userDetails);
 			}
 		}
@@ -52,16 +51,6 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 		filterChain.doFilter(request, response);
 	}
 
-	private UserDetails getUserDetailsFromDatabase(String username) {
-		UserDetails userDetails = null;
-		try {
-			userDetails = userDetailsService.loadUserByUsername(username);
-		} catch (UsernameNotFoundException e) {
-			logger.warn("User " + username + " not found in the database");
-		}
-		return userDetails;
-	}
-
 	private String getJwtToken(HttpServletRequest request) {
 		final String authorizationHeader = request.getHeader("Authorization");
 		String jwt = null;
@@ -82,16 +71,16 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 		return authorizationHeaderValue.substring(numberOfCharsToStrip);
 	}
 
-	private String getUsernameFrom(String jwtToken) {
-		String username = null;
+	private Claims getClaimsFrom(String jwtToken) {
+		Claims claims = null;
 		try {
-			username = jwtUtil.extractUsername(jwtToken);
+			claims = jwtUtil.verifyToken(jwtToken);
 		} catch (MalformedJwtException e) {
 			logger.warn("Malformed JWT: " + e.getMessage());
 		} catch (JwtException e) {
 			logger.warn("Error in the JWT token: " + e.getMessage());
 		}
-		return username;
+		return claims;
 	}
 
 	private static boolean notAuthenticatedYet() {
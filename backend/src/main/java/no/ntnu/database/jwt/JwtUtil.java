@@ -2,29 +2,42 @@ package no.ntnu.database.jwt;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import no.ntnu.database.cache.CacheStats;
+import no.ntnu.database.cache.TinyLfuCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 /**
  * Utility class for handling JWT tokens.
  * Taken from 05-jwt-authentication from app-dev repository by Gist.
+ *
+ * <p>The signing key and parser are built once. Verified claims are kept in a
+ * {@link TinyLfuCache} by the SHA-256 digest of their token until the token expires,
+ * so a token sent again is only hashed instead of parsed and verified. Expired tokens are
+ * dropped when they are read, and swept every {@code jwt.cache.sweep-interval-ms}, so tokens
+ * that were popular before they expired do not keep new tokens out of the cache.</p>
  */
 @Component
 public class JwtUtil {
-	@Value("${jwt_secret_key}")
-	private String secretKey;
 	/**
 	 * Key inside JWT token where roles are stored.
 	 */
@@ -33,6 +46,27 @@ public class JwtUtil {
 	private static final String EMAIL_KEY = "email";
 	private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+	private final SecretKey signingKey;
+	private final JwtParser parser;
+	private final TinyLfuCache<String, Claims> verifiedClaims;
+
+	/**
+	 * Creates the utility class.
+	 *
+	 * @param secretKey        The key signing and verifying the tokens
+	 * @param cacheMaximumSize The maximum number of tokens with their verified claims cached
+	 */
+	@Autowired
+	public JwtUtil(
+			@Value("${jwt_secret_key}") String secretKey,
+			@Value("${jwt.cache.maximum-size:10000}") int cacheMaximumSize
+	) {
+		byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+		this.signingKey = new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+		this.parser = Jwts.parser().verifyWith(signingKey).build();
+		this.verifiedClaims = new TinyLfuCache<>(cacheMaximumSize, cacheMaximumSize, claims -> 1);
+		logger.info("Loaded jwt_secret_key of {} bytes", keyBytes.length);
+	}
 
 	/**
 	 * Generate a JWT token for an authenticated user.
@@ -61,13 +95,29 @@ public class JwtUtil {
 				.claim("userId", userId)
 				.issuedAt(new Date(timeNow))
 				.expiration(new Date(timeAfterOneHour))
-				.signWith(getSigningKey())
+				.signWith(signingKey)
 				.compact();
 	}
 
-	private SecretKey getSigningKey() {
-		byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-		return new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+	/**
+	 * Verify a JWT token and return its claims, from the cache if the token was
+	 * verified before.
+	 *
+	 * @param token JWT token
+	 * @return The claims of the token
+	 * @throws JwtException If the token is malformed, has an invalid signature or has expired
+	 */
+	public Claims verifyToken(String token) throws JwtException {
+		String digest = digest(token);
+		Claims claims = verifiedClaims.get(
+				digest, key -> parser.parseSignedClaims(token).getPayload()
+		);
+		if (isExpired(claims)) {
+			verifiedClaims.invalidate(digest);
+			//Parse again, so the expiry is reported the same way as for an uncached token.
+			claims = parser.parseSignedClaims(token).getPayload();
+		}
+		return claims;
 	}
 
 	/**
@@ -77,43 +127,71 @@ public class JwtUtil {
 	 * @return Username
 	 */
 	public String extractUsername(String token) throws JwtException {
-		return extractClaim(token, Claims::getSubject);
+		return verifyToken(token).getSubject();
 	}
 
 	/**
-	 * Check if a token is valid for a given user.
+	 * Returns the user a verified token was issued to, with the roles it was issued with,
+	 * without looking the user up.
 	 *
-	 * @param token       Token to validate
+	 * @param claims The claims returned by {@link #verifyToken}
+	 * @return The user the token was issued to
+	 */
+	public UserDetails userDetailsFrom(Claims claims) {
+		List<?> roles = claims.get(ROLE_KEY, List.class);
+		return User.withUsername(claims.getSubject())
+				.password("")
+				.authorities(roles == null ? List.of() : roles.stream()
+						.map(role -> new SimpleGrantedAuthority(role.toString()))
+						.toList())
+				.build();
+	}
+
+	/**
+	 * Check if the claims of a verified token are valid for a given user.
+	 *
+	 * @param claims      The claims returned by {@link #verifyToken}
 	 * @param userDetails Object containing user details
 	 * @return True if the token matches the current user and is still valid
 	 */
-	public boolean validateToken(String token, UserDetails userDetails) throws JwtException {
-		final String username = extractUsername(token);
+	public boolean validateToken(Claims claims, UserDetails userDetails) {
 		return userDetails != null
-				&& username.equals(userDetails.getUsername())
-				&& !isTokenExpired(token);
+				&& userDetails.getUsername().equals(claims.getSubject())
+				&& !isExpired(claims);
 	}
 
-
-	private Date extractExpiration(String token) {
-		return extractClaim(token, Claims::getExpiration);
+	/**
+	 * Removes the tokens that have expired from the cache of verified tokens.
+	 */
+	@Scheduled(
+			initialDelayString = "${jwt.cache.sweep-interval-ms:60000}",
+			fixedDelayString = "${jwt.cache.sweep-interval-ms:60000}"
+	)
+	public void evictExpired() {
+		verifiedClaims.invalidateIf(JwtUtil::isExpired);
 	}
 
-	private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-		final Claims claims = extractAllClaims(token);
-		return claimsResolver.apply(claims);
+	/**
+	 * Returns the statistics of the cache of verified tokens.
+	 *
+	 * @return The statistics of the cache
+	 */
+	public CacheStats cacheStats() {
+		return verifiedClaims.stats();
 	}
 
-	private Claims extractAllClaims(String token) {
-		return Jwts.parser().verifyWith(getSigningKey())
-				.build().parseSignedClaims(token).getPayload();
+	private static boolean isExpired(Claims claims) {
+		Date expiration = claims.getExpiration();
+		return expiration != null && expiration.before(new Date());
 	}
 
-	private Boolean isTokenExpired(String token) {
-		return extractExpiration(token).before(new Date());
+	private static String digest(String token) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256")
+					.digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
 	}
-
-	public JwtUtil() {
-        logger.info("Loaded jwt_secret_key: {}", secretKey);
-    }
 }
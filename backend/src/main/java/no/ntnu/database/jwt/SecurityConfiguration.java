@@ -73,16 +73,21 @@ public class SecurityConfiguration {
                         .permitAll() // Permit all for authenticate and H2 console
 						.requestMatchers(HttpMethod.GET,
 								"/categories", "/categories/**",
-								"/courses", "/courses/{id}", "/courses/search/{query}",
-								"/providers", "/providers/{id}", "/providers/search/{query}",
+								"/courses", "/courses/{id}", "/courses/search/{query}", "/courses/filter",
+								"/courses/searchWithSuggestion/{query}",
+								"/courses/stream", "/courses/{id}/prices",
+								"/providers", "/providers/{id}", "/providers/search/{query}", "/providers/stream",
                                 "/providers/{providerId}/coursePriceListings/**",
                                 "/images/**",
-                                "/exchange", "/exchange/**"
+                                "/exchange", "/exchange/**",
+                                "/suggest"
 						).permitAll()
                         .requestMatchers("/favorites/**").hasAnyAuthority("ROLE_USER", "ROLE_ADMIN")
                         .requestMatchers("/users/{id}/change-password").hasAnyAuthority("ROLE_USER", "ROLE_ADMIN")
+                        .requestMatchers("/courses/import").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/courses/{id}").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/users/**", "/images/**").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/admin/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/categories").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/providers/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/providers/{providerId}/coursePriceListings").hasAuthority("ROLE_ADMIN")
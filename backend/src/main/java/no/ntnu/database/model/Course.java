@@ -8,11 +8,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -25,6 +27,11 @@ import java.util.Set;
  * <p>Supports Java persistence API's requirement of a no-argument constructor.</p>
  */
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_course_name_id", columnList = "course_name, course_id"),
+		@Index(name = "idx_course_start_date_id", columnList = "start_date, course_id"),
+		@Index(name = "idx_course_credits_id", columnList = "course_credits, course_id")
+})
 public final class Course {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
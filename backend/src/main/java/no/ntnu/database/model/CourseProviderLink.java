@@ -6,6 +6,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.validation.constraints.NotNull;
@@ -23,13 +24,13 @@ public final class CourseProviderLink {
 
 	@JsonIgnore
 	@Schema(description = "A course connected to the course provider")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "course_id", insertable = false, updatable = false)
 	private Course course;
 
 	@JsonIgnore
 	@Schema(description = "A course provider connected to a specific course")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "course_provider_id", insertable = false, updatable = false)
 	private CourseProvider courseProvider;
 
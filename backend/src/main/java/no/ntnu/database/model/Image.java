@@ -10,11 +10,18 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToOne;
 import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 
 
 /**
  * The class represents an Image, with an id and link to the url
  * mapped to a corresponding database table via JPA annotations.
+ *
+ * <p>Only the metadata of an image is mapped here, so loading images, and the courses
+ * showing them, never reads image content. The content of new images is kept in the
+ * {@link no.ntnu.database.storage.BlobStore BlobStore} under its hash. Images stored before
+ * that have no content hash, and keep their content in the table until they are migrated,
+ * mapped separately by {@link ImagePayload}.</p>
  */
 @Entity
 public final class Image {
@@ -25,11 +32,24 @@ public final class Image {
 	@Column(name = "image_id")
 	private int imageId;
 
-	@NotNull
+	@Schema(description = "The SHA-256 hash of the image content in the blob store, "
+			+ "used as the version of the image URL")
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@JsonIgnore
+	@Schema(description = "The length of the image content in bytes")
+	private long contentLength;
+
 	@JsonIgnore
-	@Schema(description = "An URL pointing to the image associated with this entity", example = "https://www.ntnu.no/")
-	@Column(name = "image_bytes", length = Integer.MAX_VALUE)
-	private byte[] imageBytes;
+	@Schema(description = "When the image content was last replaced")
+	private Instant contentModifiedAt;
+
+	@Schema(description = "The width of the image in pixels, if known", example = "1280")
+	private Integer width;
+
+	@Schema(description = "The height of the image in pixels, if known", example = "720")
+	private Integer height;
 
 	@NotNull
 	@Schema(description = "The file type of the image", example = "jpeg")
@@ -47,14 +67,15 @@ public final class Image {
 	public Image() {}
 
 	/**
-	 * Creates an image.
+	 * Creates an image with its content in the blob store.
 	 *
-	 * @param imageBytes The bytes that make up the image data
-	 * @param imageType The filetype of the image
-	 * @param altText The image's alt text / caption
+	 * @param contentHash   The SHA-256 hash of the image content
+	 * @param contentLength The length of the image content in bytes
+	 * @param imageType     The filetype of the image
+	 * @param altText       The image's alt text / caption
 	 */
-	public Image(byte[] imageBytes, String imageType, String altText) {
-		setImageBytes(imageBytes);
+	public Image(String contentHash, long contentLength, String imageType, String altText) {
+		setContent(contentHash, contentLength);
 		setImageType(imageType);
 		setAltText(altText);
 	}
@@ -88,36 +109,75 @@ public final class Image {
 	}
 
 	/**
-	 * Sets the imageBytes containing the image.
+	 * Returns the imageId.
+	 *
+	 * @return The imageId for the image.
+	 */
+	public int getImageId() {
+		return imageId;
+	}
+
+
+	/**
+	 * Points the image at content in the blob store.
 	 *
-	 * @param imageBytes The imageBytes containing the image.
+	 * @param contentHash   The SHA-256 hash of the image content
+	 * @param contentLength The length of the image content in bytes
 	 */
-	public void setImageBytes(byte[] imageBytes) {
-		if (imageBytes == null) {
-			throw new IllegalArgumentException("The image url cannot be null");
+	public void setContent(String contentHash, long contentLength) {
+		if (contentHash == null) {
+			throw new IllegalArgumentException("The content hash cannot be null");
 		}
-		this.imageBytes = imageBytes;
+		this.contentHash = contentHash;
+		this.contentLength = contentLength;
+		this.contentModifiedAt = Instant.now();
 	}
 
 	/**
-	 * Returns the imageId.
+	 * Returns the hash of the image content in the blob store.
 	 *
-	 * @return The imageId for the image.
+	 * @return The SHA-256 hash, or null if the content is still kept in the table
 	 */
-	public int getImageId() {
-		return imageId;
+	public String getContentHash() {
+		return contentHash;
 	}
 
+	/**
+	 * Returns the length of the image content in the blob store.
+	 *
+	 * @return The length in bytes, or 0 if the content is still kept in the table
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
 
 	/**
-	 * Returns the imageBytes.
+	 * Returns when the image content was last replaced.
 	 *
-	 * @return the imageBytes containing the image.
+	 * @return The instant, or null if the content is still kept in the table
 	 */
-	public byte[] getImageBytes() {
-		return imageBytes;
+	public Instant getContentModifiedAt() {
+		return contentModifiedAt;
 	}
 
+	public Integer getWidth() {
+		return width;
+	}
+
+	public Integer getHeight() {
+		return height;
+	}
+
+	/**
+	 * Sets the size of the image.
+	 *
+	 * @param width  The width of the image in pixels, or null if unknown
+	 * @param height The height of the image in pixels, or null if unknown
+	 */
+	public void setDimensions(Integer width, Integer height) {
+		this.width = width;
+		this.height = height;
+	}
 
 	/**
 	 * Checks if the object is valid.
@@ -126,7 +186,7 @@ public final class Image {
 	 */
 	@JsonIgnore
 	public boolean isValid() {
-		return imageBytes != null && imageBytes.length != 0;
+		return contentHash != null;
 	}
 
 	public String getAltText() {
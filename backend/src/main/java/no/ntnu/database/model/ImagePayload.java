@@ -0,0 +1,54 @@
+package no.ntnu.database.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+
+/**
+ * The content of an {@link Image} stored before the
+ * {@link no.ntnu.database.storage.BlobStore BlobStore}, in the {@code image_bytes} column
+ * of the image table.
+ *
+ * <p>The column is mapped apart from the image metadata, so it is only read when
+ * the content itself is needed, to serve or migrate such an image. Payloads are never
+ * created; the column is left empty for new images.</p>
+ *
+ * <p>The payload is read-only and mapped to a query rather than the table, so only
+ * {@link Image} shapes the generated schema. The column itself is kept by
+ * {@link no.ntnu.database.ImageColumnUpgrade ImageColumnUpgrade}, and cleared with
+ * {@link no.ntnu.database.repository.ImagePayloadRepository#clearContent(int)}.</p>
+ */
+@Entity
+@Immutable
+@Subselect("SELECT image_id, image_bytes FROM image")
+@Synchronize("image")
+public final class ImagePayload {
+	@Id
+	@Column(name = "image_id")
+	private int imageId;
+
+	@Column(name = "image_bytes")
+	private byte[] imageBytes;
+
+	/**
+	 * An empty constructor for JPA requirement.
+	 */
+	public ImagePayload() {}
+
+	public int getImageId() {
+		return imageId;
+	}
+
+	/**
+	 * Returns the content kept in the table.
+	 *
+	 * @return The content, or null if the image has its content in the blob store
+	 */
+	public byte[] getImageBytes() {
+		return imageBytes;
+	}
+}
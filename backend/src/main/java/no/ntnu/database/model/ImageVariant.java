@@ -0,0 +1,101 @@
+package no.ntnu.database.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+
+
+/**
+ * A rendition of image content at a given width, with its own content in the
+ * {@link no.ntnu.database.storage.BlobStore BlobStore}.
+ *
+ * <p>Renditions belong to content rather than to an {@link Image}, so images sharing
+ * content share renditions. The content itself is recorded as the widest rendition,
+ * so content with renditions is known to be processed even when it is too narrow
+ * to be scaled down.</p>
+ */
+@Entity
+@Table(
+		name = "image_variant",
+		uniqueConstraints = @UniqueConstraint(columnNames = {"source_hash", "width"})
+)
+public final class ImageVariant {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "variant_id")
+	private int variantId;
+
+	@NotNull
+	@Schema(description = "The SHA-256 hash of the content the rendition was made from")
+	@Column(name = "source_hash", length = 64, nullable = false)
+	private String sourceHash;
+
+	@Schema(description = "The width of the rendition in pixels", example = "320")
+	private int width;
+
+	@NotNull
+	@Schema(description = "The SHA-256 hash of the rendition's content")
+	@Column(name = "content_hash", length = 64, nullable = false)
+	private String contentHash;
+
+	@Schema(description = "The length of the rendition's content in bytes")
+	private long contentLength;
+
+	@NotNull
+	@Schema(description = "The file type of the rendition", example = "jpeg")
+	private String imageType;
+
+	/**
+	 * An empty constructor for JPA requirement.
+	 */
+	public ImageVariant() {}
+
+	/**
+	 * Creates a rendition.
+	 *
+	 * @param sourceHash    The hash of the content the rendition was made from
+	 * @param width         The width of the rendition in pixels
+	 * @param contentHash   The hash of the rendition's content
+	 * @param contentLength The length of the rendition's content in bytes
+	 * @param imageType     The file type of the rendition
+	 */
+	public ImageVariant(
+			String sourceHash,
+			int width,
+			String contentHash,
+			long contentLength,
+			String imageType
+	) {
+		this.sourceHash = sourceHash;
+		this.width = width;
+		this.contentHash = contentHash;
+		this.contentLength = contentLength;
+		this.imageType = imageType;
+	}
+
+	public String getSourceHash() {
+		return sourceHash;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	public String getImageType() {
+		return imageType;
+	}
+}
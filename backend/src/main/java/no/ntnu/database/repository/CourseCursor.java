@@ -0,0 +1,68 @@
+package no.ntnu.database.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import no.ntnu.dto.CourseView;
+
+/**
+ * A keyset position in a sorted course listing: the sort key value and id of the last course
+ * on the previous page. The next page starts right after this position.
+ *
+ * <p>Cursors are handed to clients as opaque, URL-safe continuation tokens.</p>
+ *
+ * @param sortKey  The key the listing is sorted by
+ * @param value    The sort key value of the last course, may be null
+ * @param courseId The id of the last course, used as tie-breaker
+ */
+public record CourseCursor(CourseSortKey sortKey, Object value, int courseId) {
+	private static final String SEPARATOR = "|";
+	private static final String NULL_VALUE = "n";
+	private static final String PRESENT_VALUE = "v";
+
+	/**
+	 * Creates the cursor pointing right after a course.
+	 *
+	 * @param sortKey The key the listing is sorted by
+	 * @param course  The last course of a page
+	 * @return The cursor after the course
+	 */
+	public static CourseCursor after(CourseSortKey sortKey, CourseView course) {
+		return new CourseCursor(sortKey, sortKey.keyOf(course), course.courseId());
+	}
+
+	/**
+	 * Encodes the cursor as a continuation token.
+	 *
+	 * @return The token
+	 */
+	public String encode() {
+		String encodedValue = value == null
+				? NULL_VALUE
+				: PRESENT_VALUE + sortKey.formatValue(value);
+		String raw = sortKey.name() + SEPARATOR + courseId + SEPARATOR + encodedValue;
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a continuation token created by {@link #encode()}.
+	 *
+	 * @param token The token
+	 * @return The cursor the token represents
+	 * @throws IllegalArgumentException If the token is not a valid cursor
+	 */
+	public static CourseCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\" + SEPARATOR, 3);
+			CourseSortKey sortKey = CourseSortKey.valueOf(parts[0]);
+			int courseId = Integer.parseInt(parts[1]);
+			Object value = parts[2].startsWith(PRESENT_VALUE)
+					? sortKey.parseValue(parts[2].substring(PRESENT_VALUE.length()))
+					: null;
+			return new CourseCursor(sortKey, value, courseId);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid course cursor", e);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package no.ntnu.database.repository;
+
+import java.util.List;
+
+/**
+ * Repository fragment for keyset ("seek") pagination of courses.
+ * Pages are found with an index range scan that starts right after the cursor,
+ * instead of an {@code OFFSET} that has to skip every previous row.
+ */
+public interface CourseKeysetRepository {
+
+	/**
+	 * Finds the IDs of the courses following a cursor,
+	 * ordered by the sort key and then the course id.
+	 * Courses without a value for the sort key come first, as they do in MySQL's ascending order.
+	 *
+	 * @param sortKey The key to sort by
+	 * @param cursor  The position to start after, or null to start at the beginning
+	 * @param limit   The maximum number of courses to return
+	 * @return The IDs of the courses following the cursor
+	 */
+	List<Integer> findCourseIdsAfter(CourseSortKey sortKey, CourseCursor cursor, int limit);
+}
@@ -0,0 +1,80 @@
+package no.ntnu.database.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import no.ntnu.database.model.Course;
+
+/**
+ * Criteria based implementation of {@link CourseKeysetRepository}.
+ * Picked up by Spring Data through the {@code Impl} suffix.
+ */
+class CourseKeysetRepositoryImpl implements CourseKeysetRepository {
+	private static final String ID_ATTRIBUTE = "courseId";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public List<Integer> findCourseIdsAfter(
+			CourseSortKey sortKey,
+			CourseCursor cursor,
+			int limit
+	) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Integer> query = cb.createQuery(Integer.class);
+		Root<Course> course = query.from(Course.class);
+		Path<Integer> id = course.get(ID_ATTRIBUTE);
+		query.select(id);
+
+		if (sortKey == CourseSortKey.ID) {
+			if (cursor != null) {
+				query.where(cb.greaterThan(id, cursor.courseId()));
+			}
+			query.orderBy(cb.asc(id));
+		} else {
+			Path<Comparable> key = course.get(sortKey.getAttribute());
+			if (cursor != null) {
+				query.where(after(cb, key, id, cursor));
+			}
+			query.orderBy(cb.asc(key), cb.asc(id));
+		}
+
+		return entityManager.createQuery(query)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	/**
+	 * Builds the seek predicate {@code (key, id) > (cursor.value, cursor.id)},
+	 * treating null keys as smaller than every other value.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Predicate after(
+			CriteriaBuilder cb,
+			Path<Comparable> key,
+			Path<Integer> id,
+			CourseCursor cursor
+	) {
+		Predicate predicate;
+		if (cursor.value() == null) {
+			predicate = cb.or(
+					cb.and(cb.isNull(key), cb.greaterThan(id, cursor.courseId())),
+					cb.isNotNull(key)
+			);
+		} else {
+			Comparable value = (Comparable) cursor.value();
+			predicate = cb.or(
+					cb.greaterThan(key, value),
+					cb.and(cb.equal(key, value), cb.greaterThan(id, cursor.courseId()))
+			);
+		}
+		return predicate;
+	}
+}
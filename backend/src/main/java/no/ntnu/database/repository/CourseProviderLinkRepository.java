@@ -1,6 +1,9 @@
 package no.ntnu.database.repository;
 
+import java.util.List;
 import no.ntnu.database.model.CourseProviderLink;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +13,79 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CourseProviderLinkRepository extends CrudRepository<CourseProviderLink,
 											CourseProviderLink.CourseProviderLinkId> {
+	/**
+	 * Returns the currency of every listing, as rows of course ID, provider ID and currency.
+	 *
+	 * @return The currency of every listing
+	 */
+	@Query(value = """
+			SELECT l.id.courseId, l.id.courseProviderId, l.currency
+			FROM CourseProviderLink l
+			"""
+	)
+	List<Object[]> findAllCurrencies();
+
+	/**
+	 * Returns every listing, as rows of course ID, provider ID, price, currency
+	 * and the sale of the course.
+	 *
+	 * @return Every listing
+	 */
+	@Query(value = """
+			SELECT l.id.courseId, l.id.courseProviderId, l.price, l.currency, c.sale
+			FROM CourseProviderLink l
+			JOIN l.course c
+			"""
+	)
+	List<Object[]> findAllPrices();
+
+	/**
+	 * Returns every listing of a provider, as rows of course ID, price and currency.
+	 *
+	 * @param providerId The ID of the provider
+	 * @return The listings of the provider
+	 */
+	@Query(value = """
+			SELECT l.id.courseId, l.price, l.currency
+			FROM CourseProviderLink l
+			WHERE l.id.courseProviderId = :providerId
+			"""
+	)
+	List<Object[]> findPricesByProviderId(@Param("providerId") int providerId);
+
+	/**
+	 * Returns the price of a listing, as a row of price and currency, without loading
+	 * the listing as an entity.
+	 *
+	 * @param courseId   The ID of the listed course
+	 * @param providerId The ID of the provider listing the course
+	 * @return The price, or no rows if the listing does not exist
+	 */
+	@Query(value = """
+			SELECT l.price, l.currency
+			FROM CourseProviderLink l
+			WHERE l.id.courseId = :courseId AND l.id.courseProviderId = :providerId
+			"""
+	)
+	List<Object[]> findPriceById(
+			@Param("courseId") int courseId,
+			@Param("providerId") int providerId
+	);
+
+	/**
+	 * Returns every listing of a course, as rows of provider ID, provider name, price,
+	 * currency and the sale of the course.
+	 *
+	 * @param courseId The ID of the course
+	 * @return The listings of the course
+	 */
+	@Query(value = """
+			SELECT p.courseProviderId, p.providerName, l.price, l.currency, c.sale
+			FROM CourseProviderLink l
+			JOIN l.courseProvider p
+			JOIN l.course c
+			WHERE l.id.courseId = :courseId
+			"""
+	)
+	List<Object[]> findPricesByCourseId(@Param("courseId") int courseId);
 }
@@ -1,7 +1,13 @@
 package no.ntnu.database.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 import no.ntnu.database.model.CourseProvider;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,4 +28,41 @@ public interface CourseProviderRepository extends CrudRepository<CourseProvider,
 	Iterable<CourseProvider> searchProvider(@Param("query") String query);
 
 	Iterable<CourseProvider> findByCourseProviderId(int id);
+
+	/**
+	 * Returns the ID of every provider, without loading the providers.
+	 *
+	 * @return The ID of every provider
+	 */
+	@Query("SELECT p.courseProviderId FROM CourseProvider p")
+	List<Integer> findAllIds();
+
+	/**
+	 * Streams the ID of every provider in order, through a forward-only cursor.
+	 * The stream must be read inside a transaction, and closed afterwards.
+	 *
+	 * @return The ID of every provider, in ascending order
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT p.courseProviderId FROM CourseProvider p ORDER BY p.courseProviderId")
+	Stream<Integer> streamAllIds();
+
+	/**
+	 * Returns the providers with the given IDs, with their price listings loaded.
+	 *
+	 * @param ids The IDs of the providers
+	 * @return The found providers, ordered by ID
+	 */
+	@Query(value = """
+			SELECT DISTINCT p
+			FROM CourseProvider p
+			LEFT JOIN FETCH p.courseProviderLinks
+			WHERE p.courseProviderId IN :ids
+			ORDER BY p.courseProviderId
+			"""
+	)
+	List<CourseProvider> findWithListingsByIdIn(@Param("ids") Collection<Integer> ids);
 }
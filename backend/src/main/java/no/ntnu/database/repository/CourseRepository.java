@@ -1,7 +1,14 @@
 package no.ntnu.database.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 import no.ntnu.database.model.Course;
+import no.ntnu.database.search.CourseDocument;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,15 +17,97 @@ import org.springframework.stereotype.Repository;
  * An interface for SQL access to our database course table.
  */
 @Repository
-public interface CourseRepository extends CrudRepository<Course, Integer> {
+public interface CourseRepository extends CrudRepository<Course, Integer>,
+		CourseKeysetRepository, CourseViewRepository {
 	@Query(value = """
-			SELECT c
+			SELECT c.courseId
 			FROM Course c
 			WHERE REPLACE(c.courseName, ' ', '') LIKE '%' || REPLACE(:#{#query}, ' ', '') || '%'
 			"""
 	)
-	Iterable<Course> searchCourse(@Param("query") String query);
+	List<Integer> searchCourseIds(@Param("query") String query);
 
+	/**
+	 * Returns which of the given IDs belong to a course.
+	 *
+	 * @param ids The IDs to check
+	 * @return The IDs that belong to a course
+	 */
+	@Query("SELECT c.courseId FROM Course c WHERE c.courseId IN :ids")
+	List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 
+	/**
+	 * Returns a reference to a course managed by the current session, without loading it,
+	 * for writes that only need its key.
+	 *
+	 * @param id The ID of the course, which must exist
+	 * @return A reference to the course
+	 */
+	Course getReferenceById(Integer id);
 
+	/**
+	 * Returns the searchable text of every course, without loading the courses themselves.
+	 *
+	 * @return The searchable text of every course
+	 */
+	@Query(value = """
+			SELECT new no.ntnu.database.search.CourseDocument(
+				c.courseId, c.courseName, c.courseDescription, c.relatedCertification
+			)
+			FROM Course c
+			"""
+	)
+	List<CourseDocument> findAllCourseDocuments();
+
+	/**
+	 * Returns the facet values of every course, except for its categories,
+	 * as rows of course ID, difficulty level, start date, credits and hours per week.
+	 *
+	 * @return The facet values of every course
+	 */
+	@Query(value = """
+			SELECT c.courseId, c.difficultyLevel, c.startDate, c.courseCredits, c.hoursPerWeek
+			FROM Course c
+			"""
+	)
+	List<Object[]> findAllFacetValues();
+
+	/**
+	 * Returns which categories every course is in, as rows of course ID and category ID.
+	 *
+	 * @return A row for every course in every category
+	 */
+	@Query(value = """
+			SELECT c.courseId, category.categoryId
+			FROM Course c
+			JOIN c.categories category
+			"""
+	)
+	List<Object[]> findAllCategoryLinks();
+
+	/**
+	 * Returns the IDs of the images used by courses.
+	 *
+	 * @return The ID of every image that belongs to a course
+	 */
+	@Query(value = """
+			SELECT c.image.imageId
+			FROM Course c
+			WHERE c.image IS NOT NULL
+			"""
+	)
+	List<Integer> findAllImageIds();
+
+	/**
+	 * Streams the ID of every course in order, through a forward-only cursor.
+	 * The stream must be read inside a transaction, and closed afterwards.
+	 *
+	 * @return The ID of every course, in ascending order
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT c.courseId FROM Course c ORDER BY c.courseId")
+	Stream<Integer> streamAllIds();
 }
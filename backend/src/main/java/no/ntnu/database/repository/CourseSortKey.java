@@ -0,0 +1,97 @@
+package no.ntnu.database.repository;
+
+import java.util.Date;
+import no.ntnu.database.model.Course;
+import no.ntnu.dto.CourseView;
+
+/**
+ * The stable keys a course listing can be sorted by when paginating with a keyset cursor.
+ * Every key is combined with the course id as a tie-breaker, so the order is always total.
+ */
+public enum CourseSortKey {
+	ID("id", "courseId"),
+	NAME("name", "courseName"),
+	START_DATE("startDate", "startDate"),
+	CREDITS("credits", "courseCredits");
+
+	private final String paramName;
+	private final String attribute;
+
+	CourseSortKey(String paramName, String attribute) {
+		this.paramName = paramName;
+		this.attribute = attribute;
+	}
+
+	/**
+	 * Finds the sort key matching a request parameter value.
+	 *
+	 * @param paramName The parameter value, e.g. {@code "startDate"}
+	 * @return The matching sort key
+	 * @throws IllegalArgumentException If no sort key matches the parameter value
+	 */
+	public static CourseSortKey fromParam(String paramName) {
+		for (CourseSortKey sortKey : values()) {
+			if (sortKey.paramName.equalsIgnoreCase(paramName)) {
+				return sortKey;
+			}
+		}
+		throw new IllegalArgumentException(String.format("Cannot sort courses by \"%s\"", paramName));
+	}
+
+	public String getParamName() {
+		return paramName;
+	}
+
+	/**
+	 * Returns the name of the {@link Course} attribute this key sorts by.
+	 *
+	 * @return The JPA attribute name
+	 */
+	public String getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * Returns the value of this key for a course.
+	 *
+	 * @param course The course to read the key from
+	 * @return The key value, which may be null for nullable attributes
+	 */
+	Object keyOf(CourseView course) {
+		return switch (this) {
+			case ID -> course.courseId();
+			case NAME -> course.courseName();
+			case START_DATE -> course.startDate();
+			case CREDITS -> course.courseCredits();
+		};
+	}
+
+	/**
+	 * Writes a non-null key value as a string, the inverse of {@link #parseValue(String)}.
+	 *
+	 * @param value The key value
+	 * @return The value as a string
+	 */
+	String formatValue(Object value) {
+		return switch (this) {
+			case START_DATE -> String.valueOf(((Date) value).getTime());
+			default -> String.valueOf(value);
+		};
+	}
+
+	/**
+	 * Reads a key value written by {@link #formatValue(Object)}.
+	 *
+	 * @param value The value as a string
+	 * @return The key value
+	 * @throws IllegalArgumentException If the value cannot be parsed
+	 */
+	Object parseValue(String value) {
+		return switch (this) {
+			case ID -> Integer.parseInt(value);
+			case NAME -> value;
+			case START_DATE -> new Date(Long.parseLong(value));
+			case CREDITS -> Double.parseDouble(value);
+		};
+	}
+}
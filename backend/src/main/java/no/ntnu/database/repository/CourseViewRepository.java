@@ -0,0 +1,29 @@
+package no.ntnu.database.repository;
+
+import java.util.Collection;
+import java.util.List;
+import no.ntnu.dto.CourseView;
+
+/**
+ * Repository fragment loading {@link CourseView course views} for listings.
+ * The courses, their price listings and their categories are each loaded with one query,
+ * instead of one query per course for every lazy association.
+ */
+public interface CourseViewRepository {
+
+	/**
+	 * Returns a view of every course, ordered by ID.
+	 *
+	 * @return A view of every course
+	 */
+	List<CourseView> findAllViews();
+
+	/**
+	 * Returns views of the courses with the given IDs, in the order of the IDs.
+	 * IDs without a course are skipped.
+	 *
+	 * @param ids The IDs of the courses
+	 * @return Views of the found courses
+	 */
+	List<CourseView> findViewsById(Collection<Integer> ids);
+}
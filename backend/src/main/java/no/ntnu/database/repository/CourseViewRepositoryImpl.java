@@ -0,0 +1,137 @@
+package no.ntnu.database.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import no.ntnu.dto.CourseView;
+
+/**
+ * JPQL based implementation of {@link CourseViewRepository}.
+ * Picked up by Spring Data through the {@code Impl} suffix.
+ */
+class CourseViewRepositoryImpl implements CourseViewRepository {
+	private static final String COURSES = """
+			SELECT c.courseId AS courseId, c.sale AS sale, c.courseName AS courseName,
+				c.difficultyLevel AS difficultyLevel, c.startDate AS startDate, c.endDate AS endDate,
+				c.courseCredits AS courseCredits, c.hoursPerWeek AS hoursPerWeek,
+				c.relatedCertification AS relatedCertification,
+				c.courseDescription AS courseDescription,
+				i.imageId AS imageId, i.imageType AS imageType, i.altText AS altText,
+				i.contentHash AS contentHash, i.width AS width, i.height AS height
+			FROM Course c
+			LEFT JOIN c.image i
+			""";
+	private static final String LINKS = """
+			SELECT l.id.courseId AS courseId, l.id.courseProviderId AS providerId,
+				l.price AS price, l.currency AS currency
+			FROM CourseProviderLink l
+			""";
+	private static final String CATEGORIES = """
+			SELECT c.courseId AS courseId, category.categoryId AS categoryId,
+				category.categoryName AS categoryName
+			FROM Course c
+			JOIN c.categories category
+			""";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<CourseView> findAllViews() {
+		return assemble(
+				entityManager.createQuery(COURSES + "ORDER BY c.courseId", Tuple.class),
+				entityManager.createQuery(LINKS, Tuple.class),
+				entityManager.createQuery(CATEGORIES, Tuple.class)
+		);
+	}
+
+	@Override
+	public List<CourseView> findViewsById(Collection<Integer> ids) {
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<CourseView> views = assemble(
+				entityManager.createQuery(COURSES + "WHERE c.courseId IN :ids", Tuple.class)
+						.setParameter("ids", ids),
+				entityManager.createQuery(LINKS + "WHERE l.id.courseId IN :ids", Tuple.class)
+						.setParameter("ids", ids),
+				entityManager.createQuery(CATEGORIES + "WHERE c.courseId IN :ids", Tuple.class)
+						.setParameter("ids", ids)
+		);
+
+		Map<Integer, CourseView> byId = new HashMap<>();
+		for (CourseView view : views) {
+			byId.put(view.courseId(), view);
+		}
+		List<CourseView> ordered = new ArrayList<>(views.size());
+		for (int id : ids) {
+			CourseView view = byId.remove(id);
+			if (view != null) {
+				ordered.add(view);
+			}
+		}
+		return ordered;
+	}
+
+	private static List<CourseView> assemble(
+			TypedQuery<Tuple> courseQuery,
+			TypedQuery<Tuple> linkQuery,
+			TypedQuery<Tuple> categoryQuery
+	) {
+		Map<Integer, List<CourseView.Link>> links = new HashMap<>();
+		for (Tuple row : linkQuery.getResultList()) {
+			int courseId = row.get("courseId", Integer.class);
+			links.computeIfAbsent(courseId, id -> new ArrayList<>()).add(new CourseView.Link(
+					new CourseView.LinkId(courseId, row.get("providerId", Integer.class)),
+					row.get("price", Double.class),
+					row.get("currency", String.class)
+			));
+		}
+
+		Map<Integer, List<CourseView.CategoryView>> categories = new HashMap<>();
+		for (Tuple row : categoryQuery.getResultList()) {
+			categories.computeIfAbsent(row.get("courseId", Integer.class), id -> new ArrayList<>())
+					.add(new CourseView.CategoryView(
+							row.get("categoryId", Integer.class),
+							row.get("categoryName", String.class)
+					));
+		}
+
+		Map<Integer, CourseView> views = new LinkedHashMap<>();
+		for (Tuple row : courseQuery.getResultList()) {
+			int courseId = row.get("courseId", Integer.class);
+			Integer imageId = row.get("imageId", Integer.class);
+			views.put(courseId, new CourseView(
+					courseId,
+					row.get("sale", Double.class),
+					row.get("courseName", String.class),
+					row.get("difficultyLevel", String.class),
+					row.get("startDate", Date.class),
+					row.get("endDate", Date.class),
+					row.get("courseCredits", Double.class),
+					row.get("hoursPerWeek", Integer.class),
+					row.get("relatedCertification", String.class),
+					row.get("courseDescription", String.class),
+					links.getOrDefault(courseId, List.of()),
+					categories.getOrDefault(courseId, List.of()),
+					imageId == null ? null : new CourseView.ImageView(
+							imageId,
+							row.get("imageType", String.class),
+							row.get("altText", String.class),
+							row.get("contentHash", String.class),
+							row.get("width", Integer.class),
+							row.get("height", Integer.class)
+					)
+			));
+		}
+		return new ArrayList<>(views.values());
+	}
+}
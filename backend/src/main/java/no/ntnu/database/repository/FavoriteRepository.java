@@ -1,6 +1,8 @@
 package no.ntnu.database.repository;
 
+import java.util.List;
 import no.ntnu.database.model.Favorite;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +13,12 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface FavoriteRepository extends CrudRepository<Favorite, Favorite.FavoriteId> {
 	Iterable<Favorite> findAllByIdUserId(long userId);
+
+	/**
+	 * Returns the key of every favorite entry, as rows of course ID and user ID.
+	 *
+	 * @return The key of every favorite entry
+	 */
+	@Query("SELECT f.id.courseId, f.id.userId FROM Favorite f")
+	List<Object[]> findAllIds();
 }
@@ -0,0 +1,25 @@
+package no.ntnu.database.repository;
+
+import no.ntnu.database.model.ImagePayload;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * An interface for SQL access to the content of images stored in our database image table.
+ */
+@Repository
+public interface ImagePayloadRepository extends CrudRepository<ImagePayload, Integer> {
+	/**
+	 * Drops the content kept in the table, once it is moved to the blob store.
+	 *
+	 * @param id The ID of the image
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "UPDATE image SET image_bytes = NULL WHERE image_id = :id", nativeQuery = true)
+	void clearContent(@Param("id") int id);
+}
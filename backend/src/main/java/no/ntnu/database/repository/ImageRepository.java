@@ -1,7 +1,12 @@
 package no.ntnu.database.repository;
 
+import java.util.List;
+import java.util.Optional;
 import no.ntnu.database.model.Image;
+import no.ntnu.dto.ImageMetadata;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +14,58 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ImageRepository  extends CrudRepository<Image, Integer> {
+	/**
+	 * Returns the IDs of every image, without loading the image data.
+	 *
+	 * @return The ID of every image
+	 */
+	@Query("SELECT i.imageId FROM Image i")
+	List<Integer> findAllIds();
+
+	/**
+	 * Returns the content hash of every image with its content in the blob store.
+	 *
+	 * @return The content hashes, with duplicates for shared content
+	 */
+	@Query("SELECT i.contentHash FROM Image i WHERE i.contentHash IS NOT NULL")
+	List<String> findAllContentHashes();
+
+	/**
+	 * Returns the IDs of the images that still have their content in the table.
+	 *
+	 * @return The IDs of the images to migrate to the blob store
+	 */
+	@Query("SELECT i.imageId FROM Image i WHERE i.contentHash IS NULL ORDER BY i.imageId")
+	List<Integer> findIdsStoredInDatabase();
+
+	/**
+	 * Returns the metadata of an image, without loading the image data.
+	 *
+	 * @param id The ID of the image
+	 * @return The metadata, or an empty Optional if not found
+	 */
+	@Query("""
+			SELECT new no.ntnu.dto.ImageMetadata(
+				i.imageId, i.imageType, i.contentHash, i.contentLength, i.contentModifiedAt
+			)
+			FROM Image i WHERE i.imageId = :id
+			""")
+	Optional<ImageMetadata> findMetadataById(@Param("id") int id);
+
+	/**
+	 * Returns the metadata of the images in the blob store whose content has no renditions,
+	 * without loading the image data.
+	 *
+	 * @return The metadata, with an entry for each image sharing the same content
+	 */
+	@Query("""
+			SELECT new no.ntnu.dto.ImageMetadata(
+				i.imageId, i.imageType, i.contentHash, i.contentLength, i.contentModifiedAt
+			)
+			FROM Image i
+			WHERE i.contentHash IS NOT NULL AND NOT EXISTS (
+				SELECT v.variantId FROM ImageVariant v WHERE v.sourceHash = i.contentHash
+			)
+			""")
+	List<ImageMetadata> findMetadataWithoutVariants();
 }
@@ -0,0 +1,53 @@
+package no.ntnu.database.repository;
+
+import java.util.List;
+import no.ntnu.database.model.ImageVariant;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * An interface for SQL access to our database image variant table.
+ */
+@Repository
+public interface ImageVariantRepository extends CrudRepository<ImageVariant, Integer> {
+	/**
+	 * Returns every rendition of some content.
+	 *
+	 * @param sourceHash The hash of the content
+	 * @return The renditions, narrowest first, or an empty list if the content is not processed
+	 */
+	List<ImageVariant> findBySourceHashOrderByWidth(String sourceHash);
+
+	/**
+	 * Checks whether some content is processed.
+	 *
+	 * @param sourceHash The hash of the content
+	 * @return True if the content has renditions
+	 */
+	boolean existsBySourceHash(String sourceHash);
+
+	/**
+	 * Returns the content hash of every rendition.
+	 *
+	 * @return The content hashes, including those of the processed content itself
+	 */
+	@Query("SELECT v.contentHash FROM ImageVariant v")
+	List<String> findAllContentHashes();
+
+	/**
+	 * Deletes the renditions of content no image points at anymore.
+	 *
+	 * @return The number of deleted renditions
+	 */
+	@Modifying
+	@Transactional
+	@Query("""
+			DELETE FROM ImageVariant v WHERE v.sourceHash NOT IN (
+				SELECT i.contentHash FROM Image i WHERE i.contentHash IS NOT NULL
+			)
+			""")
+	int deleteUnreferenced();
+}
@@ -1,9 +1,16 @@
 package no.ntnu.database.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import no.ntnu.database.model.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repository for SQL-handling of User model.
@@ -15,4 +22,41 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT COUNT(u) FROM users u WHERE u.isTwoFactorEnabled = true")
     long countByTwoFactorEnabledTrue();
+
+    /**
+     * Returns whether every user has two-factor authentication enabled,
+     * as rows of user ID and enabled flag.
+     *
+     * @return The two-factor authentication state of every user
+     */
+    @Query("SELECT u.id, u.isTwoFactorEnabled FROM users u")
+    List<Object[]> findAllTwoFactorStates();
+
+    /**
+     * Streams the ID of every user in order, through a forward-only cursor.
+     * The stream must be read inside a transaction, and closed afterwards.
+     *
+     * @return The ID of every user, in ascending order
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id FROM users u ORDER BY u.id")
+    Stream<Long> streamAllIds();
+
+    /**
+     * Returns the users with the given IDs, with their roles loaded.
+     *
+     * @param ids The IDs of the users
+     * @return The found users, ordered by ID
+     */
+    @Query("""
+            SELECT DISTINCT u
+            FROM users u
+            LEFT JOIN FETCH u.roles
+            WHERE u.id IN :ids
+            ORDER BY u.id
+            """)
+    List<User> findWithRolesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,33 @@
+package no.ntnu.database.search;
+
+import no.ntnu.database.model.Course;
+
+/**
+ * The searchable text of a {@link Course}.
+ *
+ * @param courseId      The course's ID
+ * @param name          The course's name
+ * @param description   The course's description
+ * @param certification The course's related certification
+ */
+public record CourseDocument(
+		int courseId,
+		String name,
+		String description,
+		String certification
+) {
+	/**
+	 * Copies the searchable text of a course.
+	 *
+	 * @param course The course
+	 * @return The searchable text of the course
+	 */
+	public static CourseDocument of(Course course) {
+		return new CourseDocument(
+				course.getCourseId(),
+				course.getCourseName(),
+				course.getCourseDescription(),
+				course.getRelatedCertification()
+		);
+	}
+}
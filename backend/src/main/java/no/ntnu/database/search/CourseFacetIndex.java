@@ -0,0 +1,370 @@
+package no.ntnu.database.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import no.ntnu.dto.CourseFilter;
+
+/**
+ * An in-memory index answering course filters and facet counts with bitsets.
+ *
+ * <p>Every facet value maps to a {@link BitSet} with a bit set for each course having it,
+ * indexed by course ID. Course IDs are dense, so the sets stay compact, and filtering
+ * and counting become word-parallel intersections and population counts.
+ * Start dates are bucketed by month, with the months at the ends of a date range
+ * checked against the exact start dates.</p>
+ *
+ * <p>The index is safe for concurrent use, with filters running in parallel.</p>
+ */
+public class CourseFacetIndex {
+	public static final String CATEGORY = "category";
+	public static final String DIFFICULTY = "difficulty";
+	public static final String START_MONTH = "startMonth";
+	public static final String CREDITS = "credits";
+	public static final String HOURS_PER_WEEK = "hoursPerWeek";
+
+	private static final int FACET_COUNT = 5;
+	private static final int CATEGORY_FACET = 0;
+	private static final int DIFFICULTY_FACET = 1;
+	private static final int START_MONTH_FACET = 2;
+	private static final int CREDITS_FACET = 3;
+	private static final int HOURS_PER_WEEK_FACET = 4;
+
+	private final BitSet all = new BitSet();
+	private final Map<Integer, BitSet> byCategory = new HashMap<>();
+	private final Map<String, BitSet> byDifficulty = new HashMap<>();
+	private final NavigableMap<YearMonth, BitSet> byStartMonth = new TreeMap<>();
+	private final NavigableMap<Double, BitSet> byCredits = new TreeMap<>();
+	private final NavigableMap<Integer, BitSet> byHoursPerWeek = new TreeMap<>();
+	private final Map<Integer, CourseFacets> documents = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * A page of courses matching a filter.
+	 *
+	 * @param courseIds The IDs of the courses on the page, in ascending order
+	 * @param total     The number of courses matching the filter
+	 * @param hasMore   Whether there are more matching courses after this page
+	 * @param facets    The number of matching courses per facet value, by facet name
+	 */
+	public record Page(
+			int[] courseIds,
+			int total,
+			boolean hasMore,
+			Map<String, Map<String, Integer>> facets
+	) {
+	}
+
+	/**
+	 * Adds a course to the index, replacing its previous facet values if it was indexed.
+	 *
+	 * @param facets The facet values of the course
+	 */
+	public void put(CourseFacets facets) {
+		lock.writeLock().lock();
+		try {
+			removeDocument(facets.courseId());
+			int id = facets.courseId();
+			documents.put(id, facets);
+			all.set(id);
+			for (int categoryId : facets.categoryIds()) {
+				bucket(byCategory, categoryId).set(id);
+			}
+			if (facets.difficultyLevel() != null) {
+				bucket(byDifficulty, facets.difficultyLevel()).set(id);
+			}
+			if (facets.startDate() != null) {
+				bucket(byStartMonth, YearMonth.from(facets.startDate())).set(id);
+			}
+			bucket(byCredits, facets.courseCredits()).set(id);
+			bucket(byHoursPerWeek, facets.hoursPerWeek()).set(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a course from the index.
+	 *
+	 * @param courseId The ID of the course
+	 */
+	public void remove(int courseId) {
+		lock.writeLock().lock();
+		try {
+			removeDocument(courseId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a category from the index, as if every course had been taken out of it.
+	 *
+	 * @param categoryId The ID of the category
+	 */
+	public void removeCategory(int categoryId) {
+		lock.writeLock().lock();
+		try {
+			BitSet courses = byCategory.remove(categoryId);
+			if (courses != null) {
+				for (int id = courses.nextSetBit(0); id >= 0; id = courses.nextSetBit(id + 1)) {
+					documents.get(id).categoryIds().remove(categoryId);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every course from the index.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			all.clear();
+			byCategory.clear();
+			byDifficulty.clear();
+			byStartMonth.clear();
+			byCredits.clear();
+			byHoursPerWeek.clear();
+			documents.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of indexed courses.
+	 *
+	 * @return The number of indexed courses
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the courses matching a filter, with the facet counts for the filter.
+	 * The count for a facet value applies the filters on every other facet,
+	 * so selecting more values of a facet never hides the others.
+	 *
+	 * @param filter  The filter to apply
+	 * @param afterId Only return courses with a greater ID than this
+	 * @param limit   The maximum number of course IDs to return
+	 * @return The matching courses after the given ID, with the facet counts
+	 */
+	public Page filter(CourseFilter filter, int afterId, int limit) {
+		lock.readLock().lock();
+		try {
+			BitSet[] masks = new BitSet[FACET_COUNT];
+			masks[CATEGORY_FACET] = categoryMask(filter.categoryIds());
+			masks[DIFFICULTY_FACET] = difficultyMask(filter.difficultyLevels());
+			masks[START_MONTH_FACET] = startDateMask(filter.startFrom(), filter.startTo());
+			masks[CREDITS_FACET] = rangeMask(
+					byCredits, filter.minCredits(), filter.maxCredits()
+			);
+			masks[HOURS_PER_WEEK_FACET] = rangeMask(
+					byHoursPerWeek, filter.minHoursPerWeek(), filter.maxHoursPerWeek()
+			);
+
+			BitSet matches = intersectExcept(masks, -1);
+			int[] page = new int[Math.max(0, Math.min(limit, matches.cardinality()))];
+			int found = 0;
+			int id = matches.nextSetBit(Math.max(0, afterId + 1));
+			while (id >= 0 && found < page.length) {
+				page[found++] = id;
+				id = matches.nextSetBit(id + 1);
+			}
+			int[] courseIds = found == page.length ? page : Arrays.copyOf(page, found);
+
+			Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+			facets.put(CATEGORY, counts(
+					intersectExcept(masks, CATEGORY_FACET), byCategory, String::valueOf
+			));
+			facets.put(DIFFICULTY, counts(
+					intersectExcept(masks, DIFFICULTY_FACET), byDifficulty, Function.identity()
+			));
+			facets.put(START_MONTH, counts(
+					intersectExcept(masks, START_MONTH_FACET), byStartMonth, YearMonth::toString
+			));
+			facets.put(CREDITS, counts(
+					intersectExcept(masks, CREDITS_FACET), byCredits,
+					credits -> BigDecimal.valueOf(credits).stripTrailingZeros().toPlainString()
+			));
+			facets.put(HOURS_PER_WEEK, counts(
+					intersectExcept(masks, HOURS_PER_WEEK_FACET), byHoursPerWeek, String::valueOf
+			));
+			return new Page(courseIds, matches.cardinality(), id >= 0, facets);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeDocument(int courseId) {
+		CourseFacets facets = documents.remove(courseId);
+		if (facets == null) {
+			return;
+		}
+		all.clear(courseId);
+		for (int categoryId : facets.categoryIds()) {
+			unset(byCategory, categoryId, courseId);
+		}
+		if (facets.difficultyLevel() != null) {
+			unset(byDifficulty, facets.difficultyLevel(), courseId);
+		}
+		if (facets.startDate() != null) {
+			unset(byStartMonth, YearMonth.from(facets.startDate()), courseId);
+		}
+		unset(byCredits, facets.courseCredits(), courseId);
+		unset(byHoursPerWeek, facets.hoursPerWeek(), courseId);
+	}
+
+	private BitSet categoryMask(Set<Integer> categoryIds) {
+		if (categoryIds == null || categoryIds.isEmpty()) {
+			return null;
+		}
+		BitSet mask = new BitSet();
+		for (int categoryId : categoryIds) {
+			BitSet courses = byCategory.get(categoryId);
+			if (courses != null) {
+				mask.or(courses);
+			}
+		}
+		return mask;
+	}
+
+	private BitSet difficultyMask(Set<String> difficultyLevels) {
+		if (difficultyLevels == null || difficultyLevels.isEmpty()) {
+			return null;
+		}
+		BitSet mask = new BitSet();
+		for (Map.Entry<String, BitSet> entry : byDifficulty.entrySet()) {
+			for (String level : difficultyLevels) {
+				if (entry.getKey().equalsIgnoreCase(level)) {
+					mask.or(entry.getValue());
+					break;
+				}
+			}
+		}
+		return mask;
+	}
+
+	private BitSet startDateMask(LocalDate from, LocalDate to) {
+		if (from == null && to == null) {
+			return null;
+		}
+		BitSet mask = new BitSet();
+		if (from != null && to != null && from.isAfter(to)) {
+			return mask;
+		}
+		NavigableMap<YearMonth, BitSet> months = byStartMonth;
+		if (from != null) {
+			months = months.tailMap(YearMonth.from(from), true);
+		}
+		if (to != null) {
+			months = months.headMap(YearMonth.from(to), true);
+		}
+		for (BitSet courses : months.values()) {
+			mask.or(courses);
+		}
+		if (from != null && from.getDayOfMonth() > 1) {
+			excludeOutside(mask, byStartMonth.get(YearMonth.from(from)), from, to);
+		}
+		if (to != null && to.getDayOfMonth() < to.lengthOfMonth()) {
+			excludeOutside(mask, byStartMonth.get(YearMonth.from(to)), from, to);
+		}
+		return mask;
+	}
+
+	private void excludeOutside(BitSet mask, BitSet edge, LocalDate from, LocalDate to) {
+		if (edge == null) {
+			return;
+		}
+		for (int id = edge.nextSetBit(0); id >= 0; id = edge.nextSetBit(id + 1)) {
+			LocalDate startDate = documents.get(id).startDate();
+			if ((from != null && startDate.isBefore(from)) || (to != null && startDate.isAfter(to))) {
+				mask.clear(id);
+			}
+		}
+	}
+
+	private static <K extends Comparable<K>> BitSet rangeMask(
+			NavigableMap<K, BitSet> buckets, K min, K max
+	) {
+		if (min == null && max == null) {
+			return null;
+		}
+		BitSet mask = new BitSet();
+		if (min != null && max != null && min.compareTo(max) > 0) {
+			return mask;
+		}
+		NavigableMap<K, BitSet> range = buckets;
+		if (min != null) {
+			range = range.tailMap(min, true);
+		}
+		if (max != null) {
+			range = range.headMap(max, true);
+		}
+		for (BitSet courses : range.values()) {
+			mask.or(courses);
+		}
+		return mask;
+	}
+
+	private BitSet intersectExcept(BitSet[] masks, int excludedFacet) {
+		BitSet result = (BitSet) all.clone();
+		for (int facet = 0; facet < masks.length; facet++) {
+			if (facet != excludedFacet && masks[facet] != null) {
+				result.and(masks[facet]);
+			}
+		}
+		return result;
+	}
+
+	private static <K> Map<String, Integer> counts(
+			BitSet base, Map<K, BitSet> buckets, Function<K, String> label
+	) {
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		BitSet scratch = new BitSet();
+		for (Map.Entry<K, BitSet> entry : buckets.entrySet()) {
+			scratch.clear();
+			scratch.or(base);
+			scratch.and(entry.getValue());
+			int count = scratch.cardinality();
+			if (count > 0) {
+				counts.put(label.apply(entry.getKey()), count);
+			}
+		}
+		return counts;
+	}
+
+	private static <K> BitSet bucket(Map<K, BitSet> buckets, K key) {
+		return buckets.computeIfAbsent(key, k -> new BitSet());
+	}
+
+	private static <K> void unset(Map<K, BitSet> buckets, K key, int courseId) {
+		BitSet courses = buckets.get(key);
+		if (courses != null) {
+			courses.clear(courseId);
+			if (courses.isEmpty()) {
+				buckets.remove(key);
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package no.ntnu.database.search;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import no.ntnu.database.model.Category;
+import no.ntnu.database.model.Course;
+
+/**
+ * The facet values of a {@link Course}, as stored in a {@link CourseFacetIndex}.
+ *
+ * @param courseId        The course's ID
+ * @param categoryIds     The IDs of the categories containing the course
+ * @param difficultyLevel The course's difficulty level, may be null
+ * @param startDate       The course's start date, may be null
+ * @param courseCredits   The number of credits the course is worth
+ * @param hoursPerWeek    The course's hours per week
+ */
+public record CourseFacets(
+		int courseId,
+		Set<Integer> categoryIds,
+		String difficultyLevel,
+		LocalDate startDate,
+		double courseCredits,
+		int hoursPerWeek
+) {
+	/**
+	 * Copies the facet values of a course.
+	 *
+	 * @param course The course
+	 * @return The facet values of the course
+	 */
+	public static CourseFacets of(Course course) {
+		Set<Integer> categoryIds = new HashSet<>();
+		for (Category category : course.getCategories()) {
+			categoryIds.add(category.getCategoryId());
+		}
+		return new CourseFacets(
+				course.getCourseId(),
+				categoryIds,
+				course.getDifficultyLevel(),
+				toLocalDate(course.getStartDate()),
+				course.getCourseCredits(),
+				course.getHoursPerWeek()
+		);
+	}
+
+	/**
+	 * Converts a date read from the database to a local date.
+	 * Goes through the epoch time, as {@link java.sql.Date#toInstant()} is unsupported.
+	 *
+	 * @param date The date, may be null
+	 * @return The local date, or null if the date was null
+	 */
+	public static LocalDate toLocalDate(Date date) {
+		return date == null
+				? null
+				: LocalDate.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault());
+	}
+}
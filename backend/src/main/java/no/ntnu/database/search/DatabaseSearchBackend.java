@@ -0,0 +1,52 @@
+package no.ntnu.database.search;
+
+import java.util.List;
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.dto.CourseSearchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Search backend running {@code LIKE} queries directly against the database.
+ * Needs no memory, but scans the whole table on every search, and does not rank results.
+ * Enabled with {@code search.backend=database}.
+ */
+@Component
+@ConditionalOnProperty(name = "search.backend", havingValue = "database")
+public class DatabaseSearchBackend implements SearchBackend {
+	private final CourseRepository courseRepository;
+	private final CourseProviderRepository providerRepository;
+
+	/**
+	 * Creates the backend.
+	 *
+	 * @param courseRepository   The repository to search for courses in
+	 * @param providerRepository The repository to search for providers in
+	 */
+	@Autowired
+	public DatabaseSearchBackend(
+			CourseRepository courseRepository,
+			CourseProviderRepository providerRepository
+	) {
+		this.courseRepository = courseRepository;
+		this.providerRepository = providerRepository;
+	}
+
+	@Override
+	public CourseSearchResult searchCourses(String query, int limit) {
+		List<Integer> ids = courseRepository.searchCourseIds(query);
+		return new CourseSearchResult(
+				courseRepository.findViewsById(ids.subList(0, Math.min(limit, ids.size()))),
+				ids.size(),
+				null
+		);
+	}
+
+	@Override
+	public Iterable<CourseProvider> searchProviders(String query) {
+		return providerRepository.searchProvider(query);
+	}
+}
@@ -0,0 +1,183 @@
+package no.ntnu.database.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A symmetric delete spelling dictionary. Every known term is stored under each string
+ * reachable by deleting up to a few of its characters. A misspelled word then finds its
+ * candidate terms by looking up its own deletes, and only those few candidates are compared
+ * with a real edit distance, instead of comparing the word with every term.
+ *
+ * <p>The allowed edit distance grows with the word's length: short words must match exactly,
+ * words of four to six letters may have one typo, and longer words two.</p>
+ *
+ * <p>Not thread safe; the owning index guards it with its own lock.</p>
+ */
+final class DeleteDictionary {
+	private final Map<String, Set<String>> termsByDelete = new HashMap<>();
+
+	/**
+	 * A known term close to a looked up word.
+	 *
+	 * @param term     The known term
+	 * @param distance The edit distance between the word and the term
+	 */
+	record Correction(String term, int distance) {
+	}
+
+	/**
+	 * Returns how many edits a word of a given length may be away from a term.
+	 *
+	 * @param length The word length
+	 * @return The maximum edit distance
+	 */
+	static int maxEdits(int length) {
+		int edits;
+		if (length < 4) {
+			edits = 0;
+		} else if (length < 7) {
+			edits = 1;
+		} else {
+			edits = 2;
+		}
+		return edits;
+	}
+
+	/**
+	 * Adds a term.
+	 *
+	 * @param term The term to add
+	 */
+	void add(String term) {
+		for (String delete : deletes(term, termEdits(term))) {
+			termsByDelete.computeIfAbsent(delete, d -> new HashSet<>()).add(term);
+		}
+	}
+
+	/**
+	 * Removes a term.
+	 *
+	 * @param term The term to remove
+	 */
+	void remove(String term) {
+		for (String delete : deletes(term, termEdits(term))) {
+			Set<String> terms = termsByDelete.get(delete);
+			if (terms != null) {
+				terms.remove(term);
+				if (terms.isEmpty()) {
+					termsByDelete.remove(delete);
+				}
+			}
+		}
+	}
+
+	void clear() {
+		termsByDelete.clear();
+	}
+
+	/**
+	 * Finds the known terms closest to a word, within the word's allowed edit distance.
+	 *
+	 * @param word The word to look up
+	 * @return Every term at the smallest distance found, or an empty list if none are close
+	 */
+	List<Correction> lookup(String word) {
+		int maxEdits = maxEdits(word.length());
+		int best = Integer.MAX_VALUE;
+		List<Correction> closest = new ArrayList<>();
+		Set<String> compared = new HashSet<>();
+		for (String delete : deletes(word, maxEdits)) {
+			for (String term : termsByDelete.getOrDefault(delete, Set.of())) {
+				if (compared.add(term)) {
+					int distance = distance(word, term, Math.min(maxEdits, best));
+					if (distance > maxEdits) {
+						continue;
+					}
+					if (distance < best) {
+						best = distance;
+						closest.clear();
+					}
+					if (distance == best) {
+						closest.add(new Correction(term, distance));
+					}
+				}
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * Terms store deletes one step further than their own limit,
+	 * so slightly longer misspellings still find them.
+	 */
+	private static int termEdits(String term) {
+		return maxEdits(term.length() + 1);
+	}
+
+	private static Set<String> deletes(String word, int edits) {
+		Set<String> deletes = new HashSet<>();
+		deletes.add(word);
+		List<String> frontier = List.of(word);
+		for (int step = 0; step < edits; step++) {
+			List<String> next = new ArrayList<>();
+			for (String current : frontier) {
+				for (int i = 0; i < current.length(); i++) {
+					String delete = current.substring(0, i) + current.substring(i + 1);
+					if (deletes.add(delete)) {
+						next.add(delete);
+					}
+				}
+			}
+			frontier = next;
+		}
+		return deletes;
+	}
+
+	/**
+	 * Optimal string alignment distance (Levenshtein with adjacent transpositions),
+	 * giving up as soon as it is certain to exceed {@code max}.
+	 *
+	 * @return The distance, or {@link Integer#MAX_VALUE} if it is larger than {@code max}
+	 */
+	static int distance(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max) {
+			return Integer.MAX_VALUE;
+		}
+		int[] previousPrevious = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = current[0];
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(
+						Math.min(previous[j] + 1, current[j - 1] + 1),
+						previous[j - 1] + cost
+				);
+				if (i > 1 && j > 1
+						&& a.charAt(i - 1) == b.charAt(j - 2)
+						&& a.charAt(i - 2) == b.charAt(j - 1)) {
+					current[j] = Math.min(current[j], previousPrevious[j - 2] + 1);
+				}
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > max) {
+				return Integer.MAX_VALUE;
+			}
+			int[] recycled = previousPrevious;
+			previousPrevious = previous;
+			previous = current;
+			current = recycled;
+		}
+		return previous[b.length()] > max ? Integer.MAX_VALUE : previous[b.length()];
+	}
+}
@@ -0,0 +1,139 @@
+package no.ntnu.database.search;
+
+import java.util.Arrays;
+import java.util.List;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.event.ProviderSavedEvent;
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.dto.CourseSearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Search backend answering searches from in-process {@link NGramIndex n-gram indexes}.
+ * Courses are indexed by name, description and related certification,
+ * providers by name. Course results are ranked by relevance with a {@link RankedTextIndex},
+ * which also tolerates typos.
+ *
+ * <p>The indexes are built from the database once the application is ready,
+ * and kept up to date from the events published by the course and provider services.
+ * This is the default backend, and can be selected explicitly with
+ * {@code search.backend=memory}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "search.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemorySearchBackend implements SearchBackend {
+	private static final Logger LOGGER = LoggerFactory.getLogger(InMemorySearchBackend.class);
+	private static final double NAME_WEIGHT = 3;
+	private static final double DESCRIPTION_WEIGHT = 1;
+	private static final double CERTIFICATION_WEIGHT = 1.5;
+
+	private final CourseRepository courseRepository;
+	private final CourseProviderRepository providerRepository;
+	private final NGramIndex courseIndex = new NGramIndex();
+	private final RankedTextIndex courseRanking = new RankedTextIndex(
+			NAME_WEIGHT, DESCRIPTION_WEIGHT, CERTIFICATION_WEIGHT
+	);
+	private final NGramIndex providerIndex = new NGramIndex();
+
+	/**
+	 * Creates the backend.
+	 *
+	 * @param courseRepository   The repository to load courses from
+	 * @param providerRepository The repository to load providers from
+	 */
+	@Autowired
+	public InMemorySearchBackend(
+			CourseRepository courseRepository,
+			CourseProviderRepository providerRepository
+	) {
+		this.courseRepository = courseRepository;
+		this.providerRepository = providerRepository;
+	}
+
+	/**
+	 * Rebuilds both indexes from the database.
+	 */
+	@EventListener({ApplicationReadyEvent.class, CoursesImportedEvent.class})
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		courseIndex.clear();
+		courseRanking.clear();
+		for (CourseDocument document : courseRepository.findAllCourseDocuments()) {
+			indexCourse(document);
+		}
+		providerIndex.clear();
+		for (CourseProvider provider : providerRepository.findAll()) {
+			providerIndex.put(provider.getCourseProviderId(), provider.getProviderName());
+		}
+		LOGGER.info("Indexed {} courses and {} providers for search in {} ms",
+				courseIndex.size(), providerIndex.size(), System.currentTimeMillis() - start);
+	}
+
+	@EventListener
+	public void onCourseSaved(CourseSavedEvent event) {
+		indexCourse(CourseDocument.of(event.course()));
+	}
+
+	@EventListener
+	public void onCourseDeleted(CourseDeletedEvent event) {
+		courseIndex.remove(event.courseId());
+		courseRanking.remove(event.courseId());
+	}
+
+	@EventListener
+	public void onProviderSaved(ProviderSavedEvent event) {
+		CourseProvider provider = event.provider();
+		providerIndex.put(provider.getCourseProviderId(), provider.getProviderName());
+	}
+
+	@EventListener
+	public void onProviderDeleted(ProviderDeletedEvent event) {
+		providerIndex.remove(event.providerId());
+	}
+
+	private void indexCourse(CourseDocument document) {
+		courseIndex.put(
+				document.courseId(),
+				document.name(),
+				document.description(),
+				document.certification()
+		);
+		courseRanking.put(
+				document.courseId(),
+				document.name(),
+				document.description(),
+				document.certification()
+		);
+	}
+
+	@Override
+	public CourseSearchResult searchCourses(String query, int limit) {
+		RankedTextIndex.Hits hits = courseRanking.search(query, limit, courseIndex.search(query));
+
+		return new CourseSearchResult(
+				courseRepository.findViewsById(toList(hits.ids())), hits.total(), hits.suggestion()
+		);
+	}
+
+	@Override
+	public Iterable<CourseProvider> searchProviders(String query) {
+		return providerRepository.findAllById(toList(providerIndex.search(query)));
+	}
+
+	private static List<Integer> toList(int[] ids) {
+		return Arrays.stream(ids).boxed().toList();
+	}
+}
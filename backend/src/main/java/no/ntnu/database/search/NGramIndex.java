@@ -0,0 +1,219 @@
+package no.ntnu.database.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory inverted index from character n-grams to document IDs, answering
+ * "contains this substring" queries without scanning every document.
+ *
+ * <p>Text is normalized before indexing and searching: it is lowercased, accents are removed
+ * and whitespace is dropped, mirroring the old {@code REPLACE(name, ' ', '') LIKE '%q%'}
+ * query on a case and accent insensitive collation. Every 1-, 2- and 3-gram is indexed,
+ * so short queries are a single lookup, and longer queries intersect the trigram postings
+ * before verifying the remaining candidates.</p>
+ *
+ * <p>Thread safe. Searches run concurrently; updates are exclusive.</p>
+ */
+public class NGramIndex {
+	private static final int GRAM_LENGTH = 3;
+	/**
+	 * Separates the fields of a document. Never part of a normalized query,
+	 * so no match can span two fields.
+	 */
+	private static final char FIELD_SEPARATOR = '\u0000';
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final Map<Long, PostingList> postings = new HashMap<>();
+	private final Map<Integer, String> documents = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Normalizes text the same way documents and queries are normalized.
+	 *
+	 * @param text The text to normalize, may be null
+	 * @return The normalized text, empty if the text was null
+	 */
+	public static String normalize(String text) {
+		String normalized = "";
+		if (text != null) {
+			normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+			normalized = DIACRITICS.matcher(normalized).replaceAll("");
+			normalized = WHITESPACE.matcher(normalized).replaceAll("").toLowerCase();
+		}
+		return normalized;
+	}
+
+	/**
+	 * Adds a document, or replaces it if a document with the same ID is already indexed.
+	 *
+	 * @param id     The document ID
+	 * @param fields The searchable text fields of the document, nulls are ignored
+	 */
+	public void put(int id, String... fields) {
+		StringBuilder text = new StringBuilder();
+		for (String field : fields) {
+			if (field != null) {
+				text.append(normalize(field)).append(FIELD_SEPARATOR);
+			}
+		}
+		String document = text.toString();
+
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(id);
+			documents.put(id, document);
+			for (long gram : grams(document)) {
+				postings.computeIfAbsent(gram, g -> new PostingList()).add(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a document from the index.
+	 *
+	 * @param id The document ID
+	 */
+	public void remove(int id) {
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every document from the index.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			documents.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of indexed documents.
+	 *
+	 * @return The number of documents
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds every document where any field contains the query, ignoring case,
+	 * accents and whitespace.
+	 *
+	 * @param query The text to look for
+	 * @return The IDs of the matching documents, in ascending order
+	 */
+	public int[] search(String query) {
+		String normalized = normalize(query);
+		if (normalized.isEmpty()) {
+			return new int[0];
+		}
+
+		lock.readLock().lock();
+		try {
+			int[] result;
+			if (normalized.length() <= GRAM_LENGTH) {
+				PostingList list = postings.get(gram(normalized, 0, normalized.length()));
+				result = list == null ? new int[0] : list.toArray();
+			} else {
+				result = searchLong(normalized);
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int[] searchLong(String normalized) {
+		List<PostingList> lists = new ArrayList<>();
+		for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+			PostingList list = postings.get(gram(normalized, i, GRAM_LENGTH));
+			if (list == null) {
+				return new int[0];
+			}
+			lists.add(list);
+		}
+
+		//Intersect the rarest grams first to keep the candidate set small.
+		lists.sort(Comparator.comparingInt(PostingList::size));
+		int[] candidates = lists.get(0).toArray();
+		for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+			candidates = lists.get(i).retainIn(candidates);
+		}
+
+		//Every gram being present does not mean they are adjacent, so verify the candidates.
+		int count = 0;
+		for (int id : candidates) {
+			if (documents.get(id).contains(normalized)) {
+				candidates[count++] = id;
+			}
+		}
+		return Arrays.copyOf(candidates, count);
+	}
+
+	private void removeUnlocked(int id) {
+		String document = documents.remove(id);
+		if (document != null) {
+			for (long gram : grams(document)) {
+				PostingList list = postings.get(gram);
+				if (list != null) {
+					list.remove(id);
+					if (list.isEmpty()) {
+						postings.remove(gram);
+					}
+				}
+			}
+		}
+	}
+
+	private static Set<Long> grams(String document) {
+		Set<Long> grams = new HashSet<>();
+		for (int start = 0; start < document.length(); start++) {
+			for (int length = 1;
+					length <= GRAM_LENGTH && start + length <= document.length()
+							&& document.charAt(start + length - 1) != FIELD_SEPARATOR;
+					length++) {
+				grams.add(gram(document, start, length));
+			}
+		}
+		return grams;
+	}
+
+	/**
+	 * Packs up to three UTF-16 chars and the gram length into one key.
+	 */
+	private static long gram(String text, int start, int length) {
+		long key = length;
+		for (int i = start; i < start + length; i++) {
+			key = (key << 16) | text.charAt(i);
+		}
+		return key;
+	}
+}
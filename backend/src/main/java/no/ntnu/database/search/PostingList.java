@@ -0,0 +1,88 @@
+package no.ntnu.database.search;
+
+import java.util.Arrays;
+
+/**
+ * A growable, sorted set of document IDs backed by a primitive array.
+ * Not thread safe; the owning index guards it with its own lock.
+ */
+final class PostingList {
+	private static final int INITIAL_CAPACITY = 4;
+
+	private int[] ids = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Adds a document ID, keeping the list sorted.
+	 *
+	 * @param id The ID to add
+	 */
+	void add(int id) {
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		if (index < 0) {
+			int insertAt = -index - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+			ids[insertAt] = id;
+			size++;
+		}
+	}
+
+	/**
+	 * Removes a document ID.
+	 *
+	 * @param id The ID to remove
+	 */
+	void remove(int id) {
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		if (index >= 0) {
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			size--;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns a copy of the IDs in ascending order.
+	 *
+	 * @return The IDs
+	 */
+	int[] toArray() {
+		return Arrays.copyOf(ids, size);
+	}
+
+	/**
+	 * Keeps only the IDs of {@code candidates} that are also in this list.
+	 * Both arrays are sorted, so this is a single merge pass.
+	 *
+	 * @param candidates Sorted IDs to intersect with
+	 * @return The sorted intersection
+	 */
+	int[] retainIn(int[] candidates) {
+		int[] result = new int[Math.min(candidates.length, size)];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < candidates.length && j < size) {
+			if (candidates[i] < ids[j]) {
+				i++;
+			} else if (candidates[i] > ids[j]) {
+				j++;
+			} else {
+				result[count++] = candidates[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+}
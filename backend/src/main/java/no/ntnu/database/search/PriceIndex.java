@@ -0,0 +1,455 @@
+package no.ntnu.database.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import no.ntnu.currency.RateSnapshot;
+
+/**
+ * An in-memory index ranking courses by their lowest price, to sort and filter the catalog
+ * by price in any currency.
+ *
+ * <p>Every course with a price listing is ranked by its lowest effective price, the price of
+ * a listing with the sale of the course taken off, in {@value #BASE_CURRENCY}. The ranking is
+ * kept in two parallel primitive arrays, sorted by price and then by course ID. Converting
+ * to another currency multiplies every price by the same rate, so the order holds in every
+ * currency, and a lookup takes a binary search and one multiplication per course returned.</p>
+ *
+ * <p>A changed course is moved within the arrays. When the exchange rates change, every
+ * price is converted again and the arrays are sorted anew. Listings in currencies without
+ * a rate are left out until a rate arrives.</p>
+ *
+ * <p>Thread safe. Lookups run concurrently; updates are exclusive.</p>
+ */
+public class PriceIndex {
+	public static final String BASE_CURRENCY = "USD";
+
+	private static final String SEPARATOR = "|";
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Map<Integer, CourseListings> courses = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private RateSnapshot rates = RateSnapshot.EMPTY;
+	private int[] rankedIds = new int[INITIAL_CAPACITY];
+	private double[] rankedPrices = new double[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * A provider's price listing of a course.
+	 *
+	 * @param courseId   The ID of the course
+	 * @param providerId The ID of the provider
+	 * @param price      The price of the listing
+	 * @param currency   The currency of the price
+	 * @param sale       The sale of the course, in percent off
+	 */
+	public record Listing(
+			int courseId,
+			int providerId,
+			double price,
+			String currency,
+			double sale
+	) {
+	}
+
+	/**
+	 * A position in the ranking: the base price and ID of the last course on a page.
+	 *
+	 * @param price    The lowest effective price of the course, in {@value #BASE_CURRENCY}
+	 * @param courseId The ID of the course
+	 */
+	public record Cursor(double price, int courseId) {
+		/**
+		 * Encodes the cursor as an opaque, URL-safe continuation token.
+		 *
+		 * @return The token
+		 */
+		public String encode() {
+			String raw = Long.toHexString(Double.doubleToLongBits(price)) + SEPARATOR + courseId;
+			return Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * Decodes a continuation token created by {@link #encode()}.
+		 *
+		 * @param token The token
+		 * @return The cursor the token represents
+		 * @throws IllegalArgumentException If the token is not a valid cursor
+		 */
+		public static Cursor decode(String token) {
+			try {
+				byte[] decoded = Base64.getUrlDecoder().decode(token);
+				String raw = new String(decoded, StandardCharsets.UTF_8);
+				String[] parts = raw.split("\\" + SEPARATOR, 2);
+				return new Cursor(
+						Double.longBitsToDouble(Long.parseUnsignedLong(parts[0], 16)),
+						Integer.parseInt(parts[1])
+				);
+			} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("Invalid price cursor", e);
+			}
+		}
+	}
+
+	/**
+	 * A page of courses, cheapest first.
+	 *
+	 * @param courseIds The IDs of the courses on the page
+	 * @param prices    The lowest effective price of each course, in the currency asked for
+	 * @param next      The position after the last course, or null if no courses follow
+	 */
+	public record Page(int[] courseIds, double[] prices, Cursor next) {
+	}
+
+	private static final class CourseListings {
+		private final Map<Integer, Listing> byProvider = new HashMap<>();
+		private double sale;
+		//The price the course is ranked at, or NaN if it is not ranked.
+		private double rankedPrice = Double.NaN;
+	}
+
+	/**
+	 * Replaces every listing and the rates, and ranks the courses from scratch.
+	 *
+	 * @param listings The listings of every course
+	 * @param newRates The current exchange rates
+	 */
+	public void replaceAll(Collection<Listing> listings, RateSnapshot newRates) {
+		lock.writeLock().lock();
+		try {
+			courses.clear();
+			for (Listing listing : listings) {
+				CourseListings course = courses.computeIfAbsent(
+						listing.courseId(), id -> new CourseListings()
+				);
+				course.byProvider.put(listing.providerId(), listing);
+				course.sale = listing.sale();
+			}
+			rates = newRates;
+			rankAll();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replaces the exchange rates, and ranks the courses again at the new rates.
+	 *
+	 * @param newRates The new exchange rates
+	 */
+	public void setRates(RateSnapshot newRates) {
+		lock.writeLock().lock();
+		try {
+			rates = newRates;
+			rankAll();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a listing, or replaces the listing of the same course and provider.
+	 *
+	 * @param listing The listing
+	 */
+	public void put(Listing listing) {
+		lock.writeLock().lock();
+		try {
+			CourseListings course = courses.computeIfAbsent(
+					listing.courseId(), id -> new CourseListings()
+			);
+			course.byProvider.put(listing.providerId(), listing);
+			course.sale = listing.sale();
+			rank(listing.courseId(), course);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a listing of a course that already has listings, or replaces the listing of the
+	 * same course and provider, keeping the sale of the course.
+	 *
+	 * @param courseId   The ID of the course
+	 * @param providerId The ID of the provider
+	 * @param price      The price of the listing
+	 * @param currency   The currency of the price
+	 * @return False if the course has no listings, so its sale is not known
+	 */
+	public boolean putIfListed(int courseId, int providerId, double price, String currency) {
+		lock.writeLock().lock();
+		try {
+			CourseListings course = courses.get(courseId);
+			if (course == null) {
+				return false;
+			}
+			course.byProvider.put(
+					providerId, new Listing(courseId, providerId, price, currency, course.sale)
+			);
+			rank(courseId, course);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the listing of a course by a provider.
+	 *
+	 * @param courseId   The ID of the course
+	 * @param providerId The ID of the provider
+	 */
+	public void remove(int courseId, int providerId) {
+		lock.writeLock().lock();
+		try {
+			CourseListings course = courses.get(courseId);
+			if (course != null && course.byProvider.remove(providerId) != null) {
+				rank(courseId, course);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Changes the sale of a course, if it has any listings.
+	 *
+	 * @param courseId The ID of the course
+	 * @param sale     The new sale, in percent off
+	 */
+	public void setSale(int courseId, double sale) {
+		lock.writeLock().lock();
+		try {
+			CourseListings course = courses.get(courseId);
+			if (course != null && course.sale != sale) {
+				course.sale = sale;
+				rank(courseId, course);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every listing of a course.
+	 *
+	 * @param courseId The ID of the course
+	 */
+	public void removeCourse(int courseId) {
+		lock.writeLock().lock();
+		try {
+			CourseListings course = courses.get(courseId);
+			if (course != null) {
+				course.byProvider.clear();
+				rank(courseId, course);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every listing by a provider.
+	 *
+	 * @param providerId The ID of the provider
+	 */
+	public void removeProvider(int providerId) {
+		lock.writeLock().lock();
+		try {
+			for (Map.Entry<Integer, CourseListings> course : Map.copyOf(courses).entrySet()) {
+				if (course.getValue().byProvider.remove(providerId) != null) {
+					rank(course.getKey(), course.getValue());
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of ranked courses.
+	 *
+	 * @return The number of courses with a price
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the cheapest courses, optionally up to a price.
+	 *
+	 * @param currency The currency to give the prices in
+	 * @param maxPrice The highest price to include, in that currency, or null for no limit
+	 * @param after    The position to continue after, or null to start with the cheapest course
+	 * @param limit    The maximum number of courses
+	 * @return The courses, cheapest first
+	 * @throws IllegalArgumentException If the currency is not tracked
+	 */
+	public Page find(String currency, Double maxPrice, Cursor after, int limit) {
+		lock.readLock().lock();
+		try {
+			double rate = BASE_CURRENCY.equalsIgnoreCase(currency)
+					? 1
+					: rates.rate(BASE_CURRENCY, currency);
+			int start = after == null ? 0 : positionAfter(after.price(), after.courseId());
+			int end = maxPrice == null ? size : endAtPrice(rate, maxPrice);
+			int count = Math.max(0, Math.min(limit, end - start));
+			int[] courseIds = Arrays.copyOfRange(rankedIds, start, start + count);
+			double[] prices = new double[count];
+			for (int i = 0; i < count; i++) {
+				prices[i] = rankedPrices[start + i] * rate;
+			}
+			Cursor next = null;
+			if (count > 0 && start + count < end) {
+				int last = start + count - 1;
+				next = new Cursor(rankedPrices[last], rankedIds[last]);
+			}
+			return new Page(courseIds, prices, next);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Ranks every course at the current rates. The prices are sorted once, and the courses
+	 * are then sorted by the position of their price and their ID packed into one long,
+	 * so both sorts run on primitive arrays.
+	 */
+	private void rankAll() {
+		courses.values().removeIf(course -> course.byProvider.isEmpty());
+		int[] ids = new int[courses.size()];
+		double[] prices = new double[courses.size()];
+		int count = 0;
+		for (Map.Entry<Integer, CourseListings> course : courses.entrySet()) {
+			double price = lowestPrice(course.getValue());
+			course.getValue().rankedPrice = price;
+			if (!Double.isNaN(price)) {
+				ids[count] = course.getKey();
+				prices[count] = price;
+				count++;
+			}
+		}
+		double[] sortedPrices = Arrays.copyOf(prices, count);
+		Arrays.sort(sortedPrices);
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++) {
+			long position = Arrays.binarySearch(sortedPrices, prices[i]);
+			keys[i] = position << Integer.SIZE | Integer.toUnsignedLong(ids[i]);
+		}
+		Arrays.sort(keys);
+
+		int capacity = Math.max(INITIAL_CAPACITY, count);
+		rankedIds = new int[capacity];
+		rankedPrices = new double[capacity];
+		for (int i = 0; i < count; i++) {
+			rankedIds[i] = (int) keys[i];
+			rankedPrices[i] = sortedPrices[(int) (keys[i] >>> Integer.SIZE)];
+		}
+		size = count;
+	}
+
+	/**
+	 * Moves a course to its place in the ranking after it changed.
+	 */
+	private void rank(int courseId, CourseListings course) {
+		if (!Double.isNaN(course.rankedPrice)) {
+			//The course is the first one after its price and the ID before its own.
+			int index = positionAfter(course.rankedPrice, courseId - 1);
+			System.arraycopy(rankedIds, index + 1, rankedIds, index, size - index - 1);
+			System.arraycopy(rankedPrices, index + 1, rankedPrices, index, size - index - 1);
+			size--;
+		}
+		double price = lowestPrice(course);
+		course.rankedPrice = price;
+		if (!Double.isNaN(price)) {
+			if (size == rankedIds.length) {
+				rankedIds = Arrays.copyOf(rankedIds, size * 2);
+				rankedPrices = Arrays.copyOf(rankedPrices, size * 2);
+			}
+			int index = positionAfter(price, courseId);
+			System.arraycopy(rankedIds, index, rankedIds, index + 1, size - index);
+			System.arraycopy(rankedPrices, index, rankedPrices, index + 1, size - index);
+			rankedIds[index] = courseId;
+			rankedPrices[index] = price;
+			size++;
+		} else if (course.byProvider.isEmpty()) {
+			courses.remove(courseId);
+		}
+	}
+
+	/**
+	 * Returns the lowest effective price of a course in the base currency,
+	 * or NaN if none of its listings can be converted.
+	 */
+	private double lowestPrice(CourseListings course) {
+		double lowest = Double.NaN;
+		double remaining = 1 - Math.max(0, Math.min(100, course.sale)) / 100;
+		for (Listing listing : course.byProvider.values()) {
+			double price = toBase(listing.price(), listing.currency()) * remaining;
+			if (Double.isNaN(lowest) || price < lowest) {
+				lowest = price;
+			}
+		}
+		return lowest;
+	}
+
+	private double toBase(double price, String currency) {
+		if (BASE_CURRENCY.equalsIgnoreCase(currency)) {
+			return price;
+		}
+		Collection<String> tracked = rates.currencies();
+		if (currency == null
+				|| !tracked.contains(currency.toLowerCase(Locale.ROOT))
+				|| !tracked.contains(BASE_CURRENCY.toLowerCase(Locale.ROOT))) {
+			return Double.NaN;
+		}
+		return price * rates.rate(currency, BASE_CURRENCY);
+	}
+
+	/**
+	 * Returns the index of the first ranked course after the given price and course ID.
+	 */
+	private int positionAfter(double price, int courseId) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int order = Double.compare(rankedPrices[middle], price);
+			if (order < 0 || order == 0 && rankedIds[middle] <= courseId) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first ranked course above the price in the converted currency.
+	 */
+	private int endAtPrice(double rate, double maxPrice) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (rankedPrices[middle] * rate <= maxPrice) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
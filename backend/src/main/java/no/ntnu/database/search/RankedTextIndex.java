@@ -0,0 +1,296 @@
+package no.ntnu.database.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory word index ranking documents with BM25F, a BM25 variant for documents with
+ * several weighted fields.
+ *
+ * <p>Query words are matched regardless of their order. A query word that is not a known term
+ * is replaced by the closest known terms through a {@link DeleteDictionary}, with a lower
+ * weight the more edits it took, and the corrected query is offered as a spelling suggestion.
+ * Only the best {@code limit} documents are kept, in a bounded heap, so broad queries never
+ * sort the whole result set.</p>
+ *
+ * <p>Thread safe. Searches run concurrently; updates are exclusive.</p>
+ */
+public class RankedTextIndex {
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	/**
+	 * Score added to documents containing the whole query as a substring.
+	 */
+	private static final double SUBSTRING_BONUS = 1.0;
+
+	private final double[] fieldWeights;
+	/**
+	 * Term frequencies per document and field: term -> document -> frequency per field.
+	 */
+	private final Map<String, Map<Integer, int[]>> postings = new HashMap<>();
+	private final Map<Integer, IndexedDocument> documents = new HashMap<>();
+	private final long[] totalFieldLengths;
+	private final DeleteDictionary dictionary = new DeleteDictionary();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * The result of a search.
+	 *
+	 * @param ids        The IDs of the best documents, best first
+	 * @param total      The number of matching documents, including those past the limit
+	 * @param suggestion The query with misspelled words corrected,
+	 *                   or null if every word was a known term
+	 */
+	public record Hits(int[] ids, int total, String suggestion) {
+	}
+
+	private record IndexedDocument(int[] fieldLengths, Set<String> terms) {
+	}
+
+	private record Scored(int id, double score) {
+	}
+
+	private record Expansion(String term, double weight) {
+	}
+
+	/**
+	 * Creates an index for documents with as many fields as there are weights.
+	 *
+	 * @param fieldWeights The weight of each field, e.g. a course name
+	 *                     matters more than its description
+	 */
+	public RankedTextIndex(double... fieldWeights) {
+		this.fieldWeights = fieldWeights.clone();
+		this.totalFieldLengths = new long[fieldWeights.length];
+	}
+
+	/**
+	 * Adds a document, or replaces it if a document with the same ID is already indexed.
+	 *
+	 * @param id     The document ID
+	 * @param fields The text of each field, in the same order as the weights. Nulls are empty.
+	 */
+	public void put(int id, String... fields) {
+		if (fields.length != fieldWeights.length) {
+			throw new IllegalArgumentException(String.format(
+					"Expected %d fields, got %d", fieldWeights.length, fields.length));
+		}
+		Map<String, int[]> frequencies = new HashMap<>();
+		int[] lengths = new int[fields.length];
+		for (int field = 0; field < fields.length; field++) {
+			List<String> tokens = Tokenizer.tokenize(fields[field]);
+			lengths[field] = tokens.size();
+			for (String token : tokens) {
+				frequencies.computeIfAbsent(token, t -> new int[fields.length])[field]++;
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(id);
+			documents.put(id, new IndexedDocument(lengths, frequencies.keySet()));
+			for (int field = 0; field < lengths.length; field++) {
+				totalFieldLengths[field] += lengths[field];
+			}
+			frequencies.forEach((term, frequency) -> {
+				Map<Integer, int[]> termPostings = postings.get(term);
+				if (termPostings == null) {
+					termPostings = new HashMap<>();
+					postings.put(term, termPostings);
+					dictionary.add(term);
+				}
+				termPostings.put(id, frequency);
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a document from the index.
+	 *
+	 * @param id The document ID
+	 */
+	public void remove(int id) {
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every document from the index.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			documents.clear();
+			Arrays.fill(totalFieldLengths, 0);
+			dictionary.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the documents best matching a query.
+	 *
+	 * @param query            The query
+	 * @param limit            The maximum number of documents to return
+	 * @param substringMatches IDs of documents containing the whole query as a substring.
+	 *                         These are always candidates, and get a small bonus.
+	 * @return The best documents, and a spelling suggestion if the query had typos
+	 */
+	public Hits search(String query, int limit, int[] substringMatches) {
+		lock.readLock().lock();
+		try {
+			Map<Integer, Double> scores = new HashMap<>();
+			for (int id : substringMatches) {
+				scores.put(id, SUBSTRING_BONUS);
+			}
+
+			List<String> words = Tokenizer.tokenize(query);
+			List<String> corrected = new ArrayList<>(words.size());
+			boolean anyCorrection = false;
+			//Look each distinct word up once, for both scoring and correcting it.
+			Map<String, String> bestCorrections = new HashMap<>();
+			for (String word : new HashSet<>(words)) {
+				List<DeleteDictionary.Correction> corrections = postings.containsKey(word)
+						? List.of()
+						: dictionary.lookup(word);
+				for (Expansion expansion : expand(word, corrections)) {
+					score(expansion, scores);
+				}
+				bestCorrections.put(word, bestCorrection(word, corrections));
+			}
+			for (String word : words) {
+				String correction = bestCorrections.get(word);
+				anyCorrection |= !correction.equals(word);
+				corrected.add(correction);
+			}
+
+			return new Hits(
+					topK(scores, limit),
+					scores.size(),
+					anyCorrection ? String.join(" ", corrected) : null
+			);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the known terms a query word should match: the word itself if it is known,
+	 * otherwise its closest corrections, weighted down by their edit distance.
+	 */
+	private List<Expansion> expand(String word, List<DeleteDictionary.Correction> corrections) {
+		List<Expansion> expansions = new ArrayList<>();
+		if (postings.containsKey(word)) {
+			expansions.add(new Expansion(word, 1));
+		} else {
+			for (DeleteDictionary.Correction correction : corrections) {
+				expansions.add(new Expansion(correction.term(), 1.0 / (1 + correction.distance())));
+			}
+		}
+		return expansions;
+	}
+
+	/**
+	 * Returns the word itself if it is a known term, otherwise the most common of its
+	 * closest corrections, or the word itself if there are none.
+	 */
+	private String bestCorrection(String word, List<DeleteDictionary.Correction> corrections) {
+		String best = word;
+		if (!postings.containsKey(word)) {
+			int bestFrequency = 0;
+			for (DeleteDictionary.Correction correction : corrections) {
+				int frequency = postings.get(correction.term()).size();
+				if (frequency > bestFrequency) {
+					best = correction.term();
+					bestFrequency = frequency;
+				}
+			}
+		}
+		return best;
+	}
+
+	private void score(Expansion expansion, Map<Integer, Double> scores) {
+		Map<Integer, int[]> termPostings = postings.get(expansion.term());
+		int documentCount = documents.size();
+		double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5)
+				/ (termPostings.size() + 0.5));
+		double[] averageLengths = new double[fieldWeights.length];
+		for (int field = 0; field < fieldWeights.length; field++) {
+			averageLengths[field] = Math.max(1, (double) totalFieldLengths[field] / documentCount);
+		}
+
+		termPostings.forEach((id, frequencies) -> {
+			int[] lengths = documents.get(id).fieldLengths();
+			double score = 0;
+			for (int field = 0; field < frequencies.length; field++) {
+				if (frequencies[field] > 0) {
+					double norm = K1 * (1 - B + B * lengths[field] / averageLengths[field]);
+					score += fieldWeights[field] * frequencies[field] * (K1 + 1)
+							/ (frequencies[field] + norm);
+				}
+			}
+			scores.merge(id, idf * score * expansion.weight(), Double::sum);
+		});
+	}
+
+	/**
+	 * Picks the best scored documents with a min-heap holding at most {@code limit} entries.
+	 * Ties are broken by the lowest ID.
+	 */
+	private static int[] topK(Map<Integer, Double> scores, int limit) {
+		Comparator<Scored> worstFirst = Comparator.comparingDouble(Scored::score)
+				.thenComparing(Scored::id, Comparator.reverseOrder());
+		PriorityQueue<Scored> heap =
+				new PriorityQueue<>(Math.max(1, Math.min(limit, scores.size())), worstFirst);
+		scores.forEach((id, score) -> {
+			Scored scored = new Scored(id, score);
+			if (heap.size() < limit) {
+				heap.add(scored);
+			} else if (limit > 0 && worstFirst.compare(scored, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(scored);
+			}
+		});
+
+		int[] ids = new int[heap.size()];
+		for (int i = ids.length - 1; i >= 0; i--) {
+			ids[i] = heap.poll().id();
+		}
+		return ids;
+	}
+
+	private void removeUnlocked(int id) {
+		IndexedDocument document = documents.remove(id);
+		if (document != null) {
+			int[] lengths = document.fieldLengths();
+			for (int field = 0; field < lengths.length; field++) {
+				totalFieldLengths[field] -= lengths[field];
+			}
+			for (String term : document.terms()) {
+				Map<Integer, int[]> termPostings = postings.get(term);
+				termPostings.remove(id);
+				if (termPostings.isEmpty()) {
+					postings.remove(term);
+					dictionary.remove(term);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package no.ntnu.database.search;
+
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.dto.CourseSearchResult;
+
+/**
+ * A backend answering free text searches for courses and course providers.
+ * The implementation is picked with the {@code search.backend} property.
+ */
+public interface SearchBackend {
+
+	/**
+	 * Searches for courses.
+	 *
+	 * @param query The search query
+	 * @param limit The maximum number of courses to return
+	 * @return The courses matching the query, how many matched in all,
+	 *     and a spelling suggestion if the backend has one
+	 */
+	CourseSearchResult searchCourses(String query, int limit);
+
+	/**
+	 * Searches for course providers.
+	 *
+	 * @param query The search query
+	 * @return The providers matching the query
+	 */
+	Iterable<CourseProvider> searchProviders(String query);
+}
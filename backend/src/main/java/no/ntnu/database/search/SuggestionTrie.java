@@ -0,0 +1,405 @@
+package no.ntnu.database.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A prefix tree answering typeahead queries with the most popular matching suggestions.
+ *
+ * <p>Text is split into words by the {@link Tokenizer}, and every suggestion is indexed
+ * under each of its first {@value #MAX_WORD_STARTS} word starts with the spaces dropped,
+ * so both "advancedja" and "java" find "Advanced Java". Chains of nodes with a single child
+ * are merged into one node labelled with the whole segment, and children are kept in
+ * sorted arrays instead of maps, to keep the tree small.</p>
+ *
+ * <p>Every node keeps the best suggestions of its subtree, by weight, so a lookup only walks
+ * the prefix and copies that list. The lists are recomputed along the changed paths on
+ * every update, and for the whole tree in a single pass by {@link #replaceAll}.</p>
+ *
+ * <p>Thread safe. Lookups run concurrently; updates are exclusive.</p>
+ *
+ * @param <K> The type of the keys identifying the suggestions
+ */
+public class SuggestionTrie<K> {
+	private static final int MAX_WORD_STARTS = 8;
+	private static final char[] NO_LABELS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+	private static final Item<?>[] NO_ITEMS = new Item<?>[0];
+	private static final Comparator<Item<?>> BEST_FIRST = Comparator
+			.comparingDouble((Item<?> item) -> -item.weight())
+			.thenComparingInt(item -> item.text().length())
+			.thenComparing(Item::text);
+
+	private final int maxResults;
+	private final Map<K, Item<K>> items = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private Node root = new Node("");
+
+	/**
+	 * A suggestion.
+	 *
+	 * @param key    The key identifying the suggestion
+	 * @param text   The text to suggest
+	 * @param weight The popularity of the suggestion, higher weights are suggested first
+	 * @param <K>    The type of the key
+	 */
+	public record Item<K>(K key, String text, double weight) {
+	}
+
+	private static final class Node {
+		private String segment;
+		private char[] labels = NO_LABELS;
+		private Node[] children = NO_CHILDREN;
+		private Item<?>[] items = NO_ITEMS;
+		private Item<?>[] best = NO_ITEMS;
+
+		private Node(String segment) {
+			this.segment = segment;
+		}
+
+		private Node child(char label) {
+			int index = Arrays.binarySearch(labels, label);
+			return index < 0 ? null : children[index];
+		}
+
+		private void putChild(Node child) {
+			char label = child.segment.charAt(0);
+			int index = Arrays.binarySearch(labels, label);
+			if (index >= 0) {
+				children[index] = child;
+				return;
+			}
+			int insertAt = -index - 1;
+			char[] newLabels = new char[labels.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, insertAt);
+			System.arraycopy(children, 0, newChildren, 0, insertAt);
+			newLabels[insertAt] = label;
+			newChildren[insertAt] = child;
+			System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+			System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+			labels = newLabels;
+			children = newChildren;
+		}
+
+		private void removeChild(char label) {
+			int index = Arrays.binarySearch(labels, label);
+			if (index >= 0) {
+				char[] newLabels = new char[labels.length - 1];
+				Node[] newChildren = new Node[children.length - 1];
+				System.arraycopy(labels, 0, newLabels, 0, index);
+				System.arraycopy(children, 0, newChildren, 0, index);
+				System.arraycopy(labels, index + 1, newLabels, index, newLabels.length - index);
+				System.arraycopy(children, index + 1, newChildren, index, newChildren.length - index);
+				labels = newLabels;
+				children = newChildren;
+			}
+		}
+
+		private void addItem(Item<?> item) {
+			items = Arrays.copyOf(items, items.length + 1);
+			items[items.length - 1] = item;
+		}
+
+		private void removeItem(Item<?> item) {
+			for (int i = 0; i < items.length; i++) {
+				if (items[i] == item) {
+					Item<?>[] newItems = new Item<?>[items.length - 1];
+					System.arraycopy(items, 0, newItems, 0, i);
+					System.arraycopy(items, i + 1, newItems, i, newItems.length - i);
+					items = newItems;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates an empty trie.
+	 *
+	 * @param maxResults The most suggestions a lookup can return
+	 */
+	public SuggestionTrie(int maxResults) {
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * Normalizes text the same way suggestions and prefixes are normalized.
+	 *
+	 * @param text The text to normalize, may be null
+	 * @return The words of the text, lowercased and without accents or separators
+	 */
+	public static String normalize(String text) {
+		return String.join("", Tokenizer.tokenize(text));
+	}
+
+	/**
+	 * Adds a suggestion, or replaces the suggestion with the same key.
+	 *
+	 * @param item The suggestion
+	 */
+	public void put(Item<K> item) {
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(item.key());
+			items.put(item.key(), item);
+			for (String path : paths(item.text())) {
+				for (Node node : addPath(root, item, path)) {
+					updateBest(node);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a suggestion.
+	 *
+	 * @param key The key of the suggestion
+	 */
+	public void remove(K key) {
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replaces every suggestion. The new tree is built before the old one is replaced,
+	 * so lookups are not blocked while it is built.
+	 *
+	 * @param newItems The new suggestions
+	 */
+	public void replaceAll(Collection<Item<K>> newItems) {
+		Map<K, Item<K>> newItemsByKey = new HashMap<>();
+		Node newRoot = new Node("");
+		for (Item<K> item : newItems) {
+			newItemsByKey.put(item.key(), item);
+			for (String path : paths(item.text())) {
+				addPath(newRoot, item, path);
+			}
+		}
+		updateBestRecursively(newRoot);
+
+		lock.writeLock().lock();
+		try {
+			items.clear();
+			items.putAll(newItemsByKey);
+			root = newRoot;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of suggestions.
+	 *
+	 * @return The number of suggestions
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return items.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the best suggestions with a word starting with the prefix.
+	 *
+	 * @param prefix The prefix to complete
+	 * @param limit  The maximum number of suggestions, capped at the maximum of the trie
+	 * @return The best suggestions, highest weight first
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Item<K>> lookup(String prefix, int limit) {
+		String path = normalize(prefix);
+		lock.readLock().lock();
+		try {
+			Node node = find(path);
+			List<Item<K>> result = new ArrayList<>();
+			if (node != null) {
+				for (int i = 0; i < Math.min(limit, node.best.length); i++) {
+					result.add((Item<K>) node.best[i]);
+				}
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static Set<String> paths(String text) {
+		List<String> words = Tokenizer.tokenize(text);
+		Set<String> paths = new LinkedHashSet<>();
+		for (int start = 0; start < Math.min(words.size(), MAX_WORD_STARTS); start++) {
+			paths.add(String.join("", words.subList(start, words.size())));
+		}
+		return paths;
+	}
+
+	private void removeUnlocked(K key) {
+		Item<K> item = items.remove(key);
+		if (item != null) {
+			for (String path : paths(item.text())) {
+				removePath(item, path);
+			}
+		}
+	}
+
+	private Node find(String path) {
+		Node node = root;
+		int i = 0;
+		while (node != null && i < path.length()) {
+			Node child = node.child(path.charAt(i));
+			int remaining = path.length() - i;
+			if (child == null) {
+				node = null;
+			} else if (remaining <= child.segment.length()) {
+				node = child.segment.startsWith(path.substring(i)) ? child : null;
+				i = path.length();
+			} else {
+				node = path.startsWith(child.segment, i) ? child : null;
+				i += child.segment.length();
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Adds the item under the path, splitting a node if the path ends or branches
+	 * inside its segment.
+	 *
+	 * @return The nodes on the path, deepest first
+	 */
+	private static List<Node> addPath(Node root, Item<?> item, String path) {
+		List<Node> trail = new ArrayList<>();
+		trail.add(root);
+		Node node = root;
+		int i = 0;
+		while (i < path.length()) {
+			Node child = node.child(path.charAt(i));
+			if (child == null) {
+				child = new Node(path.substring(i));
+				node.putChild(child);
+			} else {
+				int common = commonPrefixLength(child.segment, path, i);
+				if (common < child.segment.length()) {
+					Node split = new Node(child.segment.substring(0, common));
+					child.segment = child.segment.substring(common);
+					split.putChild(child);
+					split.best = child.best;
+					node.putChild(split);
+					child = split;
+				}
+			}
+			i += child.segment.length();
+			node = child;
+			trail.add(node);
+		}
+		node.addItem(item);
+		Collections.reverse(trail);
+		return trail;
+	}
+
+	private static int commonPrefixLength(String segment, String path, int offset) {
+		int length = 0;
+		while (length < segment.length() && offset + length < path.length()
+				&& segment.charAt(length) == path.charAt(offset + length)) {
+			length++;
+		}
+		return length;
+	}
+
+	private void removePath(Item<K> item, String path) {
+		List<Node> trail = new ArrayList<>();
+		trail.add(root);
+		Node node = root;
+		int i = 0;
+		while (i < path.length()) {
+			node = node.child(path.charAt(i));
+			if (node == null || !path.startsWith(node.segment, i)) {
+				return;
+			}
+			i += node.segment.length();
+			trail.add(node);
+		}
+		node.removeItem(item);
+
+		//Drop nodes left empty, and merge nodes left with a single child into that child.
+		for (int depth = trail.size() - 1; depth >= 0; depth--) {
+			Node current = trail.get(depth);
+			if (depth > 0 && current.items.length == 0 && current.children.length <= 1) {
+				Node parent = trail.get(depth - 1);
+				if (current.children.length == 0) {
+					parent.removeChild(current.segment.charAt(0));
+				} else {
+					Node child = current.children[0];
+					child.segment = current.segment + child.segment;
+					parent.putChild(child);
+				}
+			} else {
+				updateBest(current);
+			}
+		}
+	}
+
+	private void updateBestRecursively(Node node) {
+		for (Node child : node.children) {
+			updateBestRecursively(child);
+		}
+		updateBest(node);
+	}
+
+	private void updateBest(Node node) {
+		if (node.items.length == 0 && node.children.length == 1) {
+			node.best = node.children[0].best;
+			return;
+		}
+		List<Item<?>> best = new ArrayList<>(maxResults + 1);
+		for (Item<?> item : node.items) {
+			offer(best, item);
+		}
+		for (Node child : node.children) {
+			for (Item<?> item : child.best) {
+				offer(best, item);
+			}
+		}
+		node.best = best.toArray(NO_ITEMS);
+	}
+
+	private void offer(List<Item<?>> best, Item<?> candidate) {
+		if (best.size() == maxResults
+				&& BEST_FIRST.compare(candidate, best.get(best.size() - 1)) >= 0) {
+			return;
+		}
+		//The same suggestion can be reached through several word starts, so skip repeats.
+		for (Item<?> item : best) {
+			if (item == candidate) {
+				return;
+			}
+		}
+		int index = 0;
+		while (index < best.size() && BEST_FIRST.compare(best.get(index), candidate) <= 0) {
+			index++;
+		}
+		best.add(index, candidate);
+		if (best.size() > maxResults) {
+			best.remove(best.size() - 1);
+		}
+	}
+}
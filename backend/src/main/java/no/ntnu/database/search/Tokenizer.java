@@ -0,0 +1,38 @@
+package no.ntnu.database.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lowercase, accent free words for the {@link RankedTextIndex}.
+ */
+final class Tokenizer {
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private Tokenizer() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Splits text into words.
+	 *
+	 * @param text The text to split, may be null
+	 * @return The words of the text, in order, including duplicates
+	 */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text != null) {
+			String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+			normalized = DIACRITICS.matcher(normalized).replaceAll("").toLowerCase();
+			for (String token : SEPARATORS.split(normalized)) {
+				if (!token.isEmpty()) {
+					tokens.add(token);
+				}
+			}
+		}
+		return tokens;
+	}
+}
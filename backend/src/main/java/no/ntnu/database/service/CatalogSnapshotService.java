@@ -0,0 +1,183 @@
+package no.ntnu.database.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import no.ntnu.database.event.CategoryDeletedEvent;
+import no.ntnu.database.event.CategorySavedEvent;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseListingChangedEvent;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.ImageDeletedEvent;
+import no.ntnu.database.event.ImageSavedEvent;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.event.ProviderSavedEvent;
+import no.ntnu.database.repository.CategoryRepository;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class keeping {@link JsonSnapshot snapshots} of the full lists of courses,
+ * categories and providers, so they are not serialized again for every request.
+ *
+ * <p>A snapshot is discarded when an event changes its content, and serialized again
+ * on the first request after that.</p>
+ */
+@Service
+public class CatalogSnapshotService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+	/**
+	 * The lists kept as snapshots.
+	 */
+	public enum Catalog {
+		COURSES,
+		CATEGORIES,
+		PROVIDERS
+	}
+
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+	private final Map<Catalog, Supplier<Object>> loaders = new EnumMap<>(Catalog.class);
+	private final Map<Catalog, AtomicReference<Entry>> entries = new EnumMap<>(Catalog.class);
+
+	/**
+	 * The snapshot of a list with the number of changes made to the list, swapped as one
+	 * so a snapshot serialized before a change can never replace the change.
+	 */
+	private record Entry(long version, JsonSnapshot snapshot) {
+	}
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param courseRepository   The repository to load the courses from
+	 * @param categoryRepository The repository to load the categories from
+	 * @param providerRepository The repository to load the providers from
+	 * @param objectMapper       The mapper used to serialize the lists
+	 * @param transactionManager The transaction manager used to load the lists
+	 */
+	@Autowired
+	public CatalogSnapshotService(
+			CourseRepository courseRepository,
+			CategoryRepository categoryRepository,
+			CourseProviderRepository providerRepository,
+			ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager
+	) {
+		this.objectMapper = objectMapper;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		loaders.put(Catalog.COURSES, courseRepository::findAllViews);
+		loaders.put(Catalog.CATEGORIES, categoryRepository::findAll);
+		loaders.put(Catalog.PROVIDERS, providerRepository::findAll);
+		for (Catalog catalog : Catalog.values()) {
+			entries.put(catalog, new AtomicReference<>(new Entry(0, null)));
+		}
+	}
+
+	/**
+	 * Returns the current snapshot of a list, serializing it if it has changed.
+	 *
+	 * @param catalog The list
+	 * @return The current snapshot of the list
+	 */
+	public JsonSnapshot getSnapshot(Catalog catalog) {
+		AtomicReference<Entry> current = entries.get(catalog);
+		JsonSnapshot snapshot = current.get().snapshot();
+		if (snapshot == null) {
+			synchronized (current) {
+				Entry entry = current.get();
+				snapshot = entry.snapshot();
+				if (snapshot == null) {
+					snapshot = serialize(catalog);
+					//Only keep the snapshot if nothing changed while it was serialized.
+					current.compareAndSet(entry, new Entry(entry.version(), snapshot));
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	private JsonSnapshot serialize(Catalog catalog) {
+		long start = System.currentTimeMillis();
+		byte[] json = transactionTemplate.execute(status -> {
+			try {
+				return objectMapper.writeValueAsBytes(loaders.get(catalog).get());
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException("Could not serialize " + catalog, e);
+			}
+		});
+		JsonSnapshot snapshot = JsonSnapshot.of(json);
+		LOGGER.info("Serialized {} snapshot of {} bytes in {} ms",
+				catalog, json.length, System.currentTimeMillis() - start);
+		return snapshot;
+	}
+
+	private void invalidate(Catalog... catalogs) {
+		for (Catalog catalog : catalogs) {
+			entries.get(catalog).updateAndGet(entry -> new Entry(entry.version() + 1, null));
+		}
+	}
+
+	@EventListener
+	public void onCourseSaved(CourseSavedEvent event) {
+		invalidate(Catalog.COURSES);
+	}
+
+	@EventListener
+	public void onCourseDeleted(CourseDeletedEvent event) {
+		invalidate(Catalog.COURSES, Catalog.PROVIDERS);
+	}
+
+	@EventListener
+	public void onCoursesImported(CoursesImportedEvent event) {
+		invalidate(Catalog.COURSES);
+	}
+
+	@EventListener
+	public void onCourseListingChanged(CourseListingChangedEvent event) {
+		invalidate(Catalog.COURSES, Catalog.PROVIDERS);
+	}
+
+	@EventListener
+	public void onProviderSaved(ProviderSavedEvent event) {
+		invalidate(Catalog.PROVIDERS);
+	}
+
+	@EventListener
+	public void onProviderDeleted(ProviderDeletedEvent event) {
+		invalidate(Catalog.COURSES, Catalog.PROVIDERS);
+	}
+
+	@EventListener
+	public void onCategorySaved(CategorySavedEvent event) {
+		invalidate(Catalog.COURSES, Catalog.CATEGORIES);
+	}
+
+	@EventListener
+	public void onCategoryDeleted(CategoryDeletedEvent event) {
+		invalidate(Catalog.COURSES, Catalog.CATEGORIES);
+	}
+
+	@EventListener
+	public void onImageSaved(ImageSavedEvent event) {
+		invalidate(Catalog.COURSES);
+	}
+
+	@EventListener
+	public void onImageDeleted(ImageDeletedEvent event) {
+		invalidate(Catalog.COURSES);
+	}
+}
@@ -1,11 +1,14 @@
 package no.ntnu.database.service;
 
 import java.util.Optional;
+import no.ntnu.database.event.CategoryDeletedEvent;
+import no.ntnu.database.event.CategorySavedEvent;
 import no.ntnu.database.model.Category;
 import no.ntnu.database.repository.CategoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -19,14 +22,20 @@ public class CategoryService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CategoryService.class);
 
 	private final CategoryRepository repository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Creates the service class.
 	 *
 	 * @param categoryRepository The repository used for interacting with the database
+	 * @param eventPublisher     Publishes category changes to the indexes kept outside the database
 	 */
-	public CategoryService(@Autowired CategoryRepository categoryRepository) {
+	public CategoryService(
+			@Autowired CategoryRepository categoryRepository,
+			@Autowired ApplicationEventPublisher eventPublisher
+	) {
 		this.repository = categoryRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -41,6 +50,7 @@ public class CategoryService {
 		}
 
 		repository.save(category);
+		eventPublisher.publishEvent(new CategorySavedEvent(category));
 		return category.getCategoryId();
 	}
 
@@ -70,6 +80,7 @@ public class CategoryService {
 		} else {
 			category.setCategoryId(id);
 			repository.save(category);
+			eventPublisher.publishEvent(new CategorySavedEvent(category));
 		}
 
 	}
@@ -86,6 +97,7 @@ public class CategoryService {
 		}
 		if (category.isPresent()) {
 			repository.deleteById(id);
+			eventPublisher.publishEvent(new CategoryDeletedEvent(id));
 		}
 		return category.isPresent();
 	}
@@ -0,0 +1,136 @@
+package no.ntnu.database.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import no.ntnu.database.event.CategoryDeletedEvent;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.repository.CourseCursor;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.repository.CourseSortKey;
+import no.ntnu.database.search.CourseFacetIndex;
+import no.ntnu.database.search.CourseFacets;
+import no.ntnu.dto.CourseFilter;
+import no.ntnu.dto.CourseFilterResult;
+import no.ntnu.dto.CourseView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for filtering courses by category, difficulty, start date, credits
+ * and hours per week, with the number of courses per facet value.
+ * Filters are answered from a {@link CourseFacetIndex} kept in memory, which is built
+ * once the application is ready and kept up to date from course and category events.
+ */
+@Service
+public class CourseFilterService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CourseFilterService.class);
+
+	private final CourseRepository repository;
+	private final CourseFacetIndex index = new CourseFacetIndex();
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param courseRepository The repository to load the facet values of the courses from
+	 */
+	@Autowired
+	public CourseFilterService(CourseRepository courseRepository) {
+		this.repository = courseRepository;
+	}
+
+	/**
+	 * Rebuilds the facet index from the database.
+	 */
+	@EventListener({ApplicationReadyEvent.class, CoursesImportedEvent.class})
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		Map<Integer, Set<Integer>> categories = new HashMap<>();
+		for (Object[] row : repository.findAllCategoryLinks()) {
+			categories.computeIfAbsent((Integer) row[0], id -> new HashSet<>())
+					.add((Integer) row[1]);
+		}
+		index.clear();
+		for (Object[] row : repository.findAllFacetValues()) {
+			int courseId = (Integer) row[0];
+			index.put(new CourseFacets(
+					courseId,
+					categories.getOrDefault(courseId, new HashSet<>()),
+					(String) row[1],
+					CourseFacets.toLocalDate((Date) row[2]),
+					(Double) row[3],
+					(Integer) row[4]
+			));
+		}
+		LOGGER.info("Indexed facets of {} courses in {} ms",
+				index.size(), System.currentTimeMillis() - start);
+	}
+
+	@EventListener
+	public void onCourseSaved(CourseSavedEvent event) {
+		index.put(CourseFacets.of(event.course()));
+	}
+
+	@EventListener
+	public void onCourseDeleted(CourseDeletedEvent event) {
+		index.remove(event.courseId());
+	}
+
+	@EventListener
+	public void onCategoryDeleted(CategoryDeletedEvent event) {
+		index.removeCategory(event.categoryId());
+	}
+
+	/**
+	 * Returns one page of the courses matching a filter, ordered by ID,
+	 * with the number of matching courses per facet value.
+	 *
+	 * @param filter The filter to apply
+	 * @param limit  The maximum number of courses on the page,
+	 *               capped at {@value CourseService#MAX_PAGE_SIZE}
+	 * @param after  The continuation token of the previous page, or null for the first page
+	 * @return The page, with a continuation token if more courses follow
+	 * @throws IllegalArgumentException If the token is invalid or belongs to a sorted listing
+	 */
+	public CourseFilterResult filter(CourseFilter filter, int limit, String after) {
+		int afterId = 0;
+		if (after != null && !after.isBlank()) {
+			CourseCursor cursor = CourseCursor.decode(after);
+			if (cursor.sortKey() != CourseSortKey.ID) {
+				throw new IllegalArgumentException("The cursor belongs to a sorted listing");
+			}
+			afterId = cursor.courseId();
+		}
+		CourseFacetIndex.Page page = index.filter(
+				filter, afterId, Math.max(1, Math.min(limit, CourseService.MAX_PAGE_SIZE))
+		);
+
+		List<CourseView> courses = repository.findViewsById(toList(page.courseIds()));
+		String nextCursor = null;
+		if (page.hasMore() && page.courseIds().length > 0) {
+			int lastId = page.courseIds()[page.courseIds().length - 1];
+			nextCursor = new CourseCursor(CourseSortKey.ID, lastId, lastId).encode();
+		}
+		return new CourseFilterResult(courses, page.total(), nextCursor, page.facets());
+	}
+
+	private static List<Integer> toList(int[] ids) {
+		List<Integer> list = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,173 @@
+package no.ntnu.database.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseListingChangedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.event.ExchangeRatesUpdatedEvent;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.model.CourseProviderLink;
+import no.ntnu.database.model.CourseProviderLink.CourseProviderLinkId;
+import no.ntnu.database.repository.CourseProviderLinkRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.search.PriceIndex;
+import no.ntnu.dto.CourseView;
+import no.ntnu.dto.PricedCourse;
+import no.ntnu.dto.PricedCoursePage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for listing courses by price, answered from a {@link PriceIndex}.
+ *
+ * <p>The index is built from the database once the application is ready, kept up to date
+ * from the events published by the services, and ranked again whenever new exchange rates
+ * arrive.</p>
+ */
+@Service
+public class CoursePriceService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CoursePriceService.class);
+
+	private final CourseProviderLinkRepository linkRepository;
+	private final CourseRepository courseRepository;
+	private final ExchangeRateService exchangeRateService;
+	private final PriceIndex index = new PriceIndex();
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param linkRepository      The repository to load the price listings from
+	 * @param courseRepository    The repository to load the listed courses from
+	 * @param exchangeRateService The service class for the current exchange rates
+	 */
+	@Autowired
+	public CoursePriceService(
+			CourseProviderLinkRepository linkRepository,
+			CourseRepository courseRepository,
+			ExchangeRateService exchangeRateService
+	) {
+		this.linkRepository = linkRepository;
+		this.courseRepository = courseRepository;
+		this.exchangeRateService = exchangeRateService;
+	}
+
+	/**
+	 * Returns one page of the courses with a price, cheapest first by their lowest price
+	 * at any provider with the sale of the course taken off. Courses without a price
+	 * listing are left out.
+	 *
+	 * @param currency The currency to give the prices in, and to compare the maximum price in
+	 * @param maxPrice The highest price to include, or null for no limit
+	 * @param limit    The maximum number of courses on the page,
+	 *                 capped at {@value CourseService#MAX_PAGE_SIZE}
+	 * @param after    The continuation token of the previous page, or null for the first page
+	 * @return The page, with a continuation token if more courses follow
+	 * @throws IllegalArgumentException If the currency is not tracked or the token is invalid
+	 */
+	public PricedCoursePage getCoursesByPrice(
+			String currency,
+			Double maxPrice,
+			int limit,
+			String after
+	) {
+		PriceIndex.Cursor cursor = after == null || after.isBlank()
+				? null
+				: PriceIndex.Cursor.decode(after);
+		int pageSize = Math.max(1, Math.min(limit, CourseService.MAX_PAGE_SIZE));
+		PriceIndex.Page page = index.find(currency, maxPrice, cursor, pageSize);
+
+		List<Integer> ids = new ArrayList<>(page.courseIds().length);
+		for (int id : page.courseIds()) {
+			ids.add(id);
+		}
+		List<CourseView> views = courseRepository.findViewsById(ids);
+		List<PricedCourse> courses = new ArrayList<>(views.size());
+		int position = 0;
+		for (CourseView view : views) {
+			//Views of courses deleted meanwhile are missing, so match the IDs to find the price.
+			while (page.courseIds()[position] != view.courseId()) {
+				position++;
+			}
+			courses.add(new PricedCourse(view, page.prices()[position]));
+		}
+		String nextCursor = page.next() == null ? null : page.next().encode();
+		return new PricedCoursePage(courses, currency, nextCursor);
+	}
+
+	/**
+	 * Rebuilds the index from the database.
+	 */
+	@EventListener({ApplicationReadyEvent.class, CoursesImportedEvent.class})
+	@Transactional(readOnly = true)
+	public synchronized void rebuild() {
+		long start = System.currentTimeMillis();
+		List<PriceIndex.Listing> listings = new ArrayList<>();
+		for (Object[] row : linkRepository.findAllPrices()) {
+			listings.add(new PriceIndex.Listing(
+					(Integer) row[0],
+					(Integer) row[1],
+					(Double) row[2],
+					(String) row[3],
+					(Double) row[4]
+			));
+		}
+		index.replaceAll(listings, exchangeRateService.getSnapshot());
+		LOGGER.info("Ranked {} courses by price in {} ms",
+				index.size(), System.currentTimeMillis() - start);
+	}
+
+	@EventListener
+	public synchronized void onExchangeRatesUpdated(ExchangeRatesUpdatedEvent event) {
+		index.setRates(event.rates());
+	}
+
+	@EventListener
+	@Transactional(readOnly = true)
+	public synchronized void onCourseListingChanged(CourseListingChangedEvent event) {
+		if (event.currency() == null) {
+			index.remove(event.courseId(), event.providerId());
+			return;
+		}
+		//Only a course new to the index needs loading, to learn its sale.
+		boolean listed = index.putIfListed(
+				event.courseId(), event.providerId(), event.price(), event.currency()
+		);
+		if (!listed) {
+			CourseProviderLinkId id =
+					new CourseProviderLinkId(event.courseId(), event.providerId());
+			linkRepository.findById(id).ifPresent(link -> index.put(listing(link)));
+		}
+	}
+
+	@EventListener
+	public synchronized void onCourseSaved(CourseSavedEvent event) {
+		index.setSale(event.course().getCourseId(), event.course().getSale());
+	}
+
+	@EventListener
+	public synchronized void onCourseDeleted(CourseDeletedEvent event) {
+		index.removeCourse(event.courseId());
+	}
+
+	@EventListener
+	public synchronized void onProviderDeleted(ProviderDeletedEvent event) {
+		index.removeProvider(event.providerId());
+	}
+
+	private static PriceIndex.Listing listing(CourseProviderLink link) {
+		return new PriceIndex.Listing(
+				link.getId().getCourseId(),
+				link.getId().getCourseProviderId(),
+				link.getPrice(),
+				link.getCurrency(),
+				link.getCourse().getSale()
+		);
+	}
+}
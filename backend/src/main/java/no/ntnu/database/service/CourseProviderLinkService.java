@@ -1,8 +1,12 @@
 package no.ntnu.database.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import no.ntnu.currency.RateSnapshot;
+import no.ntnu.database.event.CourseListingChangedEvent;
 import no.ntnu.database.model.Course;
 import no.ntnu.database.model.CourseProvider;
 import no.ntnu.database.model.CourseProviderLink;
@@ -10,10 +14,14 @@ import no.ntnu.database.model.CourseProviderLink.CourseProviderLinkId;
 import no.ntnu.database.repository.CourseProviderLinkRepository;
 import no.ntnu.database.repository.CourseProviderRepository;
 import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.dto.CoursePrice;
+import no.ntnu.dto.CourseView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for handling business logic for the link between
@@ -27,6 +35,7 @@ public class CourseProviderLinkService {
 	private final CourseRepository courseRepository;
 	private final CourseProviderRepository courseProviderRepository;
 	private final ExchangeRateService exchangeRateService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Creates the course provider link via autowired.
@@ -35,37 +44,118 @@ public class CourseProviderLinkService {
 	 * @param courseRepository             The repository for managing courses.
 	 * @param courseProviderRepository     The repository for managing course providers.
 	 * @param exchangeRateService          The service class for converting prices.
+	 * @param eventPublisher               Publishes listing changes to the caches of courses.
 	 */
 	@Autowired
 	public CourseProviderLinkService(
 			CourseProviderLinkRepository courseProviderLinkRepository,
 			CourseRepository courseRepository,
 			CourseProviderRepository courseProviderRepository,
-			ExchangeRateService exchangeRateService
+			ExchangeRateService exchangeRateService,
+			ApplicationEventPublisher eventPublisher
 	) {
 		this.courseProviderLinkRepository = courseProviderLinkRepository;
 		this.courseRepository = courseRepository;
 		this.courseProviderRepository = courseProviderRepository;
 		this.exchangeRateService = exchangeRateService;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
-	 * Converts the currency of one or more links. Conversion is done in-place.
+	 * Converts the currency of one or more links, with the same rates for every link even if
+	 * the rates are updated meanwhile. The links are read-only views, so converting never
+	 * touches the listings stored in the database.
 	 *
 	 * @param currency The currency to convert all links to
 	 * @param links    The links to convert the currency of
+	 * @return The converted links, in the same order
+	 * @throws IllegalArgumentException If the currency, or the currency of a link, is not tracked
 	 */
-	public void convertCurrencies(String currency, CourseProviderLink... links) {
-		Arrays.stream(links).forEach(link -> {
-			if (!link.getCurrency().equalsIgnoreCase(currency)) {
-				link.setPrice(exchangeRateService.exchangeAmount(
-						link.getPrice(),
-						link.getCurrency(),
-						currency
-				));
-				link.setCurrency(currency);
+	public List<CourseView.Link> convertCurrencies(String currency, List<CourseView.Link> links) {
+		return convertCurrencies(currency, links, exchangeRateService.getSnapshot());
+	}
+
+	private static List<CourseView.Link> convertCurrencies(
+			String currency,
+			List<CourseView.Link> links,
+			RateSnapshot rates
+	) {
+		return links.stream()
+				.map(link -> link.currency().equalsIgnoreCase(currency)
+						? link
+						: new CourseView.Link(
+								link.id(),
+								link.price() * rates.rate(link.currency(), currency),
+								currency
+						))
+				.toList();
+	}
+
+	/**
+	 * Returns the price of a course at every provider listing it, cheapest first after the sale
+	 * of the course. The listings are loaded in one query and converted with the same rates.
+	 * Listings in a currency that is not tracked, and every listing until the first rates
+	 * arrive, are left as listed and put last, so one of them never hides the others.
+	 *
+	 * @param courseId The ID of the {@link Course}
+	 * @param currency The currency to convert the prices to
+	 * @param rates    The rates to convert at, whose status is reported with the prices
+	 * @return The prices, or an empty Optional if the course does not exist
+	 * @throws IllegalArgumentException If there are rates, but not for the currency
+	 */
+	@Transactional(readOnly = true)
+	public Optional<List<CoursePrice>> findCoursePrices(
+			int courseId,
+			String currency,
+			RateSnapshot rates
+	) {
+		List<Object[]> rows = courseProviderLinkRepository.findPricesByCourseId(courseId);
+		if (rows.isEmpty() && !courseRepository.existsById(courseId)) {
+			return Optional.empty();
+		}
+		int to = rates.isEmpty() ? -1 : rates.ordinal(currency);
+		List<CoursePrice> prices = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			double originalPrice = (Double) row[2];
+			String originalCurrency = (String) row[3];
+			double price = originalPrice;
+			String priceCurrency = originalCurrency;
+			boolean converted = true;
+			if (currency.equalsIgnoreCase(originalCurrency)) {
+				priceCurrency = currency;
+			} else if (to >= 0 && rates.tracks(originalCurrency)) {
+				price = originalPrice * rates.rate(rates.ordinal(originalCurrency), to);
+				priceCurrency = currency;
+			} else {
+				converted = false;
 			}
-		});
+			prices.add(new CoursePrice(
+					(Integer) row[0],
+					(String) row[1],
+					price,
+					applySale(price, (Double) row[4]),
+					priceCurrency,
+					originalPrice,
+					originalCurrency,
+					converted
+			));
+		}
+		prices.sort(Comparator.comparing((CoursePrice price) -> !price.converted())
+				.thenComparingDouble(CoursePrice::effectivePrice)
+				.thenComparingInt(CoursePrice::courseProviderId));
+		return Optional.of(prices);
+	}
+
+	private void validateCurrency(String currency) {
+		if (currency == null || currency.isBlank()) {
+			throw new IllegalArgumentException("A listing needs a currency");
+		}
+		//Listings in an untracked currency could neither be converted nor ranked by price.
+		exchangeRateService.getSnapshot().ordinal(currency);
+	}
+
+	private static double applySale(double price, double salePercent) {
+		return price * (1 - Math.max(0, Math.min(100, salePercent)) / 100);
 	}
 
 	/**
@@ -77,12 +167,14 @@ public class CourseProviderLinkService {
 	 * @param dto        The data transfer object that contains
 	 *                   The {@link Course} and price information.
 	 * @throws EntityNotFoundException if either the course or course provider is not found.
+	 * @throws IllegalArgumentException If the currency is not tracked
 	 */
 	public void addCourseListing(
 			int providerId,
 			int courseId,
 			CourseProviderLink.CourseProviderLinkDto dto
 	) {
+		validateCurrency(dto.currency());
 		Course course = courseRepository.findById(courseId)
 				.orElseThrow(EntityNotFoundException::new);
 		CourseProvider courseProvider = courseProviderRepository.findById(providerId)
@@ -94,6 +186,9 @@ public class CourseProviderLinkService {
 				dto.price(),
 				dto.currency()
 		));
+		eventPublisher.publishEvent(
+				new CourseListingChangedEvent(courseId, providerId, dto.currency(), dto.price())
+		);
 	}
 
 	/**
@@ -111,6 +206,9 @@ public class CourseProviderLinkService {
 		if (provider.isPresent() && course.isPresent()) {
 			CourseProviderLinkId id = new CourseProviderLinkId(courseId, providerId);
 			courseProviderLinkRepository.deleteById(id);
+			eventPublisher.publishEvent(
+					new CourseListingChangedEvent(courseId, providerId, null, 0)
+			);
 			LOGGER.info("Listing deleted");
 			success = true;
 		} else {
@@ -126,22 +224,28 @@ public class CourseProviderLinkService {
 	 * @param providerId The ID of the {@link CourseProvider}
 	 * @param courseId   The ID of the {@link Course}
 	 * @param currency   The currency to convert the {@link Course} price to, if the link is found
-	 * @return {@link Optional} containing the found {@link CourseProviderLink}
-	 *     or empty if not found.
+	 * @param rates      The rates to convert at, whose status is reported with the price
+	 * @return {@link Optional} containing a read-only view of the found
+	 *     {@link CourseProviderLink} with its price converted, or empty if not found.
+	 * @throws IllegalArgumentException If the currency, or the currency of the link,
+	 *                                  is not tracked
 	 */
-	public Optional<CourseProviderLink> findCourseProviderLink(
+	@Transactional(readOnly = true)
+	public Optional<CourseView.Link> findCourseProviderLink(
 			int providerId,
 			int courseId,
-			String currency
+			String currency,
+			RateSnapshot rates
 	) {
-		//Create key to look for it in the repository.
-		CourseProviderLinkId id = new CourseProviderLinkId(courseId, providerId);
-		return courseProviderLinkRepository
-				.findById(id)
-				.map(link -> {
-					convertCurrencies(currency, link);
-					return link;
-				});
+		//Load only the price, so no managed entity is there to be changed by the conversion.
+		return courseProviderLinkRepository.findPriceById(courseId, providerId).stream()
+				.findFirst()
+				.map(row -> new CourseView.Link(
+						new CourseView.LinkId(courseId, providerId),
+						(Double) row[0],
+						(String) row[1]
+				))
+				.map(link -> convertCurrencies(currency, List.of(link), rates).get(0));
 	}
 
 	/**
@@ -152,17 +256,22 @@ public class CourseProviderLinkService {
 	 * @param dto        the data transfer object containing price and currency information.
 	 * @throws EntityNotFoundException If the {@link CourseProviderLink}, {@link CourseProvider},
 	 *                                 or {@link CourseProvider} is not found.
+	 * @throws IllegalArgumentException If the currency is not tracked
 	 */
 	public void updateCourseProviderLink(
 			int providerId,
 			int courseId,
 			CourseProviderLink.CourseProviderLinkDto dto
 	) {
+		validateCurrency(dto.currency());
 		CourseProviderLinkId id = new CourseProviderLinkId(courseId, providerId);
 		CourseProviderLink link = courseProviderLinkRepository.findById(id)
 				.orElseThrow(() -> new EntityNotFoundException("Course provider link not found"));
 		link.setPrice(dto.price());
 		link.setCurrency(dto.currency());
 		courseProviderLinkRepository.save(link);
+		eventPublisher.publishEvent(
+				new CourseListingChangedEvent(courseId, providerId, dto.currency(), dto.price())
+		);
 	}
 }
@@ -1,12 +1,17 @@
 package no.ntnu.database.service;
 
 import java.util.Optional;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.event.ProviderSavedEvent;
 import no.ntnu.database.model.CourseProvider;
 import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.search.SearchBackend;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Service class for handling business logic for the course provider.
@@ -17,16 +22,30 @@ public class CourseProviderService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CourseProviderService.class);
 
 	private final CourseProviderRepository repository;
+	private final SearchBackend searchBackend;
+	private final NdjsonStreamer ndjsonStreamer;
+	private final ApplicationEventPublisher eventPublisher;
 
 
 	/**
 	 * Creates the course service via autowired.
 	 *
-	 * @param repository the repository class for communication.
+	 * @param repository     the repository class for communication.
+	 * @param searchBackend  the backend used for searching providers.
+	 * @param ndjsonStreamer writes every provider as newline delimited JSON.
+	 * @param eventPublisher publishes provider changes to the indexes kept outside the database.
 	 */
 	@Autowired
-	public CourseProviderService(CourseProviderRepository repository) {
+	public CourseProviderService(
+			CourseProviderRepository repository,
+			SearchBackend searchBackend,
+			NdjsonStreamer ndjsonStreamer,
+			ApplicationEventPublisher eventPublisher
+	) {
 		this.repository = repository;
+		this.searchBackend = searchBackend;
+		this.ndjsonStreamer = ndjsonStreamer;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -40,6 +59,7 @@ public class CourseProviderService {
 			LOGGER.warn("Provider is invalid");
 		}
 		repository.save(provider);
+		eventPublisher.publishEvent(new ProviderSavedEvent(provider));
 		return provider.getCourseProviderId();
 	}
 
@@ -56,6 +76,7 @@ public class CourseProviderService {
 		}
 		if (provider.isPresent()) {
 			repository.deleteById(id);
+			eventPublisher.publishEvent(new ProviderDeletedEvent(id));
 		}
 		return provider.isPresent();
 	}
@@ -80,6 +101,7 @@ public class CourseProviderService {
 				provider.setCourseProviderLinks(p.getCourseProviderLinks())
 		);
 		repository.save(provider);
+		eventPublisher.publishEvent(new ProviderSavedEvent(provider));
 	}
 
 	/**
@@ -101,6 +123,16 @@ public class CourseProviderService {
 		return repository.findAll();
 	}
 
+	/**
+	 * Returns a response body writing every provider as newline delimited JSON, ordered by ID.
+	 * The providers are loaded a chunk at a time while the body is written.
+	 *
+	 * @return the response body.
+	 */
+	public StreamingResponseBody streamAllProviders() {
+		return ndjsonStreamer.stream(repository::streamAllIds, repository::findWithListingsByIdIn);
+	}
+
 	/**
 	 * Searches for a specific providers.
 	 *
@@ -108,7 +140,7 @@ public class CourseProviderService {
 	 * @return Any providers that match the search query
 	 */
 	public Iterable<CourseProvider> searchProvider(String query) {
-		return repository.searchProvider(query);
+		return searchBackend.searchProviders(query);
 	}
 
 
@@ -2,19 +2,32 @@ package no.ntnu.database.service;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import no.ntnu.database.cache.CourseCache;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.ImageDeletedEvent;
 import no.ntnu.database.model.Course;
 import no.ntnu.database.model.Image;
 import no.ntnu.database.repository.CategoryRepository;
+import no.ntnu.database.repository.CourseCursor;
 import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.repository.CourseSortKey;
 import no.ntnu.database.repository.ImageRepository;
+import no.ntnu.database.search.SearchBackend;
+import no.ntnu.dto.CoursePage;
+import no.ntnu.dto.CourseSearchResult;
+import no.ntnu.dto.CourseView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -26,28 +39,45 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Service
 public class CourseService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CourseService.class);
+	static final int MAX_PAGE_SIZE = 100;
 
 	private final CourseRepository repository;
 	private final CategoryRepository categoryRepository;
 	private final ImageRepository imageRepository;
 	private final ImageService imageService;
+	private final SearchBackend searchBackend;
+	private final CourseCache courseCache;
+	private final NdjsonStreamer ndjsonStreamer;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Makes the course service.
 	 *
 	 * @param courseRepository The repository class for communication
+	 * @param searchBackend    The backend used for searching courses
+	 * @param courseCache      The cache used for looking up courses by ID
+	 * @param ndjsonStreamer   Writes every course as newline delimited JSON
+	 * @param eventPublisher   Publishes course changes to the indexes kept outside the database
 	 */
 	@Autowired
 	public CourseService(
 			CourseRepository courseRepository,
 			CategoryRepository categoryRepository,
 			ImageRepository imageRepository,
-			ImageService imageService
+			ImageService imageService,
+			SearchBackend searchBackend,
+			CourseCache courseCache,
+			NdjsonStreamer ndjsonStreamer,
+			ApplicationEventPublisher eventPublisher
 	) {
 		this.repository = courseRepository;
 		this.categoryRepository = categoryRepository;
 		this.imageRepository = imageRepository;
 		this.imageService = imageService;
+		this.searchBackend = searchBackend;
+		this.courseCache = courseCache;
+		this.ndjsonStreamer = ndjsonStreamer;
+		this.eventPublisher = eventPublisher;
 	}
 
 	private <T, I> Set<T> findAllAsSet(Iterable<I> ids, CrudRepository<T, I> repository) {
@@ -93,6 +123,7 @@ public class CourseService {
 			LOGGER.warn("Course is invalid");
 		}
 		repository.save(course);
+		eventPublisher.publishEvent(new CourseSavedEvent(course));
 		return course.getCourseId();
 	}
 
@@ -105,6 +136,45 @@ public class CourseService {
 		return repository.findAll();
 	}
 
+	/**
+	 * Returns a response body writing every course as newline delimited JSON, ordered by ID.
+	 * The courses are loaded a chunk at a time while the body is written.
+	 *
+	 * @return The response body
+	 */
+	public StreamingResponseBody streamAllCourses() {
+		return ndjsonStreamer.stream(repository::streamAllIds, repository::findViewsById);
+	}
+
+	/**
+	 * Returns one page of courses, sorted by the given key and then by course id.
+	 *
+	 * @param sortKey The key to sort the courses by
+	 * @param limit   The maximum number of courses on the page, capped at {@value #MAX_PAGE_SIZE}
+	 * @param after   The continuation token of the previous page, or null for the first page
+	 * @return The page, with a continuation token if more courses follow
+	 * @throws IllegalArgumentException If the token is invalid or belongs to another sort key
+	 */
+	public CoursePage getCoursePage(CourseSortKey sortKey, int limit, String after) {
+		CourseCursor cursor = after == null || after.isBlank() ? null : CourseCursor.decode(after);
+		if (cursor != null && cursor.sortKey() != sortKey) {
+			throw new IllegalArgumentException("The cursor belongs to a listing with another sort");
+		}
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+		//Fetch one extra course to know whether there is a next page.
+		List<Integer> ids = repository.findCourseIdsAfter(sortKey, cursor, pageSize + 1);
+		boolean hasMore = ids.size() > pageSize;
+		List<CourseView> courses = repository.findViewsById(
+				hasMore ? ids.subList(0, pageSize) : ids
+		);
+		String nextCursor = null;
+		if (hasMore && !courses.isEmpty()) {
+			nextCursor = CourseCursor.after(sortKey, courses.get(courses.size() - 1)).encode();
+		}
+		return new CoursePage(courses, nextCursor);
+	}
+
 	/**
 	 * Returns the count of all courses in the database.
 	 *
@@ -121,12 +191,20 @@ public class CourseService {
 	 * @param courseDto A {@link Course.Dto} containing updated data.
 	 */
 	public void updateCourse(int id, Course.Dto courseDto) {
-		Course course = makeCourseFromDto(courseDto, repository.findById(id).orElseThrow(() ->
+		Course existing = repository.findById(id).orElseThrow(() ->
 				new IllegalStateException(String.format("Course with ID %s not found ", id))
-		));
+		);
+		Image oldImage = existing.getImage();
+		Course course = makeCourseFromDto(courseDto, existing);
 
 		if (course.isValid()) {
 			repository.save(course);
+			eventPublisher.publishEvent(new CourseSavedEvent(course));
+			//A replaced image is deleted as an orphan, so the caches of images must drop it.
+			if (oldImage != null && (course.getImage() == null
+					|| course.getImage().getImageId() != oldImage.getImageId())) {
+				eventPublisher.publishEvent(new ImageDeletedEvent(oldImage.getImageId()));
+			}
 		} else {
 			throw new IllegalArgumentException("Course is invalid");
 		}
@@ -144,29 +222,61 @@ public class CourseService {
 			LOGGER.warn("Invalid ID");
 		}
 		if (course.isPresent()) {
+			Image image = course.get().getImage();
 			repository.deleteById(id);
+			eventPublisher.publishEvent(new CourseDeletedEvent(id));
+			//The image of the course is deleted with it.
+			if (image != null) {
+				eventPublisher.publishEvent(new ImageDeletedEvent(image.getImageId()));
+			}
 		}
 		return course.isPresent();
 	}
 
 	/**
-	 * Returns a course from the database corresponding to its ID.
+	 * Returns a view of a course corresponding to its ID, from the {@link CourseCache} if possible.
 	 *
 	 * @param id the ID of the course to return.
 	 * @return the course with the given ID, or an empty Optional if not found.
 	 */
-	public Optional<Course> findById(int id) {
+	public Optional<CourseView> findById(int id) {
 		//To access findById inside the course controller.
-		return repository.findById(id);
+		return courseCache.findById(id);
 	}
 
 	/**
 	 * Searches for a specific courses.
 	 *
 	 * @param query The search query to use when searching for courses
-	 * @return Any courses that match the search query
+	 * @param limit The maximum number of courses to return,
+	 *              capped at {@value #MAX_PAGE_SIZE}
+	 * @return The courses that best match the search query, most relevant first,
+	 *     and a spelling suggestion if the query seemed misspelled
+	 */
+	public CourseSearchResult searchCourse(String query, int limit) {
+		int capped = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		if (query == null || query.isBlank()) {
+			return new CourseSearchResult(
+					getCoursePage(CourseSortKey.ID, capped, null).courses(),
+					(int) countAllCourses(),
+					null
+			);
+		}
+		return searchBackend.searchCourses(query, capped);
+	}
+
+	/**
+	 * Searches for every course matching a query, as the search did before it took a limit.
+	 *
+	 * @param query The search query to use when searching for courses
+	 * @return Every course matching the search query, most relevant first, or every course
+	 *     if the query is blank, and a spelling suggestion if the query seemed misspelled
 	 */
-	public Iterable<Course> searchCourse(String query) {
-		return repository.searchCourse(query);
+	public CourseSearchResult searchAllCourses(String query) {
+		if (query == null || query.isBlank()) {
+			List<CourseView> courses = repository.findAllViews();
+			return new CourseSearchResult(courses, courses.size(), null);
+		}
+		return searchBackend.searchCourses(query, Integer.MAX_VALUE);
 	}
 }
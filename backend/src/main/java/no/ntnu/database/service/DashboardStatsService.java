@@ -0,0 +1,430 @@
+package no.ntnu.database.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import no.ntnu.database.event.CategoryDeletedEvent;
+import no.ntnu.database.event.CategorySavedEvent;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseListingChangedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.event.FavoriteDeletedEvent;
+import no.ntnu.database.event.FavoriteSavedEvent;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.event.ProviderSavedEvent;
+import no.ntnu.database.event.UserDeletedEvent;
+import no.ntnu.database.event.UserSavedEvent;
+import no.ntnu.database.model.Category;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.repository.CategoryRepository;
+import no.ntnu.database.repository.CourseProviderLinkRepository;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.repository.FavoriteRepository;
+import no.ntnu.database.repository.UserRepository;
+import no.ntnu.dto.DashboardStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class keeping the {@link DashboardStats admin dashboard aggregates} in memory,
+ * so the dashboard does not count any tables.
+ *
+ * <p>The aggregates are updated from the events published by the services' write paths.
+ * As a safety net against missed changes, such as cascading deletes done by the database,
+ * they are reconciled against the database once the application is ready and then every
+ * {@code admin.stats.reconcile-interval-ms} milliseconds, ten minutes by default.
+ * Changes arriving while the database is recounted are applied to the recounted aggregates
+ * too before they replace the current ones, so they are not lost.</p>
+ */
+@Service
+public class DashboardStatsService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DashboardStatsService.class);
+
+	private final CourseRepository courseRepository;
+	private final CategoryRepository categoryRepository;
+	private final CourseProviderRepository providerRepository;
+	private final CourseProviderLinkRepository linkRepository;
+	private final UserRepository userRepository;
+	private final FavoriteRepository favoriteRepository;
+
+	private final Object recountLock = new Object();
+	private Counters counters = new Counters();
+	private Instant reconciledAt;
+	//The changes applied since the running recount started, or null if none is running.
+	private List<Consumer<Counters>> changesDuringRecount;
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param courseRepository   The repository to reconcile the courses against
+	 * @param categoryRepository The repository to reconcile the categories against
+	 * @param providerRepository The repository to reconcile the providers against
+	 * @param linkRepository     The repository to reconcile the price listings against
+	 * @param userRepository     The repository to reconcile the users against
+	 * @param favoriteRepository The repository to reconcile the favorites against
+	 */
+	@Autowired
+	public DashboardStatsService(
+			CourseRepository courseRepository,
+			CategoryRepository categoryRepository,
+			CourseProviderRepository providerRepository,
+			CourseProviderLinkRepository linkRepository,
+			UserRepository userRepository,
+			FavoriteRepository favoriteRepository
+	) {
+		this.courseRepository = courseRepository;
+		this.categoryRepository = categoryRepository;
+		this.providerRepository = providerRepository;
+		this.linkRepository = linkRepository;
+		this.userRepository = userRepository;
+		this.favoriteRepository = favoriteRepository;
+	}
+
+	/**
+	 * Returns the current dashboard aggregates.
+	 *
+	 * @return The dashboard aggregates
+	 */
+	public synchronized DashboardStats getStats() {
+		return counters.toStats(reconciledAt);
+	}
+
+	/**
+	 * Recounts every aggregate from the database, logging the ones that had drifted.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(
+			initialDelayString = "${admin.stats.reconcile-interval-ms:600000}",
+			fixedDelayString = "${admin.stats.reconcile-interval-ms:600000}"
+	)
+	@Transactional(readOnly = true)
+	public void reconcile() {
+		synchronized (recountLock) {
+			startRecount();
+			replaceCounters(recount(), true);
+		}
+	}
+
+	/**
+	 * Recounts every aggregate after a bulk import, which bypasses the change events.
+	 *
+	 * @param event The import that was done
+	 */
+	@EventListener
+	@Transactional(readOnly = true)
+	public void onCoursesImported(CoursesImportedEvent event) {
+		synchronized (recountLock) {
+			startRecount();
+			replaceCounters(recount(), false);
+		}
+	}
+
+	private synchronized void startRecount() {
+		changesDuringRecount = new ArrayList<>();
+	}
+
+	private Counters recount() {
+		Counters recounted = new Counters();
+		for (Category category : categoryRepository.findAll()) {
+			recounted.putCategory(category.getCategoryId(), category.getCategoryName());
+		}
+		Map<Integer, Set<Integer>> categories = new HashMap<>();
+		for (Object[] row : courseRepository.findAllCategoryLinks()) {
+			categories.computeIfAbsent((Integer) row[0], id -> new HashSet<>()).add((Integer) row[1]);
+		}
+		for (Object[] row : courseRepository.findAllFacetValues()) {
+			int courseId = (Integer) row[0];
+			recounted.putCourse(courseId, (String) row[1], categories.getOrDefault(courseId, Set.of()));
+		}
+		for (Integer providerId : providerRepository.findAllIds()) {
+			recounted.putProvider(providerId);
+		}
+		for (Object[] row : linkRepository.findAllCurrencies()) {
+			recounted.putListing((Integer) row[0], (Integer) row[1], (String) row[2]);
+		}
+		for (Object[] row : userRepository.findAllTwoFactorStates()) {
+			recounted.putUser((Long) row[0], (Boolean) row[1]);
+		}
+		for (Object[] row : favoriteRepository.findAllIds()) {
+			recounted.putFavorite((Integer) row[0], (Long) row[1]);
+		}
+		return recounted;
+	}
+
+	private void replaceCounters(Counters recounted, boolean logDrift) {
+		synchronized (this) {
+			//The recount may have seen these changes already, and applying one twice is harmless.
+			for (Consumer<Counters> change : changesDuringRecount) {
+				change.accept(recounted);
+			}
+			changesDuringRecount = null;
+			DashboardStats before = counters.toStats(reconciledAt);
+			reconciledAt = Instant.now();
+			DashboardStats after = recounted.toStats(reconciledAt);
+			if (logDrift && before.reconciledAt() != null && !sameAggregates(before, after)) {
+				LOGGER.warn("Dashboard statistics had drifted from the database, was {}", before);
+			}
+			counters = recounted;
+		}
+	}
+
+	private static boolean sameAggregates(DashboardStats a, DashboardStats b) {
+		return a.courses() == b.courses()
+				&& a.coursesPerCategory().equals(b.coursesPerCategory())
+				&& a.coursesPerDifficulty().equals(b.coursesPerDifficulty())
+				&& a.providers() == b.providers()
+				&& a.listingsPerCurrency().equals(b.listingsPerCurrency())
+				&& a.users() == b.users()
+				&& a.usersWithTwoFactor() == b.usersWithTwoFactor()
+				&& a.favorites() == b.favorites();
+	}
+
+	/**
+	 * Applies a change to the current aggregates, and remembers it for the recounted
+	 * aggregates if a recount is running.
+	 */
+	private synchronized void apply(Consumer<Counters> change) {
+		change.accept(counters);
+		if (changesDuringRecount != null) {
+			changesDuringRecount.add(change);
+		}
+	}
+
+	@EventListener
+	public void onCourseSaved(CourseSavedEvent event) {
+		Course course = event.course();
+		int courseId = course.getCourseId();
+		String difficultyLevel = course.getDifficultyLevel();
+		Set<Integer> categoryIds = new HashSet<>();
+		for (Category category : course.getCategories()) {
+			categoryIds.add(category.getCategoryId());
+		}
+		apply(aggregates -> aggregates.putCourse(courseId, difficultyLevel, categoryIds));
+	}
+
+	@EventListener
+	public void onCourseDeleted(CourseDeletedEvent event) {
+		apply(aggregates -> aggregates.removeCourse(event.courseId()));
+	}
+
+	@EventListener
+	public void onCategorySaved(CategorySavedEvent event) {
+		int categoryId = event.category().getCategoryId();
+		String categoryName = event.category().getCategoryName();
+		apply(aggregates -> aggregates.putCategory(categoryId, categoryName));
+	}
+
+	@EventListener
+	public void onCategoryDeleted(CategoryDeletedEvent event) {
+		apply(aggregates -> aggregates.removeCategory(event.categoryId()));
+	}
+
+	@EventListener
+	public void onProviderSaved(ProviderSavedEvent event) {
+		int providerId = event.provider().getCourseProviderId();
+		apply(aggregates -> aggregates.putProvider(providerId));
+	}
+
+	@EventListener
+	public void onProviderDeleted(ProviderDeletedEvent event) {
+		apply(aggregates -> aggregates.removeProvider(event.providerId()));
+	}
+
+	@EventListener
+	public void onCourseListingChanged(CourseListingChangedEvent event) {
+		if (event.currency() == null) {
+			apply(aggregates -> aggregates.removeListing(event.courseId(), event.providerId()));
+		} else {
+			apply(aggregates -> aggregates.putListing(
+					event.courseId(), event.providerId(), event.currency()
+			));
+		}
+	}
+
+	@EventListener
+	public void onUserSaved(UserSavedEvent event) {
+		long userId = event.user().getId();
+		boolean twoFactorEnabled = event.user().isTwoFactorEnabled();
+		apply(aggregates -> aggregates.putUser(userId, twoFactorEnabled));
+	}
+
+	@EventListener
+	public void onUserDeleted(UserDeletedEvent event) {
+		apply(aggregates -> aggregates.removeUser(event.userId()));
+	}
+
+	@EventListener
+	public void onFavoriteSaved(FavoriteSavedEvent event) {
+		apply(aggregates -> aggregates.putFavorite(event.courseId(), event.userId()));
+	}
+
+	@EventListener
+	public void onFavoriteDeleted(FavoriteDeletedEvent event) {
+		apply(aggregates -> aggregates.removeFavorite(event.courseId(), event.userId()));
+	}
+
+	/**
+	 * The state needed to apply changes as deltas, and the aggregates themselves.
+	 * Not thread safe.
+	 */
+	private static final class Counters {
+		private record CourseState(String difficultyLevel, Set<Integer> categoryIds) {
+		}
+
+		private record ListingKey(int courseId, int providerId) {
+		}
+
+		private record FavoriteKey(int courseId, long userId) {
+		}
+
+		private final Map<Integer, CourseState> courses = new HashMap<>();
+		private final Map<Integer, String> categoryNames = new HashMap<>();
+		private final Map<Integer, Long> coursesPerCategory = new HashMap<>();
+		private final Map<String, Long> coursesPerDifficulty = new HashMap<>();
+		private final Set<Integer> providers = new HashSet<>();
+		private final Map<ListingKey, String> listings = new HashMap<>();
+		private final Map<String, Long> listingsPerCurrency = new HashMap<>();
+		private final Map<Long, Boolean> users = new HashMap<>();
+		private long usersWithTwoFactor;
+		private final Set<FavoriteKey> favorites = new HashSet<>();
+
+		void putCourse(int courseId, String difficultyLevel, Set<Integer> categoryIds) {
+			uncountCourse(courseId);
+			courses.put(courseId, new CourseState(difficultyLevel, new HashSet<>(categoryIds)));
+			if (difficultyLevel != null) {
+				coursesPerDifficulty.merge(difficultyLevel, 1L, Long::sum);
+			}
+			for (int categoryId : categoryIds) {
+				coursesPerCategory.merge(categoryId, 1L, Long::sum);
+			}
+		}
+
+		void removeCourse(int courseId) {
+			uncountCourse(courseId);
+			//Listings and favorites are deleted along with their course.
+			listings.keySet().stream()
+					.filter(key -> key.courseId() == courseId)
+					.toList()
+					.forEach(key -> removeListing(key.courseId(), key.providerId()));
+			favorites.removeIf(key -> key.courseId() == courseId);
+		}
+
+		private void uncountCourse(int courseId) {
+			CourseState state = courses.remove(courseId);
+			if (state != null) {
+				if (state.difficultyLevel() != null) {
+					decrement(coursesPerDifficulty, state.difficultyLevel());
+				}
+				for (int categoryId : state.categoryIds()) {
+					decrement(coursesPerCategory, categoryId);
+				}
+			}
+		}
+
+		void putCategory(int categoryId, String categoryName) {
+			categoryNames.put(categoryId, categoryName);
+		}
+
+		void removeCategory(int categoryId) {
+			categoryNames.remove(categoryId);
+			coursesPerCategory.remove(categoryId);
+			for (CourseState state : courses.values()) {
+				state.categoryIds().remove(categoryId);
+			}
+		}
+
+		void putProvider(int providerId) {
+			providers.add(providerId);
+		}
+
+		void removeProvider(int providerId) {
+			providers.remove(providerId);
+			//Listings are deleted along with their provider.
+			listings.keySet().stream()
+					.filter(key -> key.providerId() == providerId)
+					.toList()
+					.forEach(key -> removeListing(key.courseId(), key.providerId()));
+		}
+
+		void putListing(int courseId, int providerId, String currency) {
+			removeListing(courseId, providerId);
+			String normalized = currency.toUpperCase();
+			listings.put(new ListingKey(courseId, providerId), normalized);
+			listingsPerCurrency.merge(normalized, 1L, Long::sum);
+		}
+
+		void removeListing(int courseId, int providerId) {
+			String currency = listings.remove(new ListingKey(courseId, providerId));
+			if (currency != null) {
+				decrement(listingsPerCurrency, currency);
+			}
+		}
+
+		void putUser(long userId, boolean twoFactorEnabled) {
+			Boolean previous = users.put(userId, twoFactorEnabled);
+			if (Boolean.TRUE.equals(previous)) {
+				usersWithTwoFactor--;
+			}
+			if (twoFactorEnabled) {
+				usersWithTwoFactor++;
+			}
+		}
+
+		void removeUser(long userId) {
+			if (Boolean.TRUE.equals(users.remove(userId))) {
+				usersWithTwoFactor--;
+			}
+			//Favorites are deleted along with their user.
+			favorites.removeIf(key -> key.userId() == userId);
+		}
+
+		void putFavorite(int courseId, long userId) {
+			favorites.add(new FavoriteKey(courseId, userId));
+		}
+
+		void removeFavorite(int courseId, long userId) {
+			favorites.remove(new FavoriteKey(courseId, userId));
+		}
+
+		DashboardStats toStats(Instant reconciledAt) {
+			Map<String, Long> perCategory = new TreeMap<>();
+			coursesPerCategory.forEach((categoryId, count) -> perCategory.merge(
+					Objects.requireNonNullElse(categoryNames.get(categoryId), "#" + categoryId),
+					count,
+					Long::sum
+			));
+			return new DashboardStats(
+					courses.size(),
+					perCategory,
+					new TreeMap<>(coursesPerDifficulty),
+					providers.size(),
+					listings.size(),
+					new TreeMap<>(listingsPerCurrency),
+					users.size(),
+					usersWithTwoFactor,
+					users.isEmpty() ? 0 : (double) usersWithTwoFactor / users.size(),
+					favorites.size(),
+					reconciledAt
+			);
+		}
+
+		private static <K> void decrement(Map<K, Long> counts, K key) {
+			counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+		}
+	}
+}
@@ -1,8 +1,13 @@
 package no.ntnu.database.service;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.Set;
 import no.ntnu.currency.ExchangeRateTracker;
-import org.springframework.beans.factory.annotation.Value;
+import no.ntnu.currency.PastRates;
+import no.ntnu.currency.RateSnapshot;
+import no.ntnu.currency.RateStatus;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -15,21 +20,56 @@ public class ExchangeRateService {
 	/**
 	 * Constructor.
 	 *
-	 * @param apiKey The api key to use if {@link ExchangeRateTracker}
-	 *               hasn't been {@link ExchangeRateTracker#startTracking(String) started} yet.
-	 *               This is autowired from the {@code exchange-rates.api-key} environment variable
+	 * @param exchangeRateTracker The tracker keeping the current rates
 	 */
-	public ExchangeRateService(@Value("${exchange-rates.api-key}") String apiKey) {
-		if (!ExchangeRateTracker.isStarted()) {
-			ExchangeRateTracker.startTracking(apiKey);
-		}
-		exchangeRateTracker = new ExchangeRateTracker();
+	@Autowired
+	public ExchangeRateService(ExchangeRateTracker exchangeRateTracker) {
+		this.exchangeRateTracker = exchangeRateTracker;
 	}
 
+	/**
+	 * Converts an amount between two currencies, at the current rates.
+	 *
+	 * @param amount       The amount to convert
+	 * @param fromCurrency The currency of the amount
+	 * @param toCurrency   The currency to convert to
+	 * @return The converted amount
+	 * @throws IllegalArgumentException If either currency is not tracked
+	 */
 	public double exchangeAmount(double amount, String fromCurrency, String toCurrency) {
 		return amount * exchangeRateTracker.getRate(fromCurrency, toCurrency);
 	}
 
+	/**
+	 * Returns the current rates, to convert several amounts at the same rates.
+	 *
+	 * @return The current rates
+	 */
+	public RateSnapshot getSnapshot() {
+		return exchangeRateTracker.getSnapshot();
+	}
+
+	/**
+	 * Returns the rates that were in use at an instant, to convert amounts as they were then.
+	 *
+	 * @param instant The instant
+	 * @return The last rates fetched at or before the instant,
+	 *     or an empty Optional if none were fetched before it
+	 */
+	public Optional<PastRates> getRatesAt(Instant instant) {
+		return exchangeRateTracker.getRatesAt(instant);
+	}
+
+	/**
+	 * Returns how current the rates are, for clients to tell when prices were converted
+	 * at old rates because the rate source could not be reached.
+	 *
+	 * @return When the current rates were fetched, and whether they are stale
+	 */
+	public RateStatus getRateStatus() {
+		return exchangeRateTracker.getStatus();
+	}
+
 	public Set<String> getCurrencies() {
 		return exchangeRateTracker.getCurrencies();
 	}
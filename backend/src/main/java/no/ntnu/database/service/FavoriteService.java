@@ -1,10 +1,16 @@
 package no.ntnu.database.service;
 
 import java.util.Optional;
+import no.ntnu.database.event.FavoriteDeletedEvent;
+import no.ntnu.database.event.FavoriteSavedEvent;
 import no.ntnu.database.model.Favorite;
+import no.ntnu.database.model.User;
+import no.ntnu.database.repository.CourseRepository;
 import no.ntnu.database.repository.FavoriteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 
@@ -16,24 +22,42 @@ import org.springframework.stereotype.Service;
 @Service
 public class FavoriteService {
 	private final FavoriteRepository repository;
+	private final CourseRepository courseRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Makes the favorite service.
 	 *
 	 * @param favoriteRepository The repository class for communication
+	 * @param courseRepository   The repository the favorite courses are referenced from
+	 * @param eventPublisher     Publishes favorite changes to the dashboard statistics
 	 */
 	@Autowired
-	public FavoriteService(FavoriteRepository favoriteRepository) {
+	public FavoriteService(
+			FavoriteRepository favoriteRepository,
+			CourseRepository courseRepository,
+			ApplicationEventPublisher eventPublisher
+	) {
 		this.repository = favoriteRepository;
+		this.courseRepository = courseRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
-	 * Adds a favorite entry in the database.
+	 * Adds a favorite entry in the database, referencing the course by its ID
+	 * rather than with a course loaded in another session.
 	 *
-	 * @param favorite The {@link Favorite} entry to be added to the database.
+	 * @param courseId The ID of the course to add as a favorite, which must exist
+	 * @param user     The user adding the favorite
+	 * @return The {@link Favorite} entry added to the database.
 	 */
-	public void add(Favorite favorite) {
-		repository.save(favorite);
+	@Transactional
+	public Favorite add(int courseId, User user) {
+		Favorite favorite = repository.save(
+				new Favorite(courseRepository.getReferenceById(courseId), user)
+		);
+		eventPublisher.publishEvent(new FavoriteSavedEvent(courseId, user.getId()));
+		return favorite;
 	}
 
 	/**
@@ -70,6 +94,9 @@ public class FavoriteService {
 		Optional<Favorite> favorite = repository
 				.findById(new Favorite.FavoriteId(courseId, userId));
 		favorite.ifPresent(repository::delete);
+		if (favorite.isPresent()) {
+			eventPublisher.publishEvent(new FavoriteDeletedEvent(courseId, userId));
+		}
 		return favorite.isPresent();
 	}
 
@@ -0,0 +1,114 @@
+package no.ntnu.database.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import no.ntnu.database.event.ImageSavedEvent;
+import no.ntnu.database.model.Image;
+import no.ntnu.database.model.ImagePayload;
+import no.ntnu.database.repository.ImagePayloadRepository;
+import no.ntnu.database.repository.ImageRepository;
+import no.ntnu.database.storage.BlobStore;
+import no.ntnu.dto.ImageMigrationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class moving the content of images stored before the {@link BlobStore}
+ * out of the image table.
+ *
+ * <p>Every image is moved in its own transaction, so only one image is held in memory
+ * at a time, and an interrupted migration can simply be started again.</p>
+ */
+@Service
+public class ImageMigrationService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageMigrationService.class);
+
+	private final ImageRepository imageRepository;
+	private final ImagePayloadRepository payloadRepository;
+	private final ImageService imageService;
+	private final BlobStore blobStore;
+	private final TransactionTemplate transactionTemplate;
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param imageRepository    The repository to load and save the images with
+	 * @param payloadRepository  The repository to read and clear the content in the table with
+	 * @param imageService       Reads the size of the moved images
+	 * @param blobStore          The store to move the content to
+	 * @param transactionManager The transaction manager used to move each image
+	 * @param eventPublisher     Publishes the moved images to the caches of courses
+	 */
+	@Autowired
+	public ImageMigrationService(
+			ImageRepository imageRepository,
+			ImagePayloadRepository payloadRepository,
+			ImageService imageService,
+			BlobStore blobStore,
+			PlatformTransactionManager transactionManager,
+			ApplicationEventPublisher eventPublisher
+	) {
+		this.imageRepository = imageRepository;
+		this.payloadRepository = payloadRepository;
+		this.imageService = imageService;
+		this.blobStore = blobStore;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.eventPublisher = eventPublisher;
+	}
+
+	/**
+	 * Moves the content of every image still kept in the table to the blob store.
+	 *
+	 * @return The number of moved images, and of images that could not be moved
+	 */
+	public ImageMigrationResult migrate() {
+		long start = System.currentTimeMillis();
+		int migrated = 0;
+		int failed = 0;
+		for (int id : imageRepository.findIdsStoredInDatabase()) {
+			try {
+				Image image = transactionTemplate.execute(status -> migrate(id));
+				if (image != null) {
+					eventPublisher.publishEvent(new ImageSavedEvent(image));
+					migrated++;
+				}
+			} catch (UncheckedIOException | DataAccessException e) {
+				LOGGER.error("Could not move the content of image {}", id, e);
+				failed++;
+			}
+		}
+		LOGGER.info("Moved {} images to the blob store in {} ms, {} failed",
+				migrated, System.currentTimeMillis() - start, failed);
+		return new ImageMigrationResult(migrated, failed);
+	}
+
+	private Image migrate(int id) {
+		Image image = imageRepository.findById(id).orElse(null);
+		ImagePayload payload = payloadRepository.findById(id).orElse(null);
+		if (image != null && image.getContentHash() == null
+				&& payload != null && payload.getImageBytes() != null) {
+			try {
+				BlobStore.Blob blob = blobStore.put(
+						new ByteArrayInputStream(payload.getImageBytes())
+				);
+				image.setContent(blob.hash(), blob.length());
+				imageService.setDimensions(image);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			imageRepository.save(image);
+			payloadRepository.clearContent(id);
+		} else {
+			image = null;
+		}
+		return image;
+	}
+}
@@ -1,13 +1,34 @@
 package no.ntnu.database.service;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import no.ntnu.database.cache.ImageCache;
+import no.ntnu.database.event.ImageDeletedEvent;
+import no.ntnu.database.event.ImageSavedEvent;
+import no.ntnu.database.event.ImageVariantsDeletedEvent;
+import no.ntnu.database.imaging.ImageFormat;
+import no.ntnu.database.imaging.ImageResizer;
 import no.ntnu.database.model.Image;
 import no.ntnu.database.repository.ImageRepository;
+import no.ntnu.database.repository.ImageVariantRepository;
+import no.ntnu.database.storage.BlobStore;
+import no.ntnu.database.storage.ContentTooLargeException;
+import no.ntnu.dto.ImageMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 
@@ -19,18 +40,93 @@ import org.springframework.web.multipart.MultipartFile;
 public class ImageService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ImageService.class);
+	/**
+	 * How long a stored payload is kept without being referenced, so an upload
+	 * has time to save the image pointing at it.
+	 */
+	private static final Duration SWEEP_GRACE_PERIOD = Duration.ofHours(1);
 
-	private final ImageRepository imageRepository;
+	/**
+	 * 1MB is spring's default max file size, if not otherwise specified.
+	 */
+	@Value("${spring.servlet.multipart.max-file-size:1MB}")
+	private DataSize sizeLimit;
 
+	private final ImageRepository imageRepository;
+	private final ImageCache imageCache;
+	private final ImageVariantRepository variantRepository;
+	private final BlobStore blobStore;
+	private final ImageVariantService variantService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Makes the image service.
 	 *
-	 * @param imageRepository The repository class for communication.
+	 * @param imageRepository   The repository class for communication.
+	 * @param imageCache        The cache of the most requested images.
+	 * @param variantRepository The repository keeping the smaller renditions of images.
+	 * @param blobStore         The store keeping the image content.
+	 * @param variantService    Makes the smaller renditions of new content.
+	 * @param eventPublisher    Publishes image changes to the caches of courses.
 	 */
 	@Autowired
-	public ImageService(ImageRepository imageRepository) {
+	public ImageService(
+			ImageRepository imageRepository,
+			ImageCache imageCache,
+			ImageVariantRepository variantRepository,
+			BlobStore blobStore,
+			ImageVariantService variantService,
+			ApplicationEventPublisher eventPublisher
+	) {
 		this.imageRepository = imageRepository;
+		this.imageCache = imageCache;
+		this.variantRepository = variantRepository;
+		this.blobStore = blobStore;
+		this.variantService = variantService;
+		this.eventPublisher = eventPublisher;
+	}
+
+	/**
+	 * Stores image content in the blob store, and returns an unsaved image pointing at it.
+	 * Content that is already stored is shared instead of stored again.
+	 * Smaller renditions of the content are made in the background.
+	 *
+	 * <p>The content is streamed to disk while it is hashed, so it is never held in memory.
+	 * Its format is recognized from its first bytes rather than trusted from the client,
+	 * and its length is limited to the maximum upload size as it is read.</p>
+	 *
+	 * @param content The image content, read to the end
+	 * @param altText The image's alt text / caption
+	 * @return The image, to be saved with {@link #add} or {@link #update}
+	 * @throws IllegalArgumentException If the content is not in an accepted image format
+	 * @throws ContentTooLargeException If the content is longer than the maximum upload size
+	 * @throws IOException              If the content cannot be read or stored
+	 */
+	public Image store(InputStream content, String altText) throws IOException {
+		InputStream buffered = new BufferedInputStream(content);
+		ImageFormat format = ImageFormat.detect(buffered).orElseThrow(() ->
+				new IllegalArgumentException("The content is not a JPEG, PNG, GIF or WebP image")
+		);
+		BlobStore.Blob blob = blobStore.put(buffered, sizeLimit.isNegative()
+				? Long.MAX_VALUE
+				: sizeLimit.toBytes()
+		);
+		variantService.schedule(blob.hash(), format.getImageType());
+		Image image = new Image(blob.hash(), blob.length(), format.getImageType(), altText);
+		setDimensions(image);
+		return image;
+	}
+
+	/**
+	 * Sets the size of an image from the header of its content, if ImageIO can read it.
+	 *
+	 * @param image The image, with its content in the blob store
+	 * @throws IOException If the content cannot be read
+	 */
+	void setDimensions(Image image) throws IOException {
+		ImageResizer.readDimensions(blobStore.path(image.getContentHash())).ifPresent(
+				dimensions -> image.setDimensions(dimensions.width(), dimensions.height())
+		);
 	}
 
 
@@ -58,6 +154,7 @@ public class ImageService {
 			exists = true;
 			image.setImageId(id);
 			imageRepository.save(image);
+			eventPublisher.publishEvent(new ImageSavedEvent(image));
 		}
 		return exists;
 	}
@@ -73,6 +170,9 @@ public class ImageService {
 		}
 		boolean existed = imageRepository.existsById(id);
 		imageRepository.deleteById(id);
+		if (existed) {
+			eventPublisher.publishEvent(new ImageDeletedEvent(id));
+		}
 		return existed;
 	}
 
@@ -87,13 +187,75 @@ public class ImageService {
 		return imageRepository.findById(id);
 	}
 
+	/**
+	 * Returns the content of an image stored before the blob store, kept in the table,
+	 * from the {@link ImageCache} if possible.
+	 *
+	 * @param id The id of the image.
+	 * @return A read-only buffer of the content, or an empty Optional if not found
+	 */
+	public Optional<ByteBuffer> findContentStoredInDatabase(int id) {
+		return imageCache.findContentStoredInDatabase(id);
+	}
+
+	/**
+	 * Returns content in the blob store from the {@link ImageCache}, if it is small enough
+	 * to be cached there.
+	 *
+	 * @param contentHash   The hash of the content.
+	 * @param contentLength The length of the content.
+	 * @return A read-only buffer of the content, or an empty Optional if the content
+	 *     is too large to cache, and must be read from its file
+	 */
+	public Optional<ByteBuffer> findCachedContent(String contentHash, long contentLength) {
+		return imageCache.findContent(contentHash, contentLength);
+	}
+
+	/**
+	 * Returns the metadata of an image, without loading its content,
+	 * from the {@link ImageCache} if possible.
+	 *
+	 * @param id The id of the image.
+	 * @return The metadata, or an empty Optional if not found
+	 */
+	public Optional<ImageMetadata> findMetadataById(int id) {
+		return imageCache.findMetadata(id);
+	}
+
 
 	public Image addImage(MultipartFile file) throws IOException {
     	if (file.isEmpty()) {
         	throw new IllegalArgumentException("Cannot save empty image.");
     	}
-    	Image image = new Image(file.getBytes(), file.getContentType().split("/")[1], "Some default alt text");
+    	Image image;
+    	try (InputStream content = file.getInputStream()) {
+    		image = store(content, "Some default alt text");
+    	}
     	return imageRepository.save(image);
 	}
 
+	/**
+	 * Deletes the content in the blob store that no image points at anymore.
+	 * Images share content, so content is only deleted here, never when an image is
+	 * deleted or replaced. The renditions of deleted content are deleted with it.
+	 */
+	@Scheduled(
+			initialDelayString = "${image.storage.sweep-interval-ms:86400000}",
+			fixedDelayString = "${image.storage.sweep-interval-ms:86400000}"
+	)
+	public void sweepUnusedContent() {
+		try {
+			int deletedVariants = variantRepository.deleteUnreferenced();
+			if (deletedVariants > 0) {
+				eventPublisher.publishEvent(new ImageVariantsDeletedEvent(deletedVariants));
+			}
+			Set<String> referenced = new HashSet<>(imageRepository.findAllContentHashes());
+			referenced.addAll(variantRepository.findAllContentHashes());
+			int deleted = blobStore.sweep(referenced, Instant.now().minus(SWEEP_GRACE_PERIOD));
+			LOGGER.info("Deleted {} unused image files", deleted);
+		} catch (IOException e) {
+			LOGGER.error("Could not sweep the image store", e);
+		}
+	}
+
 }
@@ -0,0 +1,204 @@
+package no.ntnu.database.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.database.cache.ImageCache;
+import no.ntnu.database.event.ImageVariantsSavedEvent;
+import no.ntnu.database.imaging.ImageResizer;
+import no.ntnu.database.model.ImageVariant;
+import no.ntnu.database.repository.ImageRepository;
+import no.ntnu.database.repository.ImageVariantRepository;
+import no.ntnu.database.storage.BlobStore;
+import no.ntnu.dto.ImageMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class making and choosing smaller renditions of image content,
+ * so clients can download an image no larger than they display it.
+ *
+ * <p>Renditions are made in the background by a fixed number of workers, with a bounded
+ * queue, so uploads never wait for them and a burst of uploads cannot exhaust memory.
+ * Content that does not fit in the queue, and content stored before renditions existed,
+ * is picked up by a periodic backfill. Until its renditions are made, content is
+ * served as is.</p>
+ */
+@Service
+public class ImageVariantService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantService.class);
+	/**
+	 * The widths renditions are made at, in pixels.
+	 */
+	static final List<Integer> WIDTHS = List.of(160, 320, 640, 1280);
+
+	private final ImageVariantRepository variantRepository;
+	private final ImageRepository imageRepository;
+	private final ImageCache imageCache;
+	private final BlobStore blobStore;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ThreadPoolExecutor executor;
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
+	/**
+	 * Content that could not be processed, skipped by the backfill until restarted.
+	 */
+	private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Makes the image variant service.
+	 *
+	 * @param variantRepository The repository keeping the renditions
+	 * @param imageRepository   The repository used to find content without renditions
+	 * @param imageCache        The cache the renditions are chosen from
+	 * @param blobStore         The store keeping the content and the renditions
+	 * @param eventPublisher    Publishes saved renditions to the image cache
+	 * @param workers           The number of renditions made at the same time
+	 * @param queueCapacity     The most content waiting for renditions
+	 */
+	@Autowired
+	public ImageVariantService(
+			ImageVariantRepository variantRepository,
+			ImageRepository imageRepository,
+			ImageCache imageCache,
+			BlobStore blobStore,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${image.variants.workers:2}") int workers,
+			@Value("${image.variants.queue-capacity:100}") int queueCapacity
+	) {
+		this.variantRepository = variantRepository;
+		this.imageRepository = imageRepository;
+		this.imageCache = imageCache;
+		this.blobStore = blobStore;
+		this.eventPublisher = eventPublisher;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("image-variants-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(
+				workers, workers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory
+		);
+	}
+
+	/**
+	 * Queues content to have its renditions made, unless it is queued already.
+	 *
+	 * @param contentHash The hash of the content
+	 * @param imageType   The file type of the content
+	 * @return False if the queue is full, and the content is left to the backfill
+	 */
+	public boolean schedule(String contentHash, String imageType) {
+		if (!pending.add(contentHash)) {
+			return true;
+		}
+		try {
+			executor.execute(() -> process(contentHash, imageType));
+			return true;
+		} catch (RejectedExecutionException e) {
+			pending.remove(contentHash);
+			return false;
+		}
+	}
+
+	/**
+	 * Chooses the rendition to serve at a width: the narrowest rendition at least as wide,
+	 * or the content itself if it is not wider.
+	 *
+	 * @param contentHash The hash of the content
+	 * @param width       The width the client displays the image at, in pixels
+	 * @return The rendition, or an empty Optional if the renditions are not made yet
+	 */
+	public Optional<ImageVariant> select(String contentHash, int width) {
+		List<ImageVariant> variants = imageCache.findVariants(contentHash);
+		for (ImageVariant variant : variants) {
+			if (variant.getWidth() >= width) {
+				return Optional.of(variant);
+			}
+		}
+		return variants.isEmpty()
+				? Optional.empty()
+				: Optional.of(variants.get(variants.size() - 1));
+	}
+
+	/**
+	 * Queues the content stored without renditions, as long as the queue has room.
+	 */
+	@Scheduled(
+			initialDelayString = "${image.variants.backfill-interval-ms:600000}",
+			fixedDelayString = "${image.variants.backfill-interval-ms:600000}"
+	)
+	public void backfill() {
+		int queued = 0;
+		for (ImageMetadata image : imageRepository.findMetadataWithoutVariants()) {
+			if (failed.contains(image.contentHash()) || pending.contains(image.contentHash())) {
+				continue;
+			}
+			if (!schedule(image.contentHash(), image.imageType())) {
+				break;
+			}
+			queued++;
+		}
+		if (queued > 0) {
+			LOGGER.info("Queued {} images to have their variants made", queued);
+		}
+	}
+
+	private void process(String contentHash, String imageType) {
+		try {
+			if (variantRepository.existsBySourceHash(contentHash)) {
+				return;
+			}
+			Path source = blobStore.path(contentHash);
+			//Only the first frame of an animation would be kept, so animations are served as is.
+			Optional<ImageResizer.Variants> rendered = ImageResizer.render(
+					source, "gif".equals(imageType) ? List.of() : WIDTHS
+			);
+			if (rendered.isEmpty()) {
+				LOGGER.warn("Image content {} cannot be decoded, so it has no variants",
+						contentHash);
+				failed.add(contentHash);
+				return;
+			}
+
+			List<ImageVariant> variants = new ArrayList<>();
+			for (ImageResizer.Variant variant : rendered.get().variants()) {
+				BlobStore.Blob blob = blobStore.put(new ByteArrayInputStream(variant.content()));
+				variants.add(new ImageVariant(contentHash, variant.width(),
+						blob.hash(), blob.length(), variant.imageType()));
+			}
+			variants.add(new ImageVariant(contentHash, rendered.get().originalWidth(),
+					contentHash, Files.size(source), imageType));
+			variantRepository.saveAll(variants);
+			eventPublisher.publishEvent(new ImageVariantsSavedEvent(contentHash));
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error("Could not make the variants of image content {}", contentHash, e);
+			failed.add(contentHash);
+		} finally {
+			pending.remove(contentHash);
+		}
+	}
+
+	/**
+	 * Stops the workers, dropping the queued content, which is picked up again
+	 * by the backfill after a restart.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
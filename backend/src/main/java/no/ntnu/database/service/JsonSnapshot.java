@@ -0,0 +1,128 @@
+package no.ntnu.database.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * An immutable, serialized JSON document, with a gzip compressed variant
+ * and a strong entity tag for each variant derived from the content.
+ */
+public final class JsonSnapshot {
+	private static final String GZIP = "gzip";
+
+	private final byte[] json;
+	private final byte[] gzippedJson;
+	private final String etag;
+	private final String gzipEtag;
+
+	private JsonSnapshot(byte[] json, byte[] gzippedJson, String etag) {
+		this.json = json;
+		this.gzippedJson = gzippedJson;
+		this.etag = "\"" + etag + "\"";
+		this.gzipEtag = "\"" + etag + "-" + GZIP + "\"";
+	}
+
+	/**
+	 * Creates a snapshot of a serialized JSON document, compressing it and computing its tag.
+	 *
+	 * @param json The serialized JSON document
+	 * @return The snapshot
+	 */
+	public static JsonSnapshot of(byte[] json) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(json);
+			}
+			return new JsonSnapshot(
+					json,
+					compressed.toByteArray(),
+					HexFormat.of().formatHex(digest, 0, 16)
+			);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the strong entity tag of the uncompressed variant, including the quotes.
+	 *
+	 * @return The entity tag
+	 */
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+	 * Makes the response serving the snapshot.
+	 * Responds with 304 Not Modified if the client already has either variant,
+	 * otherwise with the gzip variant if the client accepts it.
+	 *
+	 * @param ifNoneMatch    The {@code If-None-Match} header of the request, may be null
+	 * @param acceptEncoding The {@code Accept-Encoding} header of the request, may be null
+	 * @return The response
+	 */
+	public ResponseEntity<byte[]> toResponse(String ifNoneMatch, String acceptEncoding) {
+		boolean gzip = acceptsGzip(acceptEncoding);
+		boolean notModified = matches(ifNoneMatch);
+		ResponseEntity.BodyBuilder response = ResponseEntity
+				.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+				.eTag(gzip ? gzipEtag : etag)
+				.cacheControl(CacheControl.noCache())
+				.varyBy(HttpHeaders.ACCEPT_ENCODING);
+		ResponseEntity<byte[]> result;
+		if (notModified) {
+			result = response.build();
+		} else if (gzip) {
+			result = response
+					.contentType(MediaType.APPLICATION_JSON)
+					.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+					.body(gzippedJson);
+		} else {
+			result = response.contentType(MediaType.APPLICATION_JSON).body(json);
+		}
+		return result;
+	}
+
+	private boolean matches(String ifNoneMatch) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			String trimmed = tag.trim();
+			if (trimmed.startsWith("W/")) {
+				trimmed = trimmed.substring(2);
+			}
+			if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals(gzipEtag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+				return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+}
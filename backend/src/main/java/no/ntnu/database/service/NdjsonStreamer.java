@@ -0,0 +1,95 @@
+package no.ntnu.database.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes whole tables as newline delimited JSON, one record per line.
+ *
+ * <p>The IDs of the records are read through a forward-only database cursor, and the
+ * records themselves are loaded, written and flushed {@value #CHUNK_SIZE} at a time.
+ * The persistence context is cleared after every chunk, so memory use stays the same
+ * no matter how many records there are.</p>
+ */
+@Component
+public class NdjsonStreamer {
+	static final int CHUNK_SIZE = 500;
+
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Creates the streamer.
+	 *
+	 * @param objectMapper       The mapper used to serialize the records
+	 * @param transactionManager The transaction manager used to keep the cursor open
+	 */
+	@Autowired
+	public NdjsonStreamer(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+		this.objectMapper = objectMapper;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Returns a response body writing every record, in the order of their IDs.
+	 * The IDs and records are read when the body is written, in a read-only transaction.
+	 *
+	 * @param ids    Opens a stream of the IDs of every record
+	 * @param loader Loads the records with the given IDs, in the order of the IDs
+	 * @param <I>    The type of the IDs
+	 * @return The response body
+	 */
+	public <I> StreamingResponseBody stream(
+			Supplier<Stream<I>> ids,
+			Function<List<I>, ? extends List<?>> loader
+	) {
+		return output -> {
+			try {
+				transactionTemplate.executeWithoutResult(status -> {
+					try (Stream<I> idStream = ids.get();
+							JsonGenerator generator = objectMapper.createGenerator(output)) {
+						generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+						generator.setRootValueSeparator(null);
+						Iterator<I> iterator = idStream.iterator();
+						List<I> chunk = new ArrayList<>(CHUNK_SIZE);
+						while (iterator.hasNext()) {
+							chunk.add(iterator.next());
+							if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+								for (Object record : loader.apply(chunk)) {
+									generator.writeObject(record);
+									generator.writeRaw('\n');
+								}
+								generator.flush();
+								entityManager.clear();
+								chunk.clear();
+							}
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		};
+	}
+}
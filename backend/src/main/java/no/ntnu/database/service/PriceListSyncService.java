@@ -0,0 +1,246 @@
+package no.ntnu.database.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import no.ntnu.currency.RateSnapshot;
+import no.ntnu.database.event.CourseListingChangedEvent;
+import no.ntnu.database.repository.CourseProviderLinkRepository;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.dto.PriceListEntry;
+import no.ntnu.dto.PriceListSyncResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class for replacing the price listings of a provider with its full price list.
+ *
+ * <p>The existing listings are loaded in a single query and compared to the price list in
+ * memory, so only the listings that were added, changed or left out are written, each kind
+ * in one batch. Everything is written in one transaction, and the changes are published to
+ * the indexes kept outside the database once it is committed.</p>
+ */
+@Service
+public class PriceListSyncService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PriceListSyncService.class);
+	private static final String INSERT_LISTING = """
+			INSERT INTO course_provider_link (course_id, course_provider_id, price, currency)
+			VALUES (?, ?, ?, ?)
+			""";
+	private static final String UPDATE_LISTING = """
+			UPDATE course_provider_link SET price = ?, currency = ?
+			WHERE course_id = ? AND course_provider_id = ?
+			""";
+	private static final String DELETE_LISTING = """
+			DELETE FROM course_provider_link
+			WHERE course_id = ? AND course_provider_id = ?
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final CourseProviderLinkRepository linkRepository;
+	private final CourseProviderRepository providerRepository;
+	private final CourseRepository courseRepository;
+	private final ExchangeRateService exchangeRateService;
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * The listings to write, found by comparing the price list to the existing listings.
+	 */
+	private record Changes(
+			List<PriceListEntry> inserted,
+			List<PriceListEntry> updated,
+			List<Integer> deleted,
+			int unchanged
+	) {
+	}
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param jdbcTemplate        Runs the batched statements
+	 * @param transactionManager  Writes each price list in one transaction
+	 * @param linkRepository      The repository to load the existing listings from
+	 * @param providerRepository  The repository to check that the provider exists
+	 * @param courseRepository    The repository to check that the listed courses exist
+	 * @param exchangeRateService The service class telling which currencies are tracked
+	 * @param eventPublisher      Publishes listing changes to the indexes kept outside the database
+	 */
+	@Autowired
+	public PriceListSyncService(
+			JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			CourseProviderLinkRepository linkRepository,
+			CourseProviderRepository providerRepository,
+			CourseRepository courseRepository,
+			ExchangeRateService exchangeRateService,
+			ApplicationEventPublisher eventPublisher
+	) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.linkRepository = linkRepository;
+		this.providerRepository = providerRepository;
+		this.courseRepository = courseRepository;
+		this.exchangeRateService = exchangeRateService;
+		this.eventPublisher = eventPublisher;
+	}
+
+	/**
+	 * Makes the listings of a provider match its full price list. Courses missing from the
+	 * price list lose their listing at this provider.
+	 *
+	 * @param providerId The ID of the provider
+	 * @param priceList  Every course the provider lists, with its price
+	 * @return The number of listings inserted, updated, deleted and left unchanged
+	 * @throws EntityNotFoundException  If the provider is not found
+	 * @throws IllegalArgumentException If a course is listed twice, is not found,
+	 *                                  or has an untracked currency or an invalid price
+	 */
+	public PriceListSyncResult synchronize(int providerId, List<PriceListEntry> priceList) {
+		Map<Integer, PriceListEntry> entries =
+				validate(priceList, exchangeRateService.getSnapshot());
+		if (!providerRepository.existsById(providerId)) {
+			throw new EntityNotFoundException("Provider not found");
+		}
+
+		long start = System.currentTimeMillis();
+		Changes changes = transactionTemplate.execute(status -> {
+			Changes found = compare(providerId, entries);
+			write(providerId, found);
+			return found;
+		});
+		if (changes == null) {
+			throw new IllegalStateException("The price list was not synchronized");
+		}
+
+		for (PriceListEntry entry : changes.inserted()) {
+			publish(providerId, entry);
+		}
+		for (PriceListEntry entry : changes.updated()) {
+			publish(providerId, entry);
+		}
+		for (int courseId : changes.deleted()) {
+			eventPublisher.publishEvent(
+					new CourseListingChangedEvent(courseId, providerId, null, 0)
+			);
+		}
+		LOGGER.info("Synchronized {} listings of provider {} in {} ms",
+				entries.size(), providerId, System.currentTimeMillis() - start);
+		return new PriceListSyncResult(
+				changes.inserted().size(),
+				changes.updated().size(),
+				changes.deleted().size(),
+				changes.unchanged()
+		);
+	}
+
+	private static Map<Integer, PriceListEntry> validate(
+			List<PriceListEntry> priceList,
+			RateSnapshot rates
+	) {
+		if (priceList == null) {
+			throw new IllegalArgumentException("The price list is missing");
+		}
+		Map<Integer, PriceListEntry> entries = new HashMap<>();
+		for (PriceListEntry entry : priceList) {
+			if (entry == null || entry.currency() == null || entry.currency().isBlank()) {
+				throw new IllegalArgumentException("Every listing needs a currency");
+			}
+			//Listings in an untracked currency could neither be converted nor ranked by price.
+			rates.ordinal(entry.currency());
+			if (!Double.isFinite(entry.price()) || entry.price() < 0) {
+				throw new IllegalArgumentException(
+						"Invalid price for course " + entry.courseId()
+				);
+			}
+			if (entries.put(entry.courseId(), entry) != null) {
+				throw new IllegalArgumentException(
+						"Course " + entry.courseId() + " is listed more than once"
+				);
+			}
+		}
+		return entries;
+	}
+
+	private Changes compare(int providerId, Map<Integer, PriceListEntry> entries) {
+		List<PriceListEntry> updated = new ArrayList<>();
+		List<Integer> deleted = new ArrayList<>();
+		Set<Integer> listed = new HashSet<>();
+		int unchanged = 0;
+		for (Object[] row : linkRepository.findPricesByProviderId(providerId)) {
+			int courseId = (Integer) row[0];
+			PriceListEntry entry = entries.get(courseId);
+			listed.add(courseId);
+			if (entry == null) {
+				deleted.add(courseId);
+			} else if (entry.price() != (Double) row[1] || !entry.currency().equals(row[2])) {
+				updated.add(entry);
+			} else {
+				unchanged++;
+			}
+		}
+
+		List<PriceListEntry> inserted = new ArrayList<>();
+		for (PriceListEntry entry : entries.values()) {
+			if (!listed.contains(entry.courseId())) {
+				inserted.add(entry);
+			}
+		}
+		if (!inserted.isEmpty()) {
+			Set<Integer> newIds = new HashSet<>();
+			for (PriceListEntry entry : inserted) {
+				newIds.add(entry.courseId());
+			}
+			newIds.removeAll(courseRepository.findExistingIds(newIds));
+			if (!newIds.isEmpty()) {
+				throw new IllegalArgumentException("Courses not found: " + newIds);
+			}
+		}
+		return new Changes(inserted, updated, deleted, unchanged);
+	}
+
+	private void write(int providerId, Changes changes) {
+		if (!changes.inserted().isEmpty()) {
+			List<Object[]> rows = new ArrayList<>(changes.inserted().size());
+			for (PriceListEntry entry : changes.inserted()) {
+				rows.add(new Object[] {
+						entry.courseId(), providerId, entry.price(), entry.currency()
+				});
+			}
+			jdbcTemplate.batchUpdate(INSERT_LISTING, rows);
+		}
+		if (!changes.updated().isEmpty()) {
+			List<Object[]> rows = new ArrayList<>(changes.updated().size());
+			for (PriceListEntry entry : changes.updated()) {
+				rows.add(new Object[] {
+						entry.price(), entry.currency(), entry.courseId(), providerId
+				});
+			}
+			jdbcTemplate.batchUpdate(UPDATE_LISTING, rows);
+		}
+		if (!changes.deleted().isEmpty()) {
+			List<Object[]> rows = new ArrayList<>(changes.deleted().size());
+			for (int courseId : changes.deleted()) {
+				rows.add(new Object[] {courseId, providerId});
+			}
+			jdbcTemplate.batchUpdate(DELETE_LISTING, rows);
+		}
+	}
+
+	private void publish(int providerId, PriceListEntry entry) {
+		eventPublisher.publishEvent(new CourseListingChangedEvent(
+				entry.courseId(), providerId, entry.currency(), entry.price()
+		));
+	}
+}
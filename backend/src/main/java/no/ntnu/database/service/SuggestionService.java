@@ -0,0 +1,353 @@
+package no.ntnu.database.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import no.ntnu.database.event.CategoryDeletedEvent;
+import no.ntnu.database.event.CategorySavedEvent;
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseListingChangedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.event.CoursesImportedEvent;
+import no.ntnu.database.event.FavoriteDeletedEvent;
+import no.ntnu.database.event.FavoriteSavedEvent;
+import no.ntnu.database.event.ProviderDeletedEvent;
+import no.ntnu.database.event.ProviderSavedEvent;
+import no.ntnu.database.model.Category;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.database.repository.CategoryRepository;
+import no.ntnu.database.repository.CourseProviderLinkRepository;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.repository.FavoriteRepository;
+import no.ntnu.database.search.CourseDocument;
+import no.ntnu.database.search.SuggestionTrie;
+import no.ntnu.dto.Suggestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for typeahead suggestions of course, provider, category and certification
+ * names, answered from a {@link SuggestionTrie}.
+ *
+ * <p>Suggestions are weighted by popularity: courses by how many users have them as a
+ * favorite, providers by how many courses they list, and categories and certifications
+ * by how many courses have them. The trie is built from the database once the application
+ * is ready, and kept up to date from the events published by the services.</p>
+ */
+@Service
+public class SuggestionService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SuggestionService.class);
+	static final int MAX_SUGGESTIONS = 10;
+
+	private final CourseRepository courseRepository;
+	private final CourseProviderRepository providerRepository;
+	private final CategoryRepository categoryRepository;
+	private final CourseProviderLinkRepository linkRepository;
+	private final FavoriteRepository favoriteRepository;
+	private final SuggestionTrie<Key> trie = new SuggestionTrie<>(MAX_SUGGESTIONS);
+
+	private final Map<Integer, CourseEntry> courses = new HashMap<>();
+	private final Map<Integer, Set<Long>> favorites = new HashMap<>();
+	private final Map<Integer, String> providers = new HashMap<>();
+	private final Map<Integer, Set<Integer>> listings = new HashMap<>();
+	private final Map<Integer, String> categories = new HashMap<>();
+	private final Map<Integer, Integer> coursesPerCategory = new HashMap<>();
+	private final Map<String, String> certifications = new HashMap<>();
+	private final Map<String, Integer> coursesPerCertification = new HashMap<>();
+
+	/**
+	 * Identifies a suggestion. Certifications are identified by their normalized text.
+	 */
+	private record Key(Suggestion.Type type, Object id) {
+	}
+
+	/**
+	 * The parts of a course that are suggested, or that weigh other suggestions.
+	 */
+	private record CourseEntry(String name, String certification, Set<Integer> categoryIds) {
+	}
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param courseRepository   The repository to load the courses from
+	 * @param providerRepository The repository to load the providers from
+	 * @param categoryRepository The repository to load the categories from
+	 * @param linkRepository     The repository to load the price listings from
+	 * @param favoriteRepository The repository to load the favorites from
+	 */
+	@Autowired
+	public SuggestionService(
+			CourseRepository courseRepository,
+			CourseProviderRepository providerRepository,
+			CategoryRepository categoryRepository,
+			CourseProviderLinkRepository linkRepository,
+			FavoriteRepository favoriteRepository
+	) {
+		this.courseRepository = courseRepository;
+		this.providerRepository = providerRepository;
+		this.categoryRepository = categoryRepository;
+		this.linkRepository = linkRepository;
+		this.favoriteRepository = favoriteRepository;
+	}
+
+	/**
+	 * Returns the most popular suggestions with a word starting with the prefix.
+	 *
+	 * @param prefix The text typed so far
+	 * @param limit  The maximum number of suggestions, capped at {@value #MAX_SUGGESTIONS}
+	 * @return The suggestions, most popular first
+	 */
+	public List<Suggestion> suggest(String prefix, int limit) {
+		List<Suggestion> suggestions = new ArrayList<>();
+		if (!SuggestionTrie.normalize(prefix).isEmpty()) {
+			int cappedLimit = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+			for (SuggestionTrie.Item<Key> item : trie.lookup(prefix, cappedLimit)) {
+				Key key = item.key();
+				suggestions.add(new Suggestion(
+						key.type(), key.id() instanceof Integer id ? id : null, item.text()
+				));
+			}
+		}
+		return suggestions;
+	}
+
+	/**
+	 * Rebuilds the suggestions from the database.
+	 */
+	@EventListener({ApplicationReadyEvent.class, CoursesImportedEvent.class})
+	@Transactional(readOnly = true)
+	public synchronized void rebuild() {
+		long start = System.currentTimeMillis();
+		courses.clear();
+		favorites.clear();
+		providers.clear();
+		listings.clear();
+		categories.clear();
+		coursesPerCategory.clear();
+		certifications.clear();
+		coursesPerCertification.clear();
+
+		for (Category category : categoryRepository.findAll()) {
+			categories.put(category.getCategoryId(), category.getCategoryName());
+		}
+		Map<Integer, Set<Integer>> categoryLinks = new HashMap<>();
+		for (Object[] row : courseRepository.findAllCategoryLinks()) {
+			categoryLinks.computeIfAbsent((Integer) row[0], id -> new HashSet<>()).add((Integer) row[1]);
+		}
+		for (CourseDocument document : courseRepository.findAllCourseDocuments()) {
+			setCourse(document.courseId(), new CourseEntry(
+					document.name(),
+					document.certification(),
+					categoryLinks.getOrDefault(document.courseId(), new HashSet<>())
+			));
+		}
+		for (Object[] row : favoriteRepository.findAllIds()) {
+			favorites.computeIfAbsent((Integer) row[0], id -> new HashSet<>()).add((Long) row[1]);
+		}
+		for (CourseProvider provider : providerRepository.findAll()) {
+			providers.put(provider.getCourseProviderId(), provider.getProviderName());
+		}
+		for (Object[] row : linkRepository.findAllCurrencies()) {
+			listings.computeIfAbsent((Integer) row[1], id -> new HashSet<>()).add((Integer) row[0]);
+		}
+
+		List<SuggestionTrie.Item<Key>> items = new ArrayList<>();
+		addItems(items, Suggestion.Type.COURSE, courses.keySet());
+		addItems(items, Suggestion.Type.PROVIDER, providers.keySet());
+		addItems(items, Suggestion.Type.CATEGORY, categories.keySet());
+		addItems(items, Suggestion.Type.CERTIFICATION, certifications.keySet());
+		trie.replaceAll(items);
+		LOGGER.info("Indexed {} suggestions in {} ms",
+				trie.size(), System.currentTimeMillis() - start);
+	}
+
+	private void addItems(
+			List<SuggestionTrie.Item<Key>> items,
+			Suggestion.Type type,
+			Set<?> ids
+	) {
+		for (Object id : ids) {
+			SuggestionTrie.Item<Key> item = item(new Key(type, id));
+			if (item != null) {
+				items.add(item);
+			}
+		}
+	}
+
+	@EventListener
+	public synchronized void onCourseSaved(CourseSavedEvent event) {
+		Course course = event.course();
+		Set<Integer> categoryIds = new HashSet<>();
+		for (Category category : course.getCategories()) {
+			categoryIds.add(category.getCategoryId());
+		}
+		CourseEntry old = setCourse(course.getCourseId(), new CourseEntry(
+				course.getCourseName(), course.getRelatedCertification(), categoryIds
+		));
+		refresh(new Key(Suggestion.Type.COURSE, course.getCourseId()));
+		refreshRelated(old);
+		refreshRelated(courses.get(course.getCourseId()));
+	}
+
+	@EventListener
+	public synchronized void onCourseDeleted(CourseDeletedEvent event) {
+		CourseEntry old = setCourse(event.courseId(), null);
+		favorites.remove(event.courseId());
+		trie.remove(new Key(Suggestion.Type.COURSE, event.courseId()));
+		refreshRelated(old);
+		for (Map.Entry<Integer, Set<Integer>> providerListings : listings.entrySet()) {
+			if (providerListings.getValue().remove(event.courseId())) {
+				refresh(new Key(Suggestion.Type.PROVIDER, providerListings.getKey()));
+			}
+		}
+	}
+
+	@EventListener
+	public synchronized void onCourseListingChanged(CourseListingChangedEvent event) {
+		Set<Integer> courseIds = listings.computeIfAbsent(event.providerId(), id -> new HashSet<>());
+		boolean changed = event.currency() == null
+				? courseIds.remove(event.courseId())
+				: courseIds.add(event.courseId());
+		if (changed) {
+			refresh(new Key(Suggestion.Type.PROVIDER, event.providerId()));
+		}
+	}
+
+	@EventListener
+	public synchronized void onProviderSaved(ProviderSavedEvent event) {
+		CourseProvider provider = event.provider();
+		providers.put(provider.getCourseProviderId(), provider.getProviderName());
+		refresh(new Key(Suggestion.Type.PROVIDER, provider.getCourseProviderId()));
+	}
+
+	@EventListener
+	public synchronized void onProviderDeleted(ProviderDeletedEvent event) {
+		providers.remove(event.providerId());
+		listings.remove(event.providerId());
+		trie.remove(new Key(Suggestion.Type.PROVIDER, event.providerId()));
+	}
+
+	@EventListener
+	public synchronized void onCategorySaved(CategorySavedEvent event) {
+		Category category = event.category();
+		categories.put(category.getCategoryId(), category.getCategoryName());
+		refresh(new Key(Suggestion.Type.CATEGORY, category.getCategoryId()));
+	}
+
+	@EventListener
+	public synchronized void onCategoryDeleted(CategoryDeletedEvent event) {
+		categories.remove(event.categoryId());
+		coursesPerCategory.remove(event.categoryId());
+		for (CourseEntry course : courses.values()) {
+			course.categoryIds().remove(event.categoryId());
+		}
+		trie.remove(new Key(Suggestion.Type.CATEGORY, event.categoryId()));
+	}
+
+	@EventListener
+	public synchronized void onFavoriteSaved(FavoriteSavedEvent event) {
+		if (favorites.computeIfAbsent(event.courseId(), id -> new HashSet<>()).add(event.userId())) {
+			refresh(new Key(Suggestion.Type.COURSE, event.courseId()));
+		}
+	}
+
+	@EventListener
+	public synchronized void onFavoriteDeleted(FavoriteDeletedEvent event) {
+		Set<Long> userIds = favorites.get(event.courseId());
+		if (userIds != null && userIds.remove(event.userId())) {
+			refresh(new Key(Suggestion.Type.COURSE, event.courseId()));
+		}
+	}
+
+	/**
+	 * Replaces a course, counting it for its new categories and certification
+	 * instead of its old ones.
+	 *
+	 * @return The old course, or null if there was none
+	 */
+	private CourseEntry setCourse(int courseId, CourseEntry course) {
+		CourseEntry old = course == null ? courses.remove(courseId) : courses.put(courseId, course);
+		if (old != null) {
+			for (int categoryId : old.categoryIds()) {
+				coursesPerCategory.merge(categoryId, -1, Integer::sum);
+			}
+			String certification = SuggestionTrie.normalize(old.certification());
+			if (!certification.isEmpty()
+					&& coursesPerCertification.merge(certification, -1, Integer::sum) <= 0) {
+				coursesPerCertification.remove(certification);
+				certifications.remove(certification);
+			}
+		}
+		if (course != null) {
+			for (int categoryId : course.categoryIds()) {
+				coursesPerCategory.merge(categoryId, 1, Integer::sum);
+			}
+			String certification = SuggestionTrie.normalize(course.certification());
+			if (!certification.isEmpty()) {
+				coursesPerCertification.merge(certification, 1, Integer::sum);
+				certifications.putIfAbsent(certification, course.certification().strip());
+			}
+		}
+		return old;
+	}
+
+	private void refreshRelated(CourseEntry course) {
+		if (course != null) {
+			for (int categoryId : course.categoryIds()) {
+				refresh(new Key(Suggestion.Type.CATEGORY, categoryId));
+			}
+			String certification = SuggestionTrie.normalize(course.certification());
+			if (!certification.isEmpty()) {
+				refresh(new Key(Suggestion.Type.CERTIFICATION, certification));
+			}
+		}
+	}
+
+	private void refresh(Key key) {
+		SuggestionTrie.Item<Key> item = item(key);
+		if (item == null) {
+			trie.remove(key);
+		} else {
+			trie.put(item);
+		}
+	}
+
+	/**
+	 * Returns the current suggestion for a key, or null if nothing should be suggested.
+	 */
+	private SuggestionTrie.Item<Key> item(Key key) {
+		String text;
+		int weight;
+		switch (key.type()) {
+			case COURSE -> {
+				CourseEntry course = courses.get((Integer) key.id());
+				text = course == null ? null : course.name();
+				weight = 1 + favorites.getOrDefault((Integer) key.id(), Set.of()).size();
+			}
+			case PROVIDER -> {
+				text = providers.get((Integer) key.id());
+				weight = 1 + listings.getOrDefault((Integer) key.id(), Set.of()).size();
+			}
+			case CATEGORY -> {
+				text = categories.get((Integer) key.id());
+				weight = 1 + coursesPerCategory.getOrDefault((Integer) key.id(), 0);
+			}
+			default -> {
+				text = certifications.get((String) key.id());
+				weight = coursesPerCertification.getOrDefault((String) key.id(), 0);
+			}
+		}
+		return text == null || text.isBlank() ? null : new SuggestionTrie.Item<>(key, text, weight);
+	}
+}
@@ -1,10 +1,12 @@
 package no.ntnu.database.service;
 
 import java.util.Optional;
+import no.ntnu.database.event.UserSavedEvent;
 import no.ntnu.database.model.User;
 import no.ntnu.database.repository.UserRepository;
 import no.ntnu.security.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 
@@ -14,10 +16,15 @@ import org.springframework.stereotype.Service;
 @Service("twoFactorRequests")
 public class TwoFactorRequests {
   	private final UserRepository userRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
   	@Autowired
-  	public TwoFactorRequests(UserRepository userRepository) {
+  	public TwoFactorRequests(
+			UserRepository userRepository,
+			ApplicationEventPublisher eventPublisher
+	) {
 		this.userRepository = userRepository;
+		this.eventPublisher = eventPublisher;
   	}
 	
 	public Optional<String> get2FaSecretKey(String username) {
@@ -49,6 +56,7 @@ public class TwoFactorRequests {
 			user.setTwoFactorSecret(secretKey);
 			user.setTwoFactorEnabled(true);
 			userRepository.save(user);
+			eventPublisher.publishEvent(new UserSavedEvent(user));
 		});
 	}
 
@@ -65,6 +73,7 @@ public class TwoFactorRequests {
 				user.setTwoFactorSecret(secretKey);
 				user.setTwoFactorEnabled(true);
 				userRepository.save(user);
+				eventPublisher.publishEvent(new UserSavedEvent(user));
 			}
 		});
 	}
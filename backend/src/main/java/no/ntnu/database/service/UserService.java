@@ -5,6 +5,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import no.ntnu.database.event.UserDeletedEvent;
+import no.ntnu.database.event.UserSavedEvent;
 import no.ntnu.database.model.Role;
 import no.ntnu.database.model.User;
 import no.ntnu.database.repository.RoleRepository;
@@ -12,9 +14,11 @@ import no.ntnu.database.repository.UserRepository;
 import no.ntnu.dto.UserRegistrationDto;
 import no.ntnu.dto.UserUpdateDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Service class for handling user data database operations.
@@ -28,6 +32,10 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final NdjsonStreamer ndjsonStreamer;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     
 
     /**
@@ -36,14 +44,20 @@ public class UserService {
      * @param userRepository    the {@link UserRepository} for user entity operations.
      * @param roleRepository    the {@link RoleRepository} for role entity operations.
      * @param passwordEncoder   the {@link PasswordEncoder for encoding passwords.}
+     * @param ndjsonStreamer    writes every user as newline delimited JSON.
+     * @param eventPublisher    publishes user changes to the dashboard statistics.
      */
     @Autowired
     public UserService(UserRepository userRepository,
                        RoleRepository roleRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       NdjsonStreamer ndjsonStreamer,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -71,6 +85,7 @@ public class UserService {
         newUser.setRoles(new HashSet<>(Collections.singletonList(userRole)));
 
         userRepository.save(newUser);
+        eventPublisher.publishEvent(new UserSavedEvent(newUser));
         return ResponseEntity.ok("User registered successfully");
     }
 
@@ -78,13 +93,27 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Returns a response body writing every user as newline delimited JSON, ordered by ID.
+     * The users are loaded a chunk at a time while the body is written.
+     *
+     * @return the response body.
+     */
+    public StreamingResponseBody streamAllUsers() {
+        return ndjsonStreamer.stream(
+                userRepository::streamAllIds, userRepository::findWithRolesByIdIn
+        );
+    }
+
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     public User saveUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserSavedEvent(saved));
+        return saved;
     }
 
     /**
@@ -118,7 +147,9 @@ public class UserService {
                     }
                     user.setRoles(roles);
                 }
-                return userRepository.save(user);
+                User saved = userRepository.save(user);
+                eventPublisher.publishEvent(new UserSavedEvent(saved));
+                return saved;
             })
             .orElseThrow(() -> new RuntimeException("User not found with id " + id));
     }
@@ -130,6 +161,7 @@ public class UserService {
      */
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserDeletedEvent(id));
     }
 
     /**
@@ -144,7 +176,8 @@ public class UserService {
 		Optional<User> userOptional = userRepository.findById(id);
 		userOptional.ifPresent(user -> {
 			user.setActive(isActive);
-			userRepository.save(user);
+			User saved = userRepository.save(user);
+			eventPublisher.publishEvent(new UserSavedEvent(saved));
 		});
 		return userOptional.isPresent();
     }
@@ -192,7 +225,8 @@ public class UserService {
             User user = userOptional.get();
             if (passwordEncoder.matches(currentPassword, user.getPassword())) {
                 user.setPassword(passwordEncoder.encode(newPassword));
-                userRepository.save(user);
+                User saved = userRepository.save(user);
+                eventPublisher.publishEvent(new UserSavedEvent(saved));
                 return true;
             }
         }
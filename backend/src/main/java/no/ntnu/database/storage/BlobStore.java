@@ -0,0 +1,223 @@
+package no.ntnu.database.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A content-addressed store of binary payloads on the local filesystem.
+ *
+ * <p>Every payload is stored once, in a file named after the SHA-256 hash of its content,
+ * so identical uploads share a file. Files are spread over two levels of directories
+ * by the first characters of their hash, under {@code image.storage.directory}.
+ * Payloads are written to a temporary file first and moved into place once complete,
+ * so a file under its hash is never partially written.</p>
+ *
+ * <p>Files are never deleted while in use: unreferenced files are removed by
+ * {@link #sweep}, which skips files written or reused recently.</p>
+ */
+@Component
+public class BlobStore {
+	private static final String ALGORITHM = "SHA-256";
+	private static final String TEMPORARY_DIRECTORY = "tmp";
+	private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path root;
+	private final Path temporaryDirectory;
+
+	/**
+	 * A stored payload.
+	 *
+	 * @param hash   The SHA-256 hash of the content, in lowercase hex
+	 * @param length The length of the content in bytes
+	 */
+	public record Blob(String hash, long length) {
+	}
+
+	/**
+	 * Creates the store, and its directory if it does not exist.
+	 *
+	 * @param directory The directory to keep the payloads in
+	 * @throws IOException If the directory cannot be created
+	 */
+	@Autowired
+	public BlobStore(@Value("${image.storage.directory:image-store}") String directory)
+			throws IOException {
+		this.root = Path.of(directory).toAbsolutePath().normalize();
+		this.temporaryDirectory = root.resolve(TEMPORARY_DIRECTORY);
+		Files.createDirectories(temporaryDirectory);
+	}
+
+	/**
+	 * Stores a payload, reusing the existing file if the same content is already stored.
+	 * The content is streamed to disk, so it is never held in memory as a whole.
+	 *
+	 * @param content The content to store, read to the end
+	 * @return The hash and length of the content
+	 * @throws IOException If the content cannot be read or written
+	 */
+	public Blob put(InputStream content) throws IOException {
+		return put(content, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Stores a payload of limited length, like {@link #put(InputStream)}.
+	 * The length is counted while the content is streamed, so reading stops as soon as
+	 * the limit is passed, whatever length the sender announced.
+	 *
+	 * @param content   The content to store, read to the end
+	 * @param maxLength The most bytes to store
+	 * @return The hash and length of the content
+	 * @throws ContentTooLargeException If the content is longer than the limit
+	 * @throws IOException              If the content cannot be read or written
+	 */
+	public Blob put(InputStream content, long maxLength) throws IOException {
+		MessageDigest digest = newDigest();
+		Path temporary = Files.createTempFile(temporaryDirectory, "upload", ".tmp");
+		try {
+			long length = 0;
+			try (InputStream hashed = new DigestInputStream(content, digest);
+					OutputStream out = Files.newOutputStream(temporary)) {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int read;
+				while ((read = hashed.read(buffer)) != -1) {
+					length += read;
+					if (length > maxLength) {
+						throw new ContentTooLargeException(maxLength);
+					}
+					out.write(buffer, 0, read);
+				}
+			}
+			String hash = HexFormat.of().formatHex(digest.digest());
+			Path target = path(hash);
+			if (Files.exists(target)) {
+				//Mark the file as recently used, so a sweep does not remove it before it is referenced.
+				Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+			} else {
+				Files.createDirectories(target.getParent());
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			return new Blob(hash, length);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Returns the file a payload is stored in.
+	 *
+	 * @param hash The hash of the payload
+	 * @return The path of the file, which may not exist
+	 * @throws IllegalArgumentException If the hash is not a lowercase SHA-256 hex string
+	 */
+	public Path path(String hash) {
+		if (hash == null || !HASH.matcher(hash).matches()) {
+			throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+		}
+		return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+	}
+
+	/**
+	 * Checks whether a payload is stored.
+	 *
+	 * @param hash The hash of the payload
+	 * @return True if the payload is stored
+	 */
+	public boolean exists(String hash) {
+		return Files.isRegularFile(path(hash));
+	}
+
+	/**
+	 * Writes a stored payload to a channel. When the channel is a socket or file,
+	 * the bytes are copied by the operating system without passing through the heap.
+	 *
+	 * @param hash   The hash of the payload
+	 * @param target The channel to write to
+	 * @throws IOException If the payload cannot be read or written
+	 */
+	public void transferTo(String hash, WritableByteChannel target) throws IOException {
+		transferTo(hash, 0, Long.MAX_VALUE, target);
+	}
+
+	/**
+	 * Writes part of a stored payload to a channel,
+	 * like {@link #transferTo(String, WritableByteChannel)}.
+	 *
+	 * @param hash     The hash of the payload
+	 * @param position The offset of the first byte to write
+	 * @param count    The most bytes to write, fewer if the payload ends first
+	 * @param target   The channel to write to
+	 * @throws IOException If the payload cannot be read or written
+	 */
+	public void transferTo(String hash, long position, long count, WritableByteChannel target)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(path(hash), StandardOpenOption.READ)) {
+			long end = count > channel.size() - position
+					? channel.size()
+					: position + count;
+			long written = position;
+			while (written < end) {
+				written += channel.transferTo(written, end - written, target);
+			}
+		}
+	}
+
+	/**
+	 * Deletes every stored payload that is not referenced and was last used before the cutoff,
+	 * and temporary files left behind by interrupted uploads.
+	 *
+	 * @param referenced The hashes of the payloads that are still referenced
+	 * @param cutoff     Files used after this instant are kept, as they may be about to be referenced
+	 * @return The number of deleted files
+	 * @throws IOException If the store cannot be listed
+	 */
+	public int sweep(Set<String> referenced, Instant cutoff) throws IOException {
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(root)) {
+			files = walk.filter(Files::isRegularFile).toList();
+		}
+		int deleted = 0;
+		for (Path file : files) {
+			boolean temporary = file.startsWith(temporaryDirectory);
+			String name = file.getFileName().toString();
+			try {
+				if ((temporary || (HASH.matcher(name).matches() && !referenced.contains(name)))
+						&& Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+						&& Files.deleteIfExists(file)) {
+					deleted++;
+				}
+			} catch (IOException e) {
+				//The file was removed or replaced while sweeping, so leave it for the next sweep.
+			}
+		}
+		return deleted;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(ALGORITHM + " is not available", e);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package no.ntnu.database.storage;
+
+import java.io.IOException;
+
+/**
+ * Thrown when content given to the {@link BlobStore} is longer than allowed.
+ * Nothing is stored when it is thrown.
+ */
+public class ContentTooLargeException extends IOException {
+	/**
+	 * Creates the exception.
+	 *
+	 * @param maxLength The most bytes allowed
+	 */
+	public ContentTooLargeException(long maxLength) {
+		super("The content is longer than " + maxLength + " bytes");
+	}
+}
@@ -0,0 +1,29 @@
+package no.ntnu.dto;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * The filters a course listing can be narrowed down by. Null or empty filters are ignored.
+ * Several values for the same filter match courses having any of them.
+ *
+ * @param categoryIds      Courses in any of these categories
+ * @param difficultyLevels Courses with any of these difficulty levels, ignoring case
+ * @param startFrom        Courses starting on or after this date
+ * @param startTo          Courses starting on or before this date
+ * @param minCredits       Courses worth at least this many credits
+ * @param maxCredits       Courses worth at most this many credits
+ * @param minHoursPerWeek  Courses with at least this many hours per week
+ * @param maxHoursPerWeek  Courses with at most this many hours per week
+ */
+public record CourseFilter(
+		Set<Integer> categoryIds,
+		Set<String> difficultyLevels,
+		LocalDate startFrom,
+		LocalDate startTo,
+		Double minCredits,
+		Double maxCredits,
+		Integer minHoursPerWeek,
+		Integer maxHoursPerWeek
+) {
+}
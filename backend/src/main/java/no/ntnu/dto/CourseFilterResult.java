@@ -0,0 +1,22 @@
+package no.ntnu.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a filtered course listing, with the facet counts for the filter.
+ *
+ * @param courses    The courses on this page, ordered by ID
+ * @param total      The number of courses matching the filter
+ * @param nextCursor The continuation token for the next page, or null if this is the last page
+ * @param facets     For each facet, the number of matching courses per facet value.
+ *                   The count for a value ignores the filter on its own facet, so it tells how
+ *                   many courses there would be with that value selected.
+ */
+public record CourseFilterResult(
+		List<CourseView> courses,
+		int total,
+		String nextCursor,
+		Map<String, Map<String, Integer>> facets
+) {
+}
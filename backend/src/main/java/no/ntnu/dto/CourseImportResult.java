@@ -0,0 +1,30 @@
+package no.ntnu.dto;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk course import.
+ *
+ * @param imported        The number of courses imported
+ * @param failed          The number of rows rejected
+ * @param checkpoint      The number of rows committed, imported or rejected.
+ *                        An interrupted import can be resumed by skipping this many rows.
+ * @param errors          Why rows were rejected, limited to the first rejections
+ * @param errorsTruncated Whether more rows were rejected than listed in the errors
+ */
+public record CourseImportResult(
+		int imported,
+		int failed,
+		int checkpoint,
+		List<RowError> errors,
+		boolean errorsTruncated
+) {
+	/**
+	 * Why a row was rejected.
+	 *
+	 * @param row     The number of the rejected row, counting from 1 and excluding any header
+	 * @param message Why the row was rejected
+	 */
+	public record RowError(int row, String message) {
+	}
+}
@@ -0,0 +1,12 @@
+package no.ntnu.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated course listing.
+ *
+ * @param courses    The courses on this page
+ * @param nextCursor The continuation token for the next page, or null if this is the last page
+ */
+public record CoursePage(List<CourseView> courses, String nextCursor) {
+}
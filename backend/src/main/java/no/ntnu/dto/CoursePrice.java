@@ -0,0 +1,27 @@
+package no.ntnu.dto;
+
+/**
+ * The price of a course at one provider, converted to the currency asked for.
+ * A price in a currency without exchange rates is left as listed, and not converted.
+ *
+ * @param courseProviderId The ID of the provider
+ * @param providerName     The name of the provider
+ * @param price            The price of the provider, converted
+ * @param effectivePrice   The converted price with the sale of the course taken off
+ * @param currency         The currency of the converted prices
+ * @param originalPrice    The price as listed by the provider
+ * @param originalCurrency The currency the provider lists the price in
+ * @param converted        False if the price could not be converted, and is in the
+ *                         currency it is listed in
+ */
+public record CoursePrice(
+		int courseProviderId,
+		String providerName,
+		double price,
+		double effectivePrice,
+		String currency,
+		double originalPrice,
+		String originalCurrency,
+		boolean converted
+) {
+}
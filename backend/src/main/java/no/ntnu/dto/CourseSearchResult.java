@@ -0,0 +1,14 @@
+package no.ntnu.dto;
+
+import java.util.List;
+
+/**
+ * The result of a course search.
+ *
+ * @param courses    The matching courses, most relevant first
+ * @param total      The number of matching courses, more than returned if the limit cut them off
+ * @param suggestion A corrected query if the query seemed misspelled ("did you mean"),
+ *                   otherwise null
+ */
+public record CourseSearchResult(List<CourseView> courses, int total, String suggestion) {
+}
@@ -0,0 +1,113 @@
+package no.ntnu.dto;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A read-only view of a {@link no.ntnu.database.model.Course Course} for listings,
+ * serialized to the same JSON as the course entity.
+ * Views are loaded with a fixed number of queries however many courses they cover,
+ * without the image data. They cannot be modified, so one view can be shared between requests.
+ *
+ * @param courseId             The course's ID
+ * @param sale                 The course's current sale
+ * @param courseName           The course's name
+ * @param difficultyLevel      The course's difficulty level
+ * @param startDate            The course's start date
+ * @param endDate              The course's end date
+ * @param courseCredits        The number of credits the course is worth
+ * @param hoursPerWeek         The course's hours per week
+ * @param relatedCertification The course's related certification
+ * @param courseDescription    The course's description
+ * @param courseProviderLinks  The providers' price listings of the course
+ * @param categories           The categories containing the course
+ * @param image                The course's image, or null if it has none
+ */
+public record CourseView(
+		int courseId,
+		double sale,
+		String courseName,
+		String difficultyLevel,
+		Date startDate,
+		Date endDate,
+		double courseCredits,
+		int hoursPerWeek,
+		String relatedCertification,
+		String courseDescription,
+		List<Link> courseProviderLinks,
+		List<CategoryView> categories,
+		ImageView image
+) {
+	/**
+	 * Creates a view, copying the dates and lists it is given.
+	 */
+	public CourseView {
+		startDate = copy(startDate);
+		endDate = copy(endDate);
+		courseProviderLinks = List.copyOf(courseProviderLinks);
+		categories = List.copyOf(categories);
+	}
+
+	@Override
+	public Date startDate() {
+		return copy(startDate);
+	}
+
+	@Override
+	public Date endDate() {
+		return copy(endDate);
+	}
+
+	private static Date copy(Date date) {
+		// clone() keeps the java.sql subclass a date was read as, and so its JSON form
+		return date == null ? null : (Date) date.clone();
+	}
+
+	/**
+	 * A provider's price listing of a course.
+	 *
+	 * @param id       The IDs of the course and the provider
+	 * @param price    The price of the course from the provider
+	 * @param currency The currency of the price
+	 */
+	public record Link(LinkId id, double price, String currency) {
+	}
+
+	/**
+	 * The key of a {@link Link}.
+	 *
+	 * @param courseId         The ID of the course
+	 * @param courseProviderId The ID of the provider
+	 */
+	public record LinkId(int courseId, int courseProviderId) {
+	}
+
+	/**
+	 * A category containing a course.
+	 *
+	 * @param categoryId   The category's ID
+	 * @param categoryName The category's name
+	 */
+	public record CategoryView(int categoryId, String categoryName) {
+	}
+
+	/**
+	 * The metadata of a course's image.
+	 *
+	 * @param imageId     The image's ID
+	 * @param imageType   The file type of the image
+	 * @param altText     The image's alt text
+	 * @param contentHash The hash of the image content, to version the image URL with
+	 * @param width       The width of the image in pixels, or null if unknown
+	 * @param height      The height of the image in pixels, or null if unknown
+	 */
+	public record ImageView(
+			int imageId,
+			String imageType,
+			String altText,
+			String contentHash,
+			Integer width,
+			Integer height
+	) {
+	}
+}
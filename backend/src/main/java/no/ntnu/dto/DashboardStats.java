@@ -0,0 +1,35 @@
+package no.ntnu.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The aggregates shown on the admin dashboard.
+ *
+ * @param courses              The number of courses
+ * @param coursesPerCategory   The number of courses in each category, by category name
+ * @param coursesPerDifficulty The number of courses per difficulty level
+ * @param providers            The number of course providers
+ * @param listings             The number of price listings of courses by providers
+ * @param listingsPerCurrency  The number of price listings per currency
+ * @param users                The number of users
+ * @param usersWithTwoFactor   The number of users with two-factor authentication enabled
+ * @param twoFactorAdoption    The share of users with two-factor authentication enabled,
+ *                             between 0 and 1
+ * @param favorites            The number of favorite entries
+ * @param reconciledAt         When the aggregates were last reconciled against the database
+ */
+public record DashboardStats(
+		long courses,
+		Map<String, Long> coursesPerCategory,
+		Map<String, Long> coursesPerDifficulty,
+		long providers,
+		long listings,
+		Map<String, Long> listingsPerCurrency,
+		long users,
+		long usersWithTwoFactor,
+		double twoFactorAdoption,
+		long favorites,
+		Instant reconciledAt
+) {
+}
@@ -0,0 +1,23 @@
+package no.ntnu.dto;
+
+import java.time.Instant;
+
+/**
+ * The metadata of an {@link no.ntnu.database.model.Image Image}, loaded without its content,
+ * to answer conditional and range requests before any content is read.
+ *
+ * @param imageId       The image's ID
+ * @param imageType     The file type of the image
+ * @param contentHash   The SHA-256 hash of the content in the blob store,
+ *                      or null if the content is still kept in the table
+ * @param contentLength The length of the content in bytes
+ * @param modifiedAt    When the content was last replaced, or null if unknown
+ */
+public record ImageMetadata(
+		int imageId,
+		String imageType,
+		String contentHash,
+		long contentLength,
+		Instant modifiedAt
+) {
+}
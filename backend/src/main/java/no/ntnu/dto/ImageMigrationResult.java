@@ -0,0 +1,10 @@
+package no.ntnu.dto;
+
+/**
+ * The result of moving image content out of the image table.
+ *
+ * @param migrated The number of images moved to the blob store
+ * @param failed   The number of images that could not be moved, and are still in the table
+ */
+public record ImageMigrationResult(int migrated, int failed) {
+}
@@ -0,0 +1,11 @@
+package no.ntnu.dto;
+
+/**
+ * One course in a provider's full price list.
+ *
+ * @param courseId The ID of the course
+ * @param price    The provider's price of the course
+ * @param currency The currency of the price
+ */
+public record PriceListEntry(int courseId, double price, String currency) {
+}
@@ -0,0 +1,12 @@
+package no.ntnu.dto;
+
+/**
+ * The changes made to bring a provider's listings in line with its full price list.
+ *
+ * @param inserted  The number of listings added
+ * @param updated   The number of listings whose price or currency changed
+ * @param deleted   The number of listings removed because they were not in the price list
+ * @param unchanged The number of listings left as they were
+ */
+public record PriceListSyncResult(int inserted, int updated, int deleted, int unchanged) {
+}
@@ -0,0 +1,10 @@
+package no.ntnu.dto;
+
+/**
+ * A course with its lowest price.
+ *
+ * @param course The course
+ * @param price  The lowest price of the course at any provider, with its sale taken off
+ */
+public record PricedCourse(CourseView course, double price) {
+}
@@ -0,0 +1,13 @@
+package no.ntnu.dto;
+
+import java.util.List;
+
+/**
+ * One page of a course listing sorted by price, cheapest first.
+ *
+ * @param courses    The courses on this page, with their lowest price
+ * @param currency   The currency of the prices
+ * @param nextCursor The continuation token for the next page, or null if this is the last page
+ */
+public record PricedCoursePage(List<PricedCourse> courses, String currency, String nextCursor) {
+}
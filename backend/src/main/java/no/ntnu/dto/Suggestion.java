@@ -0,0 +1,30 @@
+package no.ntnu.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Locale;
+
+/**
+ * A typeahead suggestion.
+ *
+ * @param type The kind of thing suggested
+ * @param id   The ID of the suggested course, provider or category,
+ *             null for certifications
+ * @param text The text to suggest
+ */
+public record Suggestion(Type type, Integer id, String text) {
+
+	/**
+	 * The kinds of things that are suggested.
+	 */
+	public enum Type {
+		COURSE,
+		PROVIDER,
+		CATEGORY,
+		CERTIFICATION;
+
+		@JsonValue
+		public String toJson() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+}
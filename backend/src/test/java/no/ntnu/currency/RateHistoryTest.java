@@ -0,0 +1,89 @@
+package no.ntnu.currency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the size of the exchange rate history, and that past rates are read back exactly.
+ */
+class RateHistoryTest {
+	private static final int CURRENCIES = 30;
+	private static final int SETS = 200;
+	private static final Instant START = Instant.parse("2024-05-01T00:00:00Z");
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void ratesThatMovedALittleTakeFewerBytesThanADouble() throws IOException {
+		Path file = directory.resolve("history.bin");
+		List<Map<String, Double>> sets = quotedRates();
+		RateHistory history = new RateHistory(file.toString());
+		history.append(sets.get(0), START);
+		long first = Files.size(file);
+		for (int i = 1; i < SETS; i++) {
+			history.append(sets.get(i), START.plusSeconds(i * 1800L));
+		}
+		history.close();
+
+		double bytesPerRate = (double) (Files.size(file) - first) / ((SETS - 1) * CURRENCIES);
+		assertTrue(bytesPerRate < 4, "A changed rate took " + bytesPerRate + " bytes");
+	}
+
+	@Test
+	void pastRatesAreReadBackExactlyAfterARestart() throws IOException {
+		Path file = directory.resolve("history.bin");
+		List<Map<String, Double>> sets = quotedRates();
+		//A rate with no short decimal is stored as it is.
+		sets.get(SETS / 2).put("xau", 1 / 3.0);
+		RateHistory history = new RateHistory(file.toString());
+		for (int i = 0; i < SETS; i++) {
+			history.append(sets.get(i), START.plusSeconds(i * 1800L));
+		}
+		history.close();
+
+		RateHistory reopened = new RateHistory(file.toString());
+		assertEquals(SETS, reopened.size());
+		for (int i = 0; i < SETS; i++) {
+			PastRates rates = reopened.at(START.plusSeconds(i * 1800L + 60)).orElseThrow();
+			assertEquals(START.plusSeconds(i * 1800L), rates.fetchedAt());
+			assertEquals(sets.get(i), rates.baseRates());
+		}
+		reopened.close();
+	}
+
+	/**
+	 * Makes sets of rates quoted with four decimals, each moving by a few thousandths of a
+	 * percent from one set to the next.
+	 */
+	private static List<Map<String, Double>> quotedRates() {
+		Random random = new Random(42);
+		double[] rates = new double[CURRENCIES];
+		for (int i = 0; i < CURRENCIES; i++) {
+			rates[i] = 0.5 + random.nextDouble() * 150;
+		}
+		List<Map<String, Double>> sets = new ArrayList<>();
+		for (int set = 0; set < SETS; set++) {
+			Map<String, Double> quoted = new HashMap<>();
+			quoted.put("usd", 1.0);
+			for (int i = 0; i < CURRENCIES; i++) {
+				rates[i] *= 1 + (random.nextDouble() - 0.5) / 20_000;
+				quoted.put("c" + i, Math.round(rates[i] * 10_000) / 10_000.0);
+			}
+			sets.add(quoted);
+		}
+		return sets;
+	}
+}
@@ -0,0 +1,41 @@
+package no.ntnu.currency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a snapshot reports the status of its own rates.
+ */
+class RateSnapshotTest {
+	private static final Map<String, Double> RATES = Map.of("USD", 1d, "NOK", 10.5);
+
+	@Test
+	void ratesOlderThanTheirMaximumAgeAreStale() {
+		Instant fetchedAt = Instant.now().minus(Duration.ofHours(2));
+		RateSnapshot rates = RateSnapshot.of(RATES, fetchedAt).withMaxAge(Duration.ofHours(1));
+
+		assertEquals(new RateStatus(fetchedAt, true), rates.status());
+		assertEquals(10.5, rates.rate("usd", "nok"));
+	}
+
+	@Test
+	void ratesWithinTheirMaximumAgeAreNotStale() {
+		RateSnapshot rates = RateSnapshot.of(RATES, Instant.now()).withMaxAge(Duration.ofHours(1));
+
+		assertFalse(rates.status().stale());
+	}
+
+	@Test
+	void ratesWithoutAMaximumAgeAreOnlyStaleUntilFetched() {
+		Instant longAgo = Instant.parse("2024-05-01T00:00:00Z");
+
+		assertFalse(RateSnapshot.of(RATES, longAgo).status().stale());
+		assertTrue(RateSnapshot.EMPTY.status().stale());
+	}
+}
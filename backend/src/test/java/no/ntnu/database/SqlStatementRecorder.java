@@ -0,0 +1,36 @@
+package no.ntnu.database;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records every SQL statement Hibernate prepares, so tests can tell what was sent to the
+ * database. Hibernate creates the recorder from
+ * {@code hibernate.session_factory.statement_inspector}, so the statements are kept statically.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+	private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.add(sql);
+		return sql;
+	}
+
+	/**
+	 * Forgets the statements recorded so far.
+	 */
+	public static void clear() {
+		STATEMENTS.clear();
+	}
+
+	/**
+	 * Returns the statements recorded since the last {@link #clear()}.
+	 *
+	 * @return The statements, in the order they were prepared
+	 */
+	public static List<String> statements() {
+		return List.copyOf(STATEMENTS);
+	}
+}
@@ -0,0 +1,126 @@
+package no.ntnu.database.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import no.ntnu.database.event.CourseDeletedEvent;
+import no.ntnu.database.event.CourseSavedEvent;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.database.model.CourseProviderLink;
+import no.ntnu.database.repository.CourseProviderLinkRepository;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests searching for courses, and the prices of a course at its providers.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CourseControllerTest {
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private CourseRepository courseRepository;
+	@Autowired
+	private CourseProviderRepository providerRepository;
+	@Autowired
+	private CourseProviderLinkRepository linkRepository;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	private Course course;
+
+	@BeforeEach
+	void addListings() {
+		course = new Course();
+		course.setCourseName("Databases");
+		course.setDifficultyLevel("Beginner");
+		course = courseRepository.save(course);
+		//Stored directly, as listings in an untracked currency are refused by the API.
+		linkRepository.save(new CourseProviderLink(course, addProvider("Old provider"), 5, "XYZ"));
+		linkRepository.save(new CourseProviderLink(course, addProvider("NTNU"), 100, "USD"));
+	}
+
+	@AfterEach
+	void removeListings() {
+		//Drop the courses from the search index too, which is only told through events.
+		for (Course added : courseRepository.findAll()) {
+			eventPublisher.publishEvent(new CourseDeletedEvent(added.getCourseId()));
+		}
+		linkRepository.deleteAll();
+		courseRepository.deleteAll();
+		providerRepository.deleteAll();
+	}
+
+	@Test
+	void aListingInAnUntrackedCurrencyIsListedUnconvertedAfterTheOthers() throws Exception {
+		mockMvc.perform(get("/courses/{id}/prices", course.getCourseId())
+						.param("currency", "NOK"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].providerName").value("NTNU"))
+				.andExpect(jsonPath("$[0].price").value(1050.0))
+				.andExpect(jsonPath("$[0].currency").value("NOK"))
+				.andExpect(jsonPath("$[0].converted").value(true))
+				.andExpect(jsonPath("$[1].providerName").value("Old provider"))
+				.andExpect(jsonPath("$[1].price").value(5.0))
+				.andExpect(jsonPath("$[1].currency").value("XYZ"))
+				.andExpect(jsonPath("$[1].converted").value(false));
+	}
+
+	@Test
+	void anUntrackedCurrencyIsStillRefusedForTheWholeResponse() throws Exception {
+		mockMvc.perform(get("/courses/{id}/prices", course.getCourseId())
+						.param("currency", "XYZ"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void searchingWithoutALimitReturnsEveryMatch() throws Exception {
+		addCourses("Compilers", 60);
+
+		mockMvc.perform(get("/courses/search/{query}", "compilers"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(60));
+		mockMvc.perform(get("/courses/search/{query}", "compilers").param("limit", "10"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(10));
+	}
+
+	@Test
+	void searchingWithSuggestionTellsHowManyMatchedPastTheLimit() throws Exception {
+		addCourses("Compilers", 60);
+
+		mockMvc.perform(get("/courses/searchWithSuggestion/{query}", "compilers"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.courses.length()").value(50))
+				.andExpect(jsonPath("$.total").value(60));
+	}
+
+	private void addCourses(String name, int count) {
+		for (int i = 0; i < count; i++) {
+			Course added = new Course();
+			added.setCourseName(name + " " + i);
+			added.setDifficultyLevel("Expert");
+			eventPublisher.publishEvent(new CourseSavedEvent(courseRepository.save(added)));
+		}
+	}
+
+	private CourseProvider addProvider(String name) {
+		CourseProvider provider = new CourseProvider();
+		provider.setProviderName(name);
+		return providerRepository.save(provider);
+	}
+}
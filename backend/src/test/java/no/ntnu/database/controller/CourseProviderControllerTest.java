@@ -0,0 +1,99 @@
+package no.ntnu.database.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import no.ntnu.database.SqlStatementRecorder;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.database.model.CourseProviderLink;
+import no.ntnu.database.repository.CourseProviderLinkRepository;
+import no.ntnu.database.repository.CourseProviderRepository;
+import no.ntnu.database.repository.CourseRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests the price listings of course providers.
+ *
+ * <p>The tests are not transactional on purpose: a listing changed while converting its price
+ * would only be written when the transaction of the request commits.</p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CourseProviderControllerTest {
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private CourseRepository courseRepository;
+	@Autowired
+	private CourseProviderRepository providerRepository;
+	@Autowired
+	private CourseProviderLinkRepository linkRepository;
+
+	private Course course;
+	private CourseProvider provider;
+
+	@BeforeEach
+	void addListing() {
+		course = new Course();
+		course.setCourseName("Databases");
+		course.setDifficultyLevel("Beginner");
+		course = courseRepository.save(course);
+		provider = new CourseProvider();
+		provider.setProviderName("NTNU");
+		provider = providerRepository.save(provider);
+		linkRepository.save(new CourseProviderLink(course, provider, 100, "USD"));
+	}
+
+	@AfterEach
+	void removeListing() {
+		linkRepository.deleteAll();
+		courseRepository.deleteAll();
+		providerRepository.deleteAll();
+	}
+
+	@Test
+	void convertingTheCurrencyOfAListingDoesNotChangeTheStoredListing() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		SqlStatementRecorder.clear();
+
+		mockMvc.perform(get("/providers/{providerId}/coursePriceListings/{courseId}",
+						provider.getCourseProviderId(), course.getCourseId())
+						.param("currency", "NOK"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.price").value(1050.0))
+				.andExpect(jsonPath("$.currency").value("NOK"));
+
+		assertEquals(0, statistics.getEntityUpdateCount());
+		assertTrue(SqlStatementRecorder.statements().stream()
+				.noneMatch(sql -> sql.stripLeading().toLowerCase().startsWith("update")));
+		Map<String, Object> stored = jdbcTemplate.queryForMap(
+				"SELECT price, currency FROM course_provider_link"
+						+ " WHERE course_id = ? AND course_provider_id = ?",
+				course.getCourseId(), provider.getCourseProviderId()
+		);
+		assertEquals(100.0, ((Number) stored.get("price")).doubleValue());
+		assertEquals("USD", stored.get("currency"));
+	}
+}
@@ -0,0 +1,80 @@
+package no.ntnu.database.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import no.ntnu.database.jwt.JwtUtil;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.repository.CourseRepository;
+import no.ntnu.database.repository.FavoriteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests adding a course that has been looked up, and so cached, as a favorite.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FavoriteControllerTest {
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private CourseRepository courseRepository;
+	@Autowired
+	private FavoriteRepository favoriteRepository;
+	@Autowired
+	private UserDetailsService userDetailsService;
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	private Course course;
+
+	@BeforeEach
+	void addCourse() {
+		course = new Course();
+		course.setCourseName("Databases");
+		course.setDifficultyLevel("Beginner");
+		course = courseRepository.save(course);
+	}
+
+	@AfterEach
+	void removeCourse() {
+		favoriteRepository.deleteAll();
+		courseRepository.deleteAll();
+	}
+
+	@Test
+	void aCachedCourseCanBeAddedAsAFavorite() throws Exception {
+		String token = jwtUtil.generateToken(userDetailsService.loadUserByUsername("dave"));
+
+		mockMvc.perform(get("/courses/{id}", course.getCourseId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.courseName").value("Databases"));
+		mockMvc.perform(post("/favorites/{courseId}", course.getCourseId())
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.course.courseName").value("Databases"));
+
+		assertTrue(favoriteRepository.findAll().iterator().hasNext());
+	}
+
+	@Test
+	void aMissingCourseIsNotAddedAsAFavorite() throws Exception {
+		String token = jwtUtil.generateToken(userDetailsService.loadUserByUsername("dave"));
+
+		mockMvc.perform(post("/favorites/{courseId}", course.getCourseId() + 1)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isBadRequest());
+	}
+}
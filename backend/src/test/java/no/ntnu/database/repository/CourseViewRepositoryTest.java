@@ -0,0 +1,122 @@
+package no.ntnu.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.Set;
+import no.ntnu.database.model.Category;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.model.CourseProvider;
+import no.ntnu.database.model.CourseProviderLink;
+import no.ntnu.database.model.Image;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests that course views are loaded with a fixed number of statements, however many
+ * courses, listings, categories and images there are.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CourseViewRepositoryTest {
+	private static final int MANY_COURSES = 20;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private CourseRepository courseRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private CourseProviderRepository providerRepository;
+	@Autowired
+	private CourseProviderLinkRepository linkRepository;
+
+	private Statistics statistics;
+	private Category category;
+	private CourseProvider provider;
+
+	@BeforeEach
+	void addCategoryAndProvider() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		category = new Category();
+		category.setCategoryName("Databases");
+		category = categoryRepository.save(category);
+		provider = new CourseProvider();
+		provider.setProviderName("NTNU");
+		provider = providerRepository.save(provider);
+	}
+
+	@AfterEach
+	void removeCourses() {
+		linkRepository.deleteAll();
+		courseRepository.deleteAll();
+		categoryRepository.deleteAll();
+		providerRepository.deleteAll();
+	}
+
+	@Test
+	void loadingAllViewsTakesAsManyStatementsForManyCoursesAsForOne() {
+		addCourses(1);
+		statistics.clear();
+		assertEquals(1, courseRepository.findAllViews().size());
+		long oneCourse = statistics.getPrepareStatementCount();
+
+		addCourses(MANY_COURSES);
+		statistics.clear();
+		assertEquals(1 + MANY_COURSES, courseRepository.findAllViews().size());
+		long manyCourses = statistics.getPrepareStatementCount();
+
+		assertEquals(oneCourse, manyCourses);
+	}
+
+	@Test
+	void loadingAPageOfCoursesTakesAsManyStatementsForManyCoursesAsForOne() throws Exception {
+		addCourses(1);
+		statistics.clear();
+		mockMvc.perform(get("/courses").param("limit", "50"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.courses.length()").value(1));
+		long oneCourse = statistics.getPrepareStatementCount();
+
+		addCourses(MANY_COURSES);
+		statistics.clear();
+		mockMvc.perform(get("/courses").param("limit", "50"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.courses.length()").value(1 + MANY_COURSES));
+		long manyCourses = statistics.getPrepareStatementCount();
+
+		assertEquals(oneCourse, manyCourses);
+	}
+
+	/**
+	 * Adds courses with an image, a category and a listing each, so that loading any of
+	 * them one course at a time would show up as extra statements.
+	 */
+	private void addCourses(int count) {
+		for (int i = 0; i < count; i++) {
+			Course course = new Course();
+			course.setCourseName("Course " + i);
+			course.setDifficultyLevel("Beginner");
+			course.setCategories(new HashSet<>(Set.of(category)));
+			course.setImage(new Image("0".repeat(64), 1024, "png", "Course " + i));
+			course = courseRepository.save(course);
+			linkRepository.save(new CourseProviderLink(course, provider, 100 + i, "USD"));
+		}
+	}
+}
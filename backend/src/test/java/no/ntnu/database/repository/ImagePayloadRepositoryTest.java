@@ -0,0 +1,171 @@
+package no.ntnu.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import no.ntnu.database.SqlStatementRecorder;
+import no.ntnu.database.model.Course;
+import no.ntnu.database.model.ImagePayload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Tests that the content of images is only loaded through {@link ImagePayload}, and never
+ * when courses or their images are loaded, however large the content is. The memory
+ * allocated by either is compared, and logged with how long it took.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ImagePayloadRepositoryTest {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImagePayloadRepositoryTest.class);
+	private static final int IMAGE_SIZE = 2 * 1024 * 1024;
+	private static final int COURSES = 5;
+	private static final String CONTENT_COLUMN = "image_bytes";
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private CourseRepository courseRepository;
+	@Autowired
+	private ImagePayloadRepository payloadRepository;
+
+	private final List<Course> courses = new ArrayList<>();
+	private final List<Integer> imageIds = new ArrayList<>();
+
+	@BeforeEach
+	void addCoursesWithLargeImages() {
+		for (int i = 0; i < COURSES; i++) {
+			Course course = new Course();
+			course.setCourseName("Course " + i);
+			course.setDifficultyLevel("Beginner");
+			course = courseRepository.save(course);
+			int imageId = insertImage();
+			jdbcTemplate.update("UPDATE course SET image_id = ? WHERE course_id = ?",
+					imageId, course.getCourseId());
+			courses.add(course);
+			imageIds.add(imageId);
+		}
+	}
+
+	@AfterEach
+	void removeCourses() {
+		courseRepository.deleteAll();
+		courses.clear();
+		imageIds.clear();
+	}
+
+	@Test
+	void loadingCoursesNeverLoadsImageContent() throws Exception {
+		SqlStatementRecorder.clear();
+
+		assertEquals(COURSES, courseRepository.findAllViews().size());
+		mockMvc.perform(get("/courses").param("limit", "50")).andExpect(status().isOk());
+		for (Course course : courses) {
+			mockMvc.perform(get("/courses/{id}", course.getCourseId()))
+					.andExpect(status().isOk());
+		}
+		List<Course> loaded = new ArrayList<>();
+		courseRepository.findAll().forEach(loaded::add);
+		assertEquals(COURSES, loaded.size());
+
+		List<String> statements = SqlStatementRecorder.statements();
+		assertFalse(statements.isEmpty());
+		assertTrue(statements.stream().noneMatch(sql -> sql.contains(CONTENT_COLUMN)),
+				"Course loading selected the image content: " + statements);
+	}
+
+	@Test
+	void loadingThePayloadLoadsImageContent() {
+		SqlStatementRecorder.clear();
+
+		ImagePayload payload = payloadRepository.findById(imageIds.get(0)).orElseThrow();
+
+		assertEquals(IMAGE_SIZE, payload.getImageBytes().length);
+		assertTrue(SqlStatementRecorder.statements().stream()
+				.anyMatch(sql -> sql.contains(CONTENT_COLUMN)));
+	}
+
+	@Test
+	void loadingCoursesAllocatesLessThanOneImageWhileLoadingPayloadsAllocatesEveryImage() {
+		//Warm up both paths, so classes and query plans are not counted.
+		loadViews();
+		loadPayloads();
+
+		long start = System.nanoTime();
+		long viewBytes = allocatedBy(this::loadViews);
+		long viewNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		long payloadBytes = allocatedBy(this::loadPayloads);
+		long payloadNanos = System.nanoTime() - start;
+		LOGGER.info("Loading {} courses allocated {} bytes in {} us,"
+						+ " loading their payloads {} bytes in {} us",
+				COURSES, viewBytes, viewNanos / 1000, payloadBytes, payloadNanos / 1000);
+
+		assertTrue(viewBytes < IMAGE_SIZE, "Loading courses allocated " + viewBytes + " bytes");
+		assertTrue(payloadBytes >= (long) COURSES * IMAGE_SIZE);
+	}
+
+	private void loadViews() {
+		assertEquals(COURSES, courseRepository.findAllViews().size());
+		List<Course> loaded = new ArrayList<>();
+		courseRepository.findAll().forEach(loaded::add);
+		assertEquals(COURSES, loaded.size());
+	}
+
+	private void loadPayloads() {
+		for (int imageId : imageIds) {
+			ImagePayload payload = payloadRepository.findById(imageId).orElseThrow();
+			assertEquals(IMAGE_SIZE, payload.getImageBytes().length);
+		}
+	}
+
+	private static long allocatedBy(Runnable task) {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		task.run();
+		return threads.getCurrentThreadAllocatedBytes() - before;
+	}
+
+	/**
+	 * Inserts an image with large content directly, as images stored before the content
+	 * moved to the blob store still have it in the image table.
+	 */
+	private int insertImage() {
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		jdbcTemplate.update(connection -> {
+			PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO image (image_type, alt_text, content_length, " + CONTENT_COLUMN
+							+ ") VALUES (?, ?, ?, ?)",
+					new String[] {"image_id"}
+			);
+			statement.setString(1, "png");
+			statement.setString(2, "A large image");
+			statement.setLong(3, IMAGE_SIZE);
+			statement.setBytes(4, new byte[IMAGE_SIZE]);
+			return statement;
+		}, keyHolder);
+		return keyHolder.getKey().intValue();
+	}
+}